@@ -0,0 +1,91 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import hudson.Util;
+
+/**
+ * Synthetic settings and HAR files of a given size for the benchmarks.
+ */
+final class BenchmarkData {
+    private BenchmarkData() {
+    }
+
+    static Configuration configuration(int size) {
+        List<String> excludedUrls = new ArrayList<>();
+        List<HostMapping> hosts = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            excludedUrls.add("https://app" + (i % 50) + ".test/excluded/path/" + i);
+            HostMapping host = new HostMapping();
+            host.setEnable(i % 2 == 0);
+            host.setFrom("from" + i + ".test");
+            host.setTo("to" + i + ".test");
+            hosts.add(host);
+        }
+        Configuration config = new Configuration();
+        config.setExcludedUrls(excludedUrls);
+        config.setExcludedFileExtensions(new ArrayList<>(Arrays.asList("png", "css", "js", "gif")));
+        config.setExcludedParameters(new ArrayList<>(Arrays.asList("jsessionid", "csrf")));
+        config.setAllowedHosts(new ArrayList<>());
+        config.setHosts(hosts);
+        return config;
+    }
+
+    static ArrayList<WhiteHatIDDHostMapping> hostMappings(int size) {
+        ArrayList<WhiteHatIDDHostMapping> mappings = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            // every tenth source host repeats, as copy and paste in the job configuration does
+            mappings.add(new WhiteHatIDDHostMapping(true, "from" + (i % 10 == 9 ? i - 1 : i) + ".test", "to" + i + ".test"));
+        }
+        return mappings;
+    }
+
+    static String har(int entries) {
+        StringBuilder har = new StringBuilder("{\"log\":{\"version\":\"1.2\",\"creator\":{\"name\":\"bench\"},\"entries\":[");
+        for (int i = 0; i < entries; i++) {
+            har.append(i == 0 ? "" : ",")
+                    .append("{\"request\":{\"method\":\"").append(i % 3 == 0 ? "POST" : "GET")
+                    .append("\",\"url\":\"https://app.test/path/").append(i % 500)
+                    .append(i % 7 == 0 ? ".png" : "").append("?id=").append(i)
+                    .append("\",\"queryString\":[{\"name\":\"id\",\"value\":\"").append(i)
+                    .append("\"}],\"headers\":[{\"name\":\"Accept\",\"value\":\"*/*\"}]},")
+                    .append("\"response\":{\"status\":200,\"content\":{\"size\":512,\"text\":\"")
+                    .append(new String(new char[256]).replace('\0', 'x')).append("\"}}}");
+        }
+        return har.append("]}}").toString();
+    }
+
+    static void writeHar(File file, int entries) throws IOException {
+        Files.write(file.toPath(), har(entries).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Directory tree {@code depth} levels deep with {@code fanout} sub directories and HAR files per directory.
+     */
+    static void writeTree(File dir, int depth, int fanout, int entries) throws IOException {
+        if (!dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("could not create " + dir);
+        }
+        for (int i = 0; i < fanout; i++) {
+            writeHar(new File(dir, "recording-" + i + ".har"), entries);
+            Files.write(new File(dir, "notes-" + i + ".txt").toPath(), new byte[] {'x'});
+            if (depth > 1) {
+                writeTree(new File(dir, "dir-" + i), depth - 1, fanout, entries);
+            }
+        }
+    }
+
+    static File tempDir(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix).toFile();
+    }
+
+    static void delete(File file) throws IOException {
+        Util.deleteRecursive(file);
+    }
+}
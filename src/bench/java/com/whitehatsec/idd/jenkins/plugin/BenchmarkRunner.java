@@ -0,0 +1,105 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Runs the benchmarks with the GC profiler and compares time and allocation per operation with the
+ * baseline, failing on a regression beyond {@code benchmark.tolerance} (default 25%). Without a baseline the run
+ * records one.
+ * <p>
+ * {@code mvn -Pbenchmark test -Dbenchmark.updateBaseline=true} replaces the baseline with the results of the run;
+ * {@code -Dbenchmark.include=<regex>} selects benchmarks.
+ */
+public class BenchmarkRunner {
+    static final File BASELINE = new File("src/bench/baseline/jmh-baseline.json");
+    static final File RESULT = new File("target/jmh-result.json");
+    static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    @Test
+    public void runBenchmarks() throws Exception {
+        RESULT.getParentFile().mkdirs();
+        Options options = new OptionsBuilder()
+            .include(System.getProperty("benchmark.include", BenchmarkRunner.class.getPackage().getName() + ".*Benchmark"))
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(RESULT.getPath())
+            .shouldFailOnError(true)
+            .build();
+        new Runner(options).run();
+
+        if (Boolean.getBoolean("benchmark.updateBaseline") || !BASELINE.isFile()) {
+            // the first run on a machine records the baseline later runs are compared with
+            boolean recorded = !BASELINE.isFile();
+            BASELINE.getParentFile().mkdirs();
+            Files.copy(RESULT.toPath(), BASELINE.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            System.out.println((recorded ? "recorded baseline " : "updated baseline ") + BASELINE);
+            return;
+        }
+
+        double tolerance = Double.parseDouble(System.getProperty("benchmark.tolerance", "0.25"));
+        Map<String, double[]> baseline = scores(BASELINE);
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, double[]> current : scores(RESULT).entrySet()) {
+            double[] base = baseline.get(current.getKey());
+            if (base == null) {
+                continue;
+            }
+            compare(regressions, current.getKey() + " time", base[0], current.getValue()[0], tolerance);
+            compare(regressions, current.getKey() + " allocation", base[1], current.getValue()[1], tolerance);
+        }
+        assertTrue("regressions against " + BASELINE + ": " + regressions, regressions.isEmpty());
+    }
+
+    private static void compare(List<String> regressions, String name, double base, double current, double tolerance) {
+        System.out.println(String.format("%s: baseline %.3f, current %.3f", name, base, current));
+        if (base > 0 && current > base * (1 + tolerance)) {
+            regressions.add(String.format("%s %.3f > %.3f", name, current, base));
+        }
+    }
+
+    /**
+     * Score and normalized allocation rate of each benchmark and parameter combination of a JMH JSON result.
+     */
+    static Map<String, double[]> scores(File result) throws IOException {
+        Map<String, double[]> scores = new TreeMap<>();
+        try (Reader reader = Files.newBufferedReader(result.toPath(), StandardCharsets.UTF_8)) {
+            JsonArray runs = new JsonParser().parse(reader).getAsJsonArray();
+            for (JsonElement element : runs) {
+                JsonObject run = element.getAsJsonObject();
+                String key = run.get("benchmark").getAsString() + (run.has("params") ? run.get("params").toString() : "");
+                double allocation = -1;
+                JsonObject secondary = run.getAsJsonObject("secondaryMetrics");
+                for (Map.Entry<String, JsonElement> metric : secondary == null ? new JsonObject().entrySet() : secondary.entrySet()) {
+                    if (metric.getKey().endsWith(ALLOCATION)) {
+                        allocation = metric.getValue().getAsJsonObject().get("score").getAsDouble();
+                    }
+                }
+                scores.put(key, new double[] {run.getAsJsonObject("primaryMetric").get("score").getAsDouble(), allocation});
+            }
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,58 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HAR discovery, which walks the HAR Source and digests and counts the entries of every HAR file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiscoveryBenchmark {
+    /**
+     * Depth and fanout of the tree; 3x10 holds 1110 HAR files, 6x3 holds 1092 in a deeper tree.
+     */
+    @Param({"3x10", "6x3"})
+    public String tree;
+
+    @Param({"10"})
+    public int entries;
+
+    private File dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] shape = tree.split("x");
+        dir = BenchmarkData.tempDir("idd-discovery-bench");
+        BenchmarkData.writeTree(new File(dir, "hars"), Integer.parseInt(shape[0]), Integer.parseInt(shape[1]), entries);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public HarListing discover() throws IOException, InterruptedException {
+        return new HarDiscovery().invoke(new File(dir, "hars"), null);
+    }
+}
@@ -0,0 +1,68 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The HAR parsing done by the plugin itself: pre-filtering and splitting into shards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HarParsingBenchmark {
+    @Param({"1000", "20000"})
+    public int entries;
+
+    private File dir;
+    private File har;
+    private File filtered;
+    private File shards;
+    private Configuration config;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchmarkData.tempDir("idd-har-bench");
+        har = new File(dir, "recording.har");
+        filtered = new File(dir, "filtered.har");
+        shards = new File(dir, "shards");
+        BenchmarkData.writeHar(har, entries);
+        config = BenchmarkData.configuration(1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public FilterStats preFilter() throws IOException {
+        return new HarFilter(config).filter(har.getName(), har, filtered);
+    }
+
+    @Benchmark
+    public List<File> split() throws IOException {
+        if (!shards.mkdirs() && !shards.isDirectory()) {
+            throw new IOException("could not create " + shards);
+        }
+        return new HarSplitter(entries / 4, 0).split(har, shards, "recording");
+    }
+}
@@ -0,0 +1,78 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading, merging and writing the job settings file with thousands of excluded URLs, hosts and host mappings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SettingsBenchmark {
+    @Param({"1000", "10000"})
+    public int size;
+
+    private File dir;
+    private File settingsFile;
+    private File outputFile;
+    private Configuration config;
+    private WhiteHatIDDBuilder builder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchmarkData.tempDir("idd-settings-bench");
+        settingsFile = new File(dir, "settings.json");
+        outputFile = new File(dir, "saved.json");
+        config = BenchmarkData.configuration(size);
+        SettingsFile.saveSettings(config, settingsFile);
+        builder = new WhiteHatIDDBuilder("hars");
+        builder.setHostMapping(BenchmarkData.hostMappings(size));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public Configuration readSettings() throws IOException {
+        return SettingsFile.readSettings(settingsFile);
+    }
+
+    @Benchmark
+    public File saveSettings() throws IOException {
+        SettingsFile.saveSettings(config, outputFile);
+        return outputFile;
+    }
+
+    @Benchmark
+    public Configuration updateHostMappingSettings() {
+        List<HostMapping> hosts = builder.getHostMappingSettings();
+        return new UpdateSettings(hosts, Severity.HIGH.level, Severity.NOTE.level).updateHostMappingSettings(config);
+    }
+
+    @Benchmark
+    public UpdateSettings.Result updateSettingsFile() throws IOException, InterruptedException {
+        return new UpdateSettings(builder.getHostMappingSettings(), Severity.HIGH.level, Severity.NOTE.level).invoke(settingsFile, null);
+    }
+}
@@ -0,0 +1,220 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.Functions;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import hudson.model.queue.QueueTaskFuture;
+import hudson.slaves.EnvironmentVariablesNodeProperty;
+
+/**
+ * Measures the plugin at scale against {@link StandInScanner}: one freestyle job over a large synthetic HAR tree, and
+ * many pipeline jobs at once. Reports the wall time of the builds, the time of the plugin phases, the peak and retained
+ * controller heap and the size of the build logs, on the console and in {@code target/loadtest-report.txt}.
+ * <p>
+ * {@code mvn -Ploadtest test}, sized with the system properties
+ * {@code loadtest.hars} (default 1000), {@code loadtest.jobs} (40), {@code loadtest.harsPerJob} (25),
+ * {@code loadtest.entriesPerHar} (20), {@code loadtest.latencyMillis} (20), {@code loadtest.outputLines} (20),
+ * {@code loadtest.findingsPerHar} (2), {@code loadtest.maxParallelScans} (4), {@code loadtest.batchSize} (0) and
+ * {@code loadtest.preFilterHars} (false).
+ */
+public class LoadTest {
+    static final File REPORT = new File("target/loadtest-report.txt");
+
+    static final int HARS = Integer.getInteger("loadtest.hars", 1000);
+    static final int JOBS = Integer.getInteger("loadtest.jobs", 40);
+    static final int HARS_PER_JOB = Integer.getInteger("loadtest.harsPerJob", 25);
+    static final int ENTRIES_PER_HAR = Integer.getInteger("loadtest.entriesPerHar", 20);
+    static final int LATENCY_MILLIS = Integer.getInteger("loadtest.latencyMillis", 20);
+    static final int OUTPUT_LINES = Integer.getInteger("loadtest.outputLines", 20);
+    static final int FINDINGS_PER_HAR = Integer.getInteger("loadtest.findingsPerHar", 2);
+    static final int MAX_PARALLEL_SCANS = Integer.getInteger("loadtest.maxParallelScans", 4);
+    static final int BATCH_SIZE = Integer.getInteger("loadtest.batchSize", 0);
+    static final boolean PRE_FILTER_HARS = Boolean.getBoolean("loadtest.preFilterHars");
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Before
+    public void setUpScanner() throws Exception {
+        Assume.assumeFalse("stand-in scanner is a shell script", Functions.isWindows());
+        File iddHome = tmp.newFolder("idd");
+        new StandInScanner()
+            .latencyMillis(LATENCY_MILLIS)
+            .outputLines(OUTPUT_LINES)
+            .findingsPerHar(FINDINGS_PER_HAR, Severity.LOW)
+            .install(iddHome);
+        EnvironmentVariablesNodeProperty prop = new EnvironmentVariablesNodeProperty();
+        prop.getEnvVars().put("DIRECTED_DAST_HOME", iddHome.getAbsolutePath());
+        jenkins.jenkins.getGlobalNodeProperties().add(prop);
+        WhiteHatIDDGlobalConfiguration.get().setSettingsTemplate("{}");
+    }
+
+    /**
+     * Writes {@code count} HAR files of distinct requests, 100 per directory.
+     */
+    static File harTree(File root, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            File har = new File(root, String.format("app-%03d/flow-%05d.har", i / 100, i));
+            har.getParentFile().mkdirs();
+            StringBuilder entries = new StringBuilder();
+            for (int e = 0; e < ENTRIES_PER_HAR; e++) {
+                entries.append(e == 0 ? "" : ",").append("{\"request\":{\"method\":\"GET\",\"url\":\"http://app.test/flow")
+                    .append(i).append("/step").append(e).append("?q=x\",\"queryString\":[{\"name\":\"q\",\"value\":\"x\"}]}}");
+            }
+            Files.write(har.toPath(), ("{\"log\":{\"version\":\"1.2\",\"entries\":[" + entries + "]}}").getBytes(StandardCharsets.UTF_8));
+        }
+        return root;
+    }
+
+    WhiteHatIDDBuilder builder(File hars) {
+        WhiteHatIDDBuilder builder = new WhiteHatIDDBuilder(hars.getAbsolutePath());
+        builder.setFailOnSeverity(Severity.CRITICAL.level);
+        builder.setCollectFindings(true);
+        builder.setMaxParallelScans(MAX_PARALLEL_SCANS);
+        builder.setBatchSize(BATCH_SIZE);
+        builder.setPreFilterHars(PRE_FILTER_HARS);
+        return builder;
+    }
+
+    @Test
+    public void testFreestyleJobOverLargeHarTree() throws Exception {
+        File hars = harTree(tmp.newFolder("hars"), HARS);
+        FreeStyleProject project = jenkins.createFreeStyleProject("freestyle");
+        project.getBuildersList().add(builder(hars));
+
+        HeapSampler heap = HeapSampler.sample();
+        long start = System.nanoTime();
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(project);
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        heap.finish();
+
+        assertEquals(HARS * FINDINGS_PER_HAR, build.getAction(FindingsAction.class).getTotal().getTotal());
+        report("freestyle job, " + HARS + " HAR files", Collections.<Run<?, ?>>singletonList(build), wallMillis, heap);
+    }
+
+    @Test
+    public void testConcurrentPipelineJobs() throws Exception {
+        File hars = harTree(tmp.newFolder("hars"), HARS_PER_JOB);
+        jenkins.jenkins.setNumExecutors(JOBS);
+        List<WorkflowJob> jobs = new ArrayList<>();
+        for (int i = 0; i < JOBS; i++) {
+            WorkflowJob job = jenkins.createProject(WorkflowJob.class, "pipeline-" + i);
+            job.setDefinition(new CpsFlowDefinition(
+                    "node {\n"
+                    + "  whsIdd harSource: '" + hars.getAbsolutePath() + "', failOnSeverity: 'Critical', collectFindings: true,\n"
+                    + "    maxParallelScans: " + MAX_PARALLEL_SCANS + ", batchSize: " + BATCH_SIZE + ", preFilterHars: " + PRE_FILTER_HARS + "\n"
+                    + "}", true));
+            jobs.add(job);
+        }
+
+        HeapSampler heap = HeapSampler.sample();
+        long start = System.nanoTime();
+        List<QueueTaskFuture<WorkflowRun>> futures = new ArrayList<>();
+        for (WorkflowJob job : jobs) {
+            futures.add(job.scheduleBuild2(0));
+        }
+        List<Run<?, ?>> runs = new ArrayList<>();
+        for (QueueTaskFuture<WorkflowRun> future : futures) {
+            runs.add(jenkins.assertBuildStatusSuccess(future));
+        }
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        heap.finish();
+
+        for (Run<?, ?> run : runs) {
+            assertEquals(HARS_PER_JOB * FINDINGS_PER_HAR, run.getAction(FindingsAction.class).getTotal().getTotal());
+        }
+        report(JOBS + " concurrent pipeline jobs, " + HARS_PER_JOB + " HAR files each", runs, wallMillis, heap);
+    }
+
+    static void report(String scenario, List<Run<?, ?>> runs, long wallMillis, HeapSampler heap) throws IOException {
+        long buildMillis = 0;
+        long phaseMillis = 0;
+        long scanMillis = 0;
+        long logBytes = 0;
+        int scans = 0;
+        for (Run<?, ?> run : runs) {
+            buildMillis += run.getDuration();
+            MetricsAction metrics = run.getAction(MetricsAction.class);
+            phaseMillis += metrics.getOverheadMillis();
+            scanMillis += metrics.getWallMillis();
+            scans += metrics.getHars().size();
+            logBytes += run.getLogFile().length();
+        }
+        String report = String.format("%s: %d ms wall, %d ms in builds, %d ms in plugin phases, %d ms in %d scans, "
+                + "heap %d MB peak, %d MB retained, %d KB of build logs, scanner latency %d ms per HAR file",
+            scenario, wallMillis, buildMillis, phaseMillis, scanMillis, scans, heap.peakBytes >> 20, heap.retainedBytes >> 20,
+            logBytes >> 10, LATENCY_MILLIS);
+        System.out.println(report);
+        REPORT.getParentFile().mkdirs();
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(REPORT, true), StandardCharsets.UTF_8))) {
+            writer.println(report);
+        }
+    }
+
+    /**
+     * Samples the used controller heap while a scenario runs.
+     */
+    static class HeapSampler extends Thread {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        volatile boolean running = true;
+        volatile long peakBytes;
+        long retainedBytes;
+
+        static HeapSampler sample() {
+            System.gc();
+            HeapSampler sampler = new HeapSampler();
+            sampler.setDaemon(true);
+            sampler.start();
+            return sampler;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                peakBytes = Math.max(peakBytes, memory.getHeapMemoryUsage().getUsed());
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        void finish() throws InterruptedException {
+            running = false;
+            join();
+            System.gc();
+            retainedBytes = memory.getHeapMemoryUsage().getUsed();
+        }
+    }
+}
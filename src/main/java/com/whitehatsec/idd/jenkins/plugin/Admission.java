@@ -0,0 +1,128 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import hudson.Util;
+import hudson.model.TaskListener;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Holds back new scans while the agent is overloaded, i.e. its load average is above {@code maxLoadPercent} percent
+ * of its processors or its available memory is below {@code minFreeMemoryMB}. The agent is checked again every
+ * {@link #POLL_SECONDS} seconds. A scan that waited {@link #MAX_WAIT_MINUTES} minutes starts anyway, so a build
+ * is not held back forever by a load it cannot change.
+ */
+class Admission {
+  static final int POLL_SECONDS = 10;
+  static final int MAX_WAIT_MINUTES = 30;
+
+  private final int maxLoadPercent;
+  private final int minFreeMemoryMB;
+
+  Admission(int maxLoadPercent, int minFreeMemoryMB) {
+    this.maxLoadPercent = maxLoadPercent;
+    this.minFreeMemoryMB = minFreeMemoryMB;
+  }
+
+  boolean isEnabled() {
+    return maxLoadPercent > 0 || minFreeMemoryMB > 0;
+  }
+
+  /**
+   * Waits until the agent of the workspace can take another scan, or the scans are cancelled.
+   *
+   * @return the wait, or {@code null} when the scan was admitted right away
+   */
+  ResourceEvent await(ScanContext ctx, String label, TaskListener listener) throws IOException, InterruptedException {
+    long start = System.currentTimeMillis();
+    String firstOverload = null;
+    while (!ctx.isCancelled()) {
+      String overload = overload(ctx.workspace.act(new Probe()));
+      if (overload == null) {
+        break;
+      }
+      long waited = System.currentTimeMillis() - start;
+      if (firstOverload == null) {
+        firstOverload = overload;
+        listener.getLogger().println("hold back scan of " + label + ": " + overload);
+      }
+      if (waited >= TimeUnit.MINUTES.toMillis(MAX_WAIT_MINUTES)) {
+        listener.getLogger().println("start scan of " + label + " after waiting " + Util.getTimeSpanString(waited) + ", agent still overloaded");
+        return new ResourceEvent(ResourceEvent.Type.ADMISSION_WAIT, label, waited, overload + ", started anyway");
+      }
+      Thread.sleep(TimeUnit.SECONDS.toMillis(POLL_SECONDS));
+    }
+    if (firstOverload == null) {
+      return null;
+    }
+    long waited = System.currentTimeMillis() - start;
+    listener.getLogger().println("admit scan of " + label + " after waiting " + Util.getTimeSpanString(waited));
+    return new ResourceEvent(ResourceEvent.Type.ADMISSION_WAIT, label, waited, firstOverload);
+  }
+
+  /**
+   * Why the agent cannot take another scan, or {@code null} when it can. Unknown values never hold back a scan.
+   */
+  String overload(Load load) {
+    if (maxLoadPercent > 0 && load.loadAverage >= 0 && load.loadAverage * 100 > (double) maxLoadPercent * load.processors) {
+      return String.format(Locale.ENGLISH, "load average %.2f above %d%% of %d processors", load.loadAverage, maxLoadPercent, load.processors);
+    }
+    if (minFreeMemoryMB > 0 && load.freeMemoryMB >= 0 && load.freeMemoryMB < minFreeMemoryMB) {
+      return "available memory " + load.freeMemoryMB + " MB below " + minFreeMemoryMB + " MB";
+    }
+    return null;
+  }
+
+  static class Load implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Load average of the last minute, or -1 when unknown. */
+    final double loadAverage;
+    final int processors;
+    /** Available memory in MB, or -1 when unknown. */
+    final long freeMemoryMB;
+
+    Load(double loadAverage, int processors, long freeMemoryMB) {
+      this.loadAverage = loadAverage;
+      this.processors = Math.max(1, processors);
+      this.freeMemoryMB = freeMemoryMB;
+    }
+  }
+
+  /**
+   * Samples the load of the agent it runs on.
+   */
+  static class Probe extends MasterToSlaveCallable<Load, IOException> {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Load call() throws IOException {
+      OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+      return new Load(os.getSystemLoadAverage(), os.getAvailableProcessors(), freeMemoryMB(os));
+    }
+
+    private static long freeMemoryMB(OperatingSystemMXBean os) throws IOException {
+      // free memory does not count the page cache the kernel gives back on demand, MemAvailable does
+      File meminfo = new File("/proc/meminfo");
+      if (meminfo.isFile()) {
+        for (String line : Files.readAllLines(meminfo.toPath(), StandardCharsets.US_ASCII)) {
+          if (line.startsWith("MemAvailable:")) {
+            return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024;
+          }
+        }
+      }
+      if (os instanceof com.sun.management.OperatingSystemMXBean) {
+        return ((com.sun.management.OperatingSystemMXBean) os).getFreePhysicalMemorySize() / (1024 * 1024);
+      }
+      return -1;
+    }
+  }
+}
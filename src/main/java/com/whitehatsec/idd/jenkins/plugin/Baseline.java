@@ -0,0 +1,178 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Fingerprints of accepted findings, see {@link FindingsIndex#fingerprint(Finding)}. A baseline file holds one
+ * fingerprint per line, optionally followed by a description, and {@code #} comment lines. Fingerprints are kept
+ * as the 64-bit prefix of their SHA-256 in an open-addressing hash table, so a baseline of hundreds of thousands
+ * of findings takes a few megabytes and each lookup is a couple of array reads.
+ */
+class Baseline implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  /** Most baselines kept parsed in this JVM at a time. */
+  static final int MAX_LOADED = 8;
+
+  /**
+   * Parsed baselines by path, timestamp and size, least recently used first, released under memory pressure.
+   */
+  private static final Map<String, SoftReference<Baseline>> LOADED = new LinkedHashMap<String, SoftReference<Baseline>>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, SoftReference<Baseline>> eldest) {
+      return size() > MAX_LOADED;
+    }
+  };
+
+  private long[] table = new long[16];
+  private int size;
+
+  static Baseline parse(InputStream in) throws IOException {
+    Baseline baseline = new Baseline();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        int end = 0;
+        while (end < line.length() && !Character.isWhitespace(line.charAt(end))) {
+          end++;
+        }
+        long key = key(line.substring(0, end));
+        if (key != 0) {
+          baseline.add(key);
+        }
+      }
+    }
+    return baseline;
+  }
+
+  /**
+   * Baseline of the file, parsed again when its size or timestamp changed since it was last loaded, or when it was
+   * evicted.
+   */
+  static Baseline load(File file) throws IOException {
+    String key = file.getPath() + '\n' + file.lastModified() + '\n' + file.length();
+    synchronized (LOADED) {
+      SoftReference<Baseline> ref = LOADED.get(key);
+      Baseline baseline = ref == null ? null : ref.get();
+      if (baseline != null) {
+        return baseline;
+      }
+    }
+    Baseline baseline = parse(new FileInputStream(file));
+    synchronized (LOADED) {
+      // an earlier version of the file is not loaded again
+      LOADED.keySet().removeIf(k -> k.startsWith(file.getPath() + '\n'));
+      LOADED.put(key, new SoftReference<>(baseline));
+    }
+    return baseline;
+  }
+
+  static int loadedCount() {
+    synchronized (LOADED) {
+      return LOADED.size();
+    }
+  }
+
+  /**
+   * 64-bit prefix of a hex fingerprint, never 0 which marks free slots, or 0 when it is not a fingerprint.
+   */
+  private static long key(String fingerprint) {
+    if (fingerprint.length() < 16) {
+      return 0;
+    }
+    try {
+      long key = Long.parseUnsignedLong(fingerprint.substring(0, 16), 16);
+      return key == 0 ? 1 : key;
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private void add(long key) {
+    if ((size + 1) * 2 > table.length) {
+      long[] old = table;
+      table = new long[old.length * 2];
+      size = 0;
+      for (long k : old) {
+        if (k != 0) {
+          add(k);
+        }
+      }
+    }
+    int mask = table.length - 1;
+    for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+      if (table[i] == key) {
+        return;
+      }
+      if (table[i] == 0) {
+        table[i] = key;
+        size++;
+        return;
+      }
+    }
+  }
+
+  boolean contains(String fingerprint) {
+    long key = key(fingerprint);
+    if (key == 0) {
+      return false;
+    }
+    int mask = table.length - 1;
+    for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+      if (table[i] == key) {
+        return true;
+      }
+      if (table[i] == 0) {
+        return false;
+      }
+    }
+  }
+
+  private static int slot(long key, int mask) {
+    // the key is already a hash, fold it into the table size
+    return (int) (key ^ (key >>> 32)) & mask;
+  }
+
+  /**
+   * Marks the finding suppressed when the baseline holds it, and returns it.
+   */
+  Finding apply(Finding finding) {
+    finding.setSuppressed(contains(FindingsIndex.fingerprint(finding)));
+    return finding;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Loads the baseline file this callable is invoked on, for the controller.
+   */
+  static class Load extends MasterToSlaveFileCallable<Baseline> {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Baseline invoke(File file, VirtualChannel channel) throws IOException, InterruptedException {
+      return load(file);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.kohsuke.args4j.Argument;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.cli.CLICommand;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+
+/**
+ * Prints a baseline file accepting every finding of a build, see {@link Baseline}.
+ */
+@Extension
+public class BaselineCommand extends CLICommand {
+  @Argument(metaVar = "JOB", usage = "Name of the job", required = true, index = 0)
+  public Job<?, ?> job;
+
+  @Argument(metaVar = "BUILD", usage = "Number of the build whose findings are accepted", required = true, index = 1)
+  public int number;
+
+  @Override
+  public String getName() {
+    return "idd-baseline";
+  }
+
+  @Override
+  public String getShortDescription() {
+    return Messages.BaselineCommand_ShortDescription();
+  }
+
+  @Override
+  protected int run() throws Exception {
+    job.checkPermission(Item.READ);
+    Run<?, ?> run = job.getBuildByNumber(number);
+    if (run == null) {
+      throw new AbortException("No such build #" + number + " of " + job.getFullName());
+    }
+    FindingsAction findings = run.getAction(FindingsAction.class);
+    if (findings == null) {
+      throw new AbortException(run.getFullDisplayName() + " has no IDD findings, enable Collect Findings");
+    }
+
+    stdout.println("# IDD baseline of " + run.getFullDisplayName());
+    stdout.println("# fingerprint, severity, attack module, HAR file, URL, parameter");
+    Set<String> written = new HashSet<>();
+    for (Finding finding : findings.readAllFindings()) {
+      String fingerprint = FindingsIndex.fingerprint(finding);
+      if (written.add(fingerprint)) {
+        stdout.println(String.join("\t", fingerprint, finding.getSeverity(), finding.getModule(), finding.getHar(), finding.getUrl(),
+            finding.getParameter()));
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,113 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import hudson.console.LineTransformationOutputStream;
+
+/**
+ * Scanner stdout filter that writes every line to {@code fullLog} but only the first {@code headLines},
+ * the last {@code tailLines} and error lines to the console. Instead of the other lines, a progress line
+ * is printed to {@code progress} at most every {@link #PROGRESS_INTERVAL_MILLIS}.
+ */
+class BoundedConsoleOutputStream extends LineTransformationOutputStream {
+  static final long PROGRESS_INTERVAL_MILLIS = 10000;
+
+  private static final Pattern ERROR = Pattern.compile("(?i)\\b(error|exception|fatal|panic)\\b");
+  private static final Pattern PROGRESS = Pattern.compile("(\\d[\\d,]*)\\s*/\\s*(\\d[\\d,]*)");
+
+  private final PrintStream console;
+  private final PrintStream progress;
+  private final OutputStream fullLog;
+  private final Charset charset;
+  private final int headLines;
+  private final int tailLines;
+  private final String label;
+  private final Deque<String> tail = new ArrayDeque<>();
+  private long lines;
+  private long omitted;
+  private long errorLines;
+  private long done = -1;
+  private long total = -1;
+  private long lastReportMillis = System.currentTimeMillis();
+  private long lastReportDone;
+
+  BoundedConsoleOutputStream(PrintStream console, PrintStream progress, OutputStream fullLog, Charset charset,
+      int headLines, int tailLines, String label) {
+    this.console = console;
+    this.progress = progress;
+    this.fullLog = fullLog;
+    this.charset = charset;
+    this.headLines = headLines;
+    this.tailLines = tailLines;
+    this.label = label;
+  }
+
+  @Override
+  protected void eol(byte[] b, int len) throws IOException {
+    fullLog.write(b, 0, len);
+    lines++;
+    String line = trimEOL(new String(b, 0, len, charset));
+
+    Matcher m = PROGRESS.matcher(line);
+    if (m.find()) {
+      done = Long.parseLong(m.group(1).replace(",", ""));
+      total = Long.parseLong(m.group(2).replace(",", ""));
+    }
+
+    boolean error = ERROR.matcher(line).find();
+    if (error) {
+      errorLines++;
+    }
+    if (lines <= headLines || error) {
+      console.println(line);
+    } else {
+      tail.addLast(line);
+      if (tail.size() > tailLines) {
+        tail.removeFirst();
+        omitted++;
+      }
+    }
+    reportProgress();
+  }
+
+  private void reportProgress() {
+    long now = System.currentTimeMillis();
+    long elapsed = now - lastReportMillis;
+    if (elapsed < PROGRESS_INTERVAL_MILLIS) {
+      return;
+    }
+    long current = done >= 0 ? done : lines;
+    long rate = elapsed > 0 ? (current - lastReportDone) * 1000 / elapsed : 0;
+    if (done >= 0) {
+      progress.println(String.format("[%s] %,d/%,d requests attacked, %d req/s", label, done, total, rate));
+    } else {
+      progress.println(String.format("[%s] %,d lines of output, %d lines/s", label, lines, rate));
+    }
+    lastReportMillis = now;
+    lastReportDone = current;
+  }
+
+  long getErrorLines() {
+    return errorLines;
+  }
+
+  @Override
+  public void close() throws IOException {
+    super.close();
+    if (omitted > 0) {
+      console.println(String.format("... %,d lines omitted, see archived output of %s ...", omitted, label));
+    }
+    for (String line : tail) {
+      console.println(line);
+    }
+    tail.clear();
+    fullLog.close();
+  }
+}
@@ -15,6 +15,7 @@ public class Configuration {
   private String filterOnSeverity;
   private String failOnSeverity;
   private List<HostMapping> hosts;
+  private RequestOptions requestOptions;
 
   public boolean isApplyDebugHeader() {
     return applyDebugHeader;
@@ -111,4 +112,12 @@ public class Configuration {
   public void setHosts(List<HostMapping> hosts) {
     this.hosts = hosts;
   }
+
+  public RequestOptions getRequestOptions() {
+    return requestOptions;
+  }
+
+  public void setRequestOptions(RequestOptions requestOptions) {
+    this.requestOptions = requestOptions;
+  }
 }
@@ -0,0 +1,64 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import hudson.CloseProofOutputStream;
+import hudson.remoting.RemoteOutputStream;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Submits a scan to the {@link ScanDaemon} of the agent and returns the exit code of the scan. Interrupting the
+ * callable cancels the scan.
+ */
+class DaemonScan extends MasterToSlaveCallable<Integer, IOException> {
+  private static final long serialVersionUID = 1L;
+
+  private final String iddHome;
+  private final Map<String, String> env;
+  private final String daemonDir;
+  private final String settingsPath;
+  private final List<String> harPaths;
+  private final String findingsPath;
+  private final long idleTimeoutMillis;
+  private final OutputStream out;
+
+  /**
+   * @param env environment of a daemon started for this scan
+   * @param daemonDir directory of the port files on the agent
+   */
+  DaemonScan(String iddHome, Map<String, String> env, String daemonDir, String settingsPath, List<String> harPaths, String findingsPath,
+      long idleTimeoutMillis, OutputStream out) {
+    this.iddHome = iddHome;
+    this.env = new HashMap<>(env);
+    this.daemonDir = daemonDir;
+    this.settingsPath = settingsPath;
+    this.harPaths = new ArrayList<>(harPaths);
+    this.findingsPath = findingsPath;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+    this.out = new RemoteOutputStream(new CloseProofOutputStream(out));
+  }
+
+  @Override
+  public Integer call() throws IOException {
+    Map<String, String> daemonEnv = ScanDaemon.daemonEnv(env);
+    File portFile = ScanDaemon.portFile(ScanDaemon.daemonDir(new File(daemonDir)), iddHome, daemonEnv, idleTimeoutMillis);
+    ScanDaemon daemon = ScanDaemon.get(ScanDaemon.command(iddHome, portFile, idleTimeoutMillis), daemonEnv, portFile, idleTimeoutMillis);
+    PrintStream log = new PrintStream(out, true, StandardCharsets.UTF_8.name());
+    try {
+      return daemon.scan(settingsPath, harPaths, findingsPath, out, log);
+    } catch (InterruptedException e) {
+      throw (IOException) new InterruptedIOException("IDD daemon scan interrupted").initCause(e);
+    } finally {
+      log.flush();
+    }
+  }
+}
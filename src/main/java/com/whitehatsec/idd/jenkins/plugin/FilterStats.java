@@ -0,0 +1,117 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FilterStats implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final String harName;
+  private final String filteredPath;
+  private int entriesIn;
+  private int excluded;
+  private int duplicates;
+  private int cached;
+  private final Map<String, String> keptKeys = new LinkedHashMap<>();
+  private final List<String> cachedKeys = new ArrayList<>();
+  private String error;
+
+  public FilterStats(String harName, String filteredPath) {
+    this.harName = harName;
+    this.filteredPath = filteredPath;
+  }
+
+  void kept() {
+    entriesIn++;
+  }
+
+  void excluded() {
+    entriesIn++;
+    excluded++;
+  }
+
+  void duplicate() {
+    entriesIn++;
+    duplicates++;
+  }
+
+  void kept(String key, String endpoint) {
+    kept();
+    keptKeys.put(key, endpoint);
+  }
+
+  void cached(String key) {
+    entriesIn++;
+    cached++;
+    cachedKeys.add(key);
+  }
+
+  /**
+   * Marks the HAR file as not filtered, to be scanned as it is.
+   */
+  void unfiltered(String error) {
+    this.error = error;
+  }
+
+  public boolean isUnfiltered() {
+    return error != null;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public String getHarName() {
+    return harName;
+  }
+
+  public String getFilteredPath() {
+    return filteredPath;
+  }
+
+  public int getEntriesIn() {
+    return entriesIn;
+  }
+
+  public int getExcluded() {
+    return excluded;
+  }
+
+  public int getDuplicates() {
+    return duplicates;
+  }
+
+  public int getCached() {
+    return cached;
+  }
+
+  /**
+   * Result cache keys of the entries left to scan, with their endpoints.
+   */
+  public Map<String, String> getKeptKeys() {
+    return keptKeys;
+  }
+
+  /**
+   * Result cache keys of the entries dropped because the cache has their result.
+   */
+  public List<String> getCachedKeys() {
+    return cachedKeys;
+  }
+
+  public int getEntriesOut() {
+    return entriesIn - excluded - duplicates - cached;
+  }
+
+  @Override
+  public String toString() {
+    if (error != null) {
+      return harName + ": not filtered, " + error;
+    }
+    return harName + ": " + entriesIn + " entries in, " + getEntriesOut() + " out (" + excluded + " excluded, " + duplicates + " duplicates"
+        + (cached > 0 ? ", " + cached + " cached" : "") + ")";
+  }
+}
@@ -0,0 +1,107 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.Serializable;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * A scanner finding, normalized from the scanner's findings output.
+ */
+public class Finding implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private String har;
+  private String severity;
+  private String module;
+  private String title;
+  private String method;
+  private String url;
+  private String parameter;
+  private boolean suppressed;
+
+  public static Finding fromJson(JsonObject json, String har) {
+    Finding finding = new Finding();
+    finding.har = har;
+    finding.severity = string(json, "severity");
+    finding.module = string(json, "attackModule", "module");
+    finding.title = string(json, "title", "name", "vulnerability");
+    finding.method = string(json, "method");
+    finding.url = string(json, "url");
+    finding.parameter = string(json, "parameter", "param");
+    JsonElement request = json.get("request");
+    if (request != null && request.isJsonObject()) {
+      finding.method = finding.method.isEmpty() ? string(request.getAsJsonObject(), "method") : finding.method;
+      finding.url = finding.url.isEmpty() ? string(request.getAsJsonObject(), "url") : finding.url;
+    }
+    return finding;
+  }
+
+  /**
+   * Same finding, reported for another HAR file.
+   */
+  Finding forHar(String harName) {
+    Finding finding = new Finding();
+    finding.har = harName;
+    finding.severity = severity;
+    finding.module = module;
+    finding.title = title;
+    finding.method = method;
+    finding.url = url;
+    finding.parameter = parameter;
+    return finding;
+  }
+
+  static String string(JsonObject json, String... members) {
+    for (String member : members) {
+      JsonElement value = json.get(member);
+      if (value != null && value.isJsonPrimitive()) {
+        return value.getAsString();
+      }
+    }
+    return "";
+  }
+
+  public String getHar() {
+    return har;
+  }
+
+  public String getSeverity() {
+    return severity;
+  }
+
+  public Severity getSeverityLevel() {
+    return Severity.fromLevel(severity);
+  }
+
+  public String getModule() {
+    return module;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public String getParameter() {
+    return parameter;
+  }
+
+  /**
+   * Whether the finding is in the baseline of accepted findings, in which case it does not fail the build.
+   */
+  public boolean isSuppressed() {
+    return suppressed;
+  }
+
+  void setSuppressed(boolean suppressed) {
+    this.suppressed = suppressed;
+  }
+}
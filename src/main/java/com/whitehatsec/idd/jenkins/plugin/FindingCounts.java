@@ -0,0 +1,112 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Number of findings per {@link Severity} and per attack module. Findings suppressed by the baseline are only
+ * counted as suppressed.
+ */
+public class FindingCounts implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final int[] bySeverity = new int[Severity.values().length];
+  private int[] suppressedBySeverity = new int[Severity.values().length];
+  private final Map<String, Integer> byModule = new TreeMap<>();
+  private int unknownSeverity;
+  private int suppressed;
+
+  public void add(Finding finding) {
+    Severity severity = finding.getSeverityLevel();
+    if (finding.isSuppressed()) {
+      suppressed++;
+      if (severity != null) {
+        suppressedBySeverity[severity.ordinal()]++;
+      }
+      return;
+    }
+    if (severity == null) {
+      unknownSeverity++;
+    } else {
+      bySeverity[severity.ordinal()]++;
+    }
+    byModule.merge(finding.getModule().isEmpty() ? "unknown" : finding.getModule(), 1, Integer::sum);
+  }
+
+  public void add(FindingCounts other) {
+    for (int i = 0; i < bySeverity.length; i++) {
+      bySeverity[i] += other.bySeverity[i];
+      suppressedBySeverity[i] += other.suppressedBySeverity[i];
+    }
+    for (Map.Entry<String, Integer> entry : other.byModule.entrySet()) {
+      byModule.merge(entry.getKey(), entry.getValue(), Integer::sum);
+    }
+    unknownSeverity += other.unknownSeverity;
+    suppressed += other.suppressed;
+  }
+
+  public int getCount(Severity severity) {
+    return bySeverity[severity.ordinal()];
+  }
+
+  public int getCountAtLeast(Severity threshold) {
+    int count = 0;
+    for (Severity severity : Severity.values()) {
+      if (severity.isAtLeast(threshold)) {
+        count += getCount(severity);
+      }
+    }
+    return count;
+  }
+
+  public int getTotal() {
+    int total = unknownSeverity;
+    for (int count : bySeverity) {
+      total += count;
+    }
+    return total;
+  }
+
+  public int getSuppressed() {
+    return suppressed;
+  }
+
+  /**
+   * Number of suppressed findings of at least the severity, which the scanner still counts for its exit code.
+   */
+  public int getSuppressedAtLeast(Severity threshold) {
+    int count = 0;
+    for (Severity severity : Severity.values()) {
+      if (severity.isAtLeast(threshold)) {
+        count += suppressedBySeverity[severity.ordinal()];
+      }
+    }
+    return count;
+  }
+
+  public Map<String, Integer> getByModule() {
+    return Collections.unmodifiableMap(byModule);
+  }
+
+  private Object readResolve() {
+    if (suppressedBySeverity == null) {
+      // counted before suppressed findings were counted by severity
+      suppressedBySeverity = new int[Severity.values().length];
+    }
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (Severity severity : Severity.values()) {
+      sb.append(sb.length() == 0 ? "" : ", ").append(severity.level).append(": ").append(getCount(severity));
+    }
+    if (suppressed > 0) {
+      sb.append(", suppressed by baseline: ").append(suppressed);
+    }
+    return sb.toString();
+  }
+}
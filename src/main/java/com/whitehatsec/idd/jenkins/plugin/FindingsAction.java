@@ -0,0 +1,269 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.gson.Gson;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import hudson.FilePath;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+
+/**
+ * Findings of a build, counted per {@link Severity}, HAR file and attack module.
+ * The findings themselves are kept one JSON object per line in the build directory and read a page at a time.
+ */
+public class FindingsAction implements RunAction2 {
+  public static final int PAGE_SIZE = 50;
+  static final String FINDINGS_FILE = "idd-findings.jsonl";
+
+  private final Map<String, FindingCounts> harCounts = new TreeMap<>();
+  private transient Run<?, ?> run;
+
+  public static synchronized FindingsAction getOrCreate(Run<?, ?> run) {
+    FindingsAction action = run.getAction(FindingsAction.class);
+    if (action == null) {
+      action = new FindingsAction();
+      run.addAction(action);
+    }
+    return action;
+  }
+
+  @Override
+  public String getIconFileName() {
+    return "clipboard.png";
+  }
+
+  @Override
+  public String getDisplayName() {
+    return Messages.FindingsAction_DisplayName();
+  }
+
+  @Override
+  public String getUrlName() {
+    return "idd-findings";
+  }
+
+  @Override
+  public void onAttached(Run<?, ?> r) {
+    this.run = r;
+  }
+
+  @Override
+  public void onLoad(Run<?, ?> r) {
+    this.run = r;
+  }
+
+  public Run<?, ?> getRun() {
+    return run;
+  }
+
+  public synchronized void add(String harName, FindingCounts counts) {
+    harCounts.computeIfAbsent(harName, name -> new FindingCounts()).add(counts);
+  }
+
+  public synchronized Map<String, FindingCounts> getHarCounts() {
+    return Collections.unmodifiableMap(new TreeMap<>(harCounts));
+  }
+
+  public synchronized FindingCounts getTotal() {
+    FindingCounts total = new FindingCounts();
+    for (FindingCounts counts : harCounts.values()) {
+      total.add(counts);
+    }
+    return total;
+  }
+
+  public List<Severity> getSeverities() {
+    return Arrays.asList(Severity.values());
+  }
+
+  File getFindingsFile() {
+    return new File(run.getRootDir(), FINDINGS_FILE);
+  }
+
+  /**
+   * Appends the normalized findings written by {@link ParseFindings} on the agent.
+   */
+  public synchronized void appendFindings(FilePath normalizedFindings) throws IOException, InterruptedException {
+    if (!normalizedFindings.exists()) {
+      return;
+    }
+    try (OutputStream out = new FileOutputStream(getFindingsFile(), true)) {
+      normalizedFindings.copyTo(out);
+    }
+  }
+
+  /**
+   * Appends the findings of the given HAR files recorded by an earlier build.
+   */
+  public void copyFindings(Run<?, ?> from, Set<String> harNames) throws IOException {
+    copyFindings(from, harNames, null);
+  }
+
+  /**
+   * Appends the findings of the given HAR files recorded by an earlier build, with {@code baseline} applied again
+   * when it is not {@code null}. Returns the counts of the copied findings per HAR file.
+   */
+  synchronized Map<String, FindingCounts> copyFindings(Run<?, ?> from, Set<String> harNames, Baseline baseline) throws IOException {
+    Map<String, FindingCounts> counts = new TreeMap<>();
+    // read the file directly, an aborted build may not have saved the action
+    File previous = from == null ? null : new File(from.getRootDir(), FINDINGS_FILE);
+    if (previous == null || harNames.isEmpty() || !previous.isFile()) {
+      return counts;
+    }
+    Gson gson = new Gson();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(previous), StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(getFindingsFile(), true), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        Finding finding = gson.fromJson(line, Finding.class);
+        if (!harNames.contains(finding.getHar())) {
+          continue;
+        }
+        if (baseline != null) {
+          // the baseline may have changed since the earlier build
+          baseline.apply(finding);
+          line = gson.toJson(finding);
+        }
+        counts.computeIfAbsent(finding.getHar(), har -> new FindingCounts()).add(finding);
+        writer.write(line);
+        writer.write('\n');
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Appends findings taken from the result cache.
+   */
+  public synchronized void appendFindings(List<Finding> findings) throws IOException {
+    if (findings.isEmpty()) {
+      return;
+    }
+    Gson gson = new Gson();
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(getFindingsFile(), true), StandardCharsets.UTF_8))) {
+      for (Finding finding : findings) {
+        writer.write(gson.toJson(finding));
+        writer.write('\n');
+      }
+    }
+  }
+
+  /**
+   * Findings of the given HAR files recorded so far, per HAR file.
+   */
+  public synchronized Map<String, List<Finding>> readFindings(Set<String> harNames) throws IOException {
+    Map<String, List<Finding>> findings = new TreeMap<>();
+    File file = getFindingsFile();
+    if (harNames.isEmpty() || !file.isFile()) {
+      return findings;
+    }
+    Gson gson = new Gson();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        Finding finding = gson.fromJson(line, Finding.class);
+        if (harNames.contains(finding.getHar())) {
+          findings.computeIfAbsent(finding.getHar(), har -> new ArrayList<>()).add(finding);
+        }
+      }
+    }
+    return findings;
+  }
+
+  /**
+   * Every finding of the build, for the {@link FindingsIndex}.
+   */
+  synchronized List<Finding> readAllFindings() throws IOException {
+    List<Finding> findings = new ArrayList<>();
+    File file = getFindingsFile();
+    if (!file.isFile()) {
+      return findings;
+    }
+    Gson gson = new Gson();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isEmpty()) {
+          findings.add(gson.fromJson(line, Finding.class));
+        }
+      }
+    }
+    return findings;
+  }
+
+  /**
+   * New, fixed and recurring findings since the previous indexed build of the job, or {@code null} when this build
+   * is not indexed.
+   */
+  public FindingsIndex.Diff getDiff() throws IOException {
+    if (run == null || !FindingsIndex.exists(run.getParent())) {
+      return null;
+    }
+    return FindingsIndex.of(run.getParent()).getDiff(run.getNumber());
+  }
+
+  /**
+   * Whether the finding was first seen by this build, according to the {@link FindingsIndex}.
+   */
+  public boolean isNew(Finding finding) throws IOException {
+    return run != null && FindingsIndex.exists(run.getParent()) && FindingsIndex.of(run.getParent()).isNew(finding, run.getNumber());
+  }
+
+  public int getPageCount() {
+    FindingCounts total = getTotal();
+    return Math.max(1, (total.getTotal() + total.getSuppressed() + PAGE_SIZE - 1) / PAGE_SIZE);
+  }
+
+  public int parsePage(String page) {
+    return Math.min(Math.max(1, NumberUtils.toInt(page, 1)), getPageCount());
+  }
+
+  /**
+   * Findings on the given 1-based page, read without loading the whole findings file.
+   */
+  public List<Finding> getFindings(int page) throws IOException {
+    List<Finding> findings = new ArrayList<>();
+    File file = getFindingsFile();
+    if (!file.isFile()) {
+      return findings;
+    }
+    Gson gson = new Gson();
+    long skip = (long) (page - 1) * PAGE_SIZE;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null && findings.size() < PAGE_SIZE) {
+        if (line.isEmpty() || skip-- > 0) {
+          continue;
+        }
+        findings.add(gson.fromJson(line, Finding.class));
+      }
+    }
+    return findings;
+  }
+}
@@ -0,0 +1,471 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.ref.SoftReference;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import hudson.model.Job;
+
+/**
+ * Findings history of a job, kept in the job directory so that trends and build-to-build diffs do not read the
+ * findings of old builds. Findings are identified by a fingerprint of their HAR file, normalized URL, parameter,
+ * attack module and severity. The index file holds one line per fingerprint with the builds it was first and last
+ * seen in, and one line per build with its severity counts and its diff to the build indexed before it, so it grows
+ * with the distinct findings and the builds, not with their product.
+ * <p>
+ * A finding is taken to be present in every build between its first and last sighting. Diffs are exact when they are
+ * recorded; the diff of the build after a deleted one is computed again from these ranges, see {@link #compact(int)}.
+ */
+public class FindingsIndex {
+  static final String INDEX_FILE = "idd-findings-index.jsonl";
+
+  private static final Gson GSON = new Gson();
+  /** Loaded indexes by job directory, released under memory pressure. */
+  private static final Map<String, SoftReference<FindingsIndex>> INDEXES = new HashMap<>();
+  /** Locks of the index files, so that instances loaded again after their soft reference was cleared write in turn. */
+  private static final ConcurrentMap<String, Object> FILE_LOCKS = new ConcurrentHashMap<>();
+
+  /** A finding as tracked across builds. */
+  public static class Fingerprint {
+    private final String fingerprint;
+    private final Finding finding;
+    private final int firstSeen;
+    private int lastSeen;
+
+    Fingerprint(String fingerprint, Finding finding, int firstSeen) {
+      this.fingerprint = fingerprint;
+      this.finding = finding;
+      this.firstSeen = firstSeen;
+      this.lastSeen = firstSeen;
+    }
+
+    boolean seenIn(int build) {
+      return firstSeen <= build && build <= lastSeen;
+    }
+
+    public String getFingerprint() {
+      return fingerprint;
+    }
+
+    public Finding getFinding() {
+      return finding;
+    }
+
+    public int getFirstSeen() {
+      return firstSeen;
+    }
+
+    public int getLastSeen() {
+      return lastSeen;
+    }
+  }
+
+  /** Findings of one build compared with the build indexed before it. */
+  public static class Diff {
+    private final int previousBuild;
+    private final int newCount;
+    private final int fixedCount;
+    private final int recurringCount;
+
+    Diff(int previousBuild, int newCount, int fixedCount, int recurringCount) {
+      this.previousBuild = previousBuild;
+      this.newCount = newCount;
+      this.fixedCount = fixedCount;
+      this.recurringCount = recurringCount;
+    }
+
+    /**
+     * Number of the build compared with, or 0 for the first indexed build.
+     */
+    public int getPreviousBuild() {
+      return previousBuild;
+    }
+
+    public int getNewCount() {
+      return newCount;
+    }
+
+    public int getFixedCount() {
+      return fixedCount;
+    }
+
+    public int getRecurringCount() {
+      return recurringCount;
+    }
+  }
+
+  /** One line of the index file, either a fingerprint or a build. */
+  private static class Line {
+    private Fingerprint fingerprint;
+    private Integer build;
+    private Map<Severity, Integer> counts;
+    private Diff diff;
+    /** Fingerprints found by the build, only in index files of earlier versions. */
+    private List<String> seen;
+  }
+
+  private static class BuildEntry {
+    final Map<Severity, Integer> counts;
+    Diff diff;
+
+    BuildEntry(Map<Severity, Integer> counts, Diff diff) {
+      this.counts = counts;
+      this.diff = diff;
+    }
+  }
+
+  private final File file;
+  private final Map<String, Fingerprint> fingerprints = new LinkedHashMap<>();
+  private final NavigableMap<Integer, BuildEntry> builds = new TreeMap<>();
+
+  FindingsIndex(File file) {
+    this.file = file;
+  }
+
+  public static FindingsIndex of(Job<?, ?> job) throws IOException {
+    File file = new File(job.getRootDir(), INDEX_FILE);
+    synchronized (INDEXES) {
+      SoftReference<FindingsIndex> ref = INDEXES.get(file.getPath());
+      FindingsIndex index = ref == null ? null : ref.get();
+      if (index == null) {
+        index = load(file);
+        INDEXES.put(file.getPath(), new SoftReference<>(index));
+      }
+      return index;
+    }
+  }
+
+  /**
+   * Whether the job has an index, without loading it.
+   */
+  static boolean exists(Job<?, ?> job) {
+    return new File(job.getRootDir(), INDEX_FILE).isFile();
+  }
+
+  static FindingsIndex load(File file) throws IOException {
+    FindingsIndex index = new FindingsIndex(file);
+    index.read();
+    return index;
+  }
+
+  private static Object lock(File file) {
+    return FILE_LOCKS.computeIfAbsent(file.getAbsolutePath(), path -> new Object());
+  }
+
+  /**
+   * Reads the index file as it is now, which another instance may have written since this one was loaded.
+   */
+  private synchronized void read() throws IOException {
+    fingerprints.clear();
+    builds.clear();
+    if (!file.isFile()) {
+      return;
+    }
+    Map<Integer, List<String>> legacySeen = new TreeMap<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        Line parsed;
+        try {
+          parsed = GSON.fromJson(line, Line.class);
+        } catch (JsonParseException e) {
+          // a line cut short by a crash, the build is indexed again by its next scan
+          continue;
+        }
+        if (parsed.fingerprint != null) {
+          fingerprints.putIfAbsent(parsed.fingerprint.fingerprint, parsed.fingerprint);
+        } else if (parsed.build != null) {
+          builds.put(parsed.build, new BuildEntry(countsOf(parsed.counts), parsed.diff));
+          if (parsed.seen != null) {
+            legacySeen.put(parsed.build, parsed.seen);
+          }
+        }
+      }
+    }
+    if (!legacySeen.isEmpty()) {
+      migrate(legacySeen);
+    }
+  }
+
+  /**
+   * Last sightings and diffs of an index file that listed the fingerprints of every build.
+   */
+  private void migrate(Map<Integer, List<String>> legacySeen) {
+    Set<String> before = Collections.emptySet();
+    int previous = 0;
+    for (Map.Entry<Integer, List<String>> build : legacySeen.entrySet()) {
+      Set<String> seen = new LinkedHashSet<>(build.getValue());
+      int recurring = 0;
+      for (String key : seen) {
+        Fingerprint fingerprint = fingerprints.get(key);
+        if (fingerprint != null) {
+          fingerprint.lastSeen = Math.max(fingerprint.lastSeen, build.getKey());
+        }
+        if (before.contains(key)) {
+          recurring++;
+        }
+      }
+      BuildEntry entry = builds.get(build.getKey());
+      if (entry != null && entry.diff == null) {
+        entry.diff = new Diff(previous, seen.size() - recurring, before.size() - recurring, recurring);
+      }
+      before = seen;
+      previous = build.getKey();
+    }
+  }
+
+  private static Map<Severity, Integer> countsOf(Map<Severity, Integer> counts) {
+    Map<Severity, Integer> copy = new EnumMap<>(Severity.class);
+    if (counts != null) {
+      for (Map.Entry<Severity, Integer> count : counts.entrySet()) {
+        if (count.getKey() != null && count.getValue() != null) {
+          copy.put(count.getKey(), count.getValue());
+        }
+      }
+    }
+    return copy;
+  }
+
+  /**
+   * Fingerprint of a finding, stable across builds as long as the request path, parameter, module and severity are.
+   */
+  static String fingerprint(Finding finding) {
+    String identity = String.join("\n", nonNull(finding.getHar()), normalizeUrl(finding.getUrl()), nonNull(finding.getParameter()),
+        nonNull(finding.getModule()), severityOf(finding));
+    return Digests.sha256(identity.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * URL without query and fragment, with a lower-case host and IDs in the path replaced by a placeholder.
+   */
+  static String normalizeUrl(String url) {
+    if (url == null) {
+      return "";
+    }
+    try {
+      URI uri = new URI(url);
+      if (uri.getHost() == null) {
+        return HarEntries.pathTemplate(uri.getPath());
+      }
+      return uri.getScheme().toLowerCase(Locale.ENGLISH) + "://" + HarEntries.host(uri).toLowerCase(Locale.ENGLISH)
+          + HarEntries.pathTemplate(uri.getPath());
+    } catch (Exception e) {
+      return url;
+    }
+  }
+
+  private static String severityOf(Finding finding) {
+    Severity severity = finding.getSeverityLevel();
+    return severity != null ? severity.level : nonNull(finding.getSeverity());
+  }
+
+  private static String nonNull(String value) {
+    return value == null ? "" : value;
+  }
+
+  /**
+   * Adds the findings of a build and its diff to the build indexed before it, and writes the index file. Findings
+   * suppressed by the baseline are tracked by fingerprint but left out of the severity counts.
+   */
+  public void record(int build, Collection<Finding> findings) throws IOException {
+    synchronized (lock(file)) {
+      synchronized (this) {
+        read();
+        Map<Severity, Integer> counts = new EnumMap<>(Severity.class);
+        Map<String, Finding> seen = new LinkedHashMap<>();
+        for (Finding finding : findings) {
+          if (!finding.isSuppressed() && finding.getSeverityLevel() != null) {
+            counts.merge(finding.getSeverityLevel(), 1, Integer::sum);
+          }
+          seen.putIfAbsent(fingerprint(finding), finding);
+        }
+        Integer previous = builds.lowerKey(build);
+        int recurring = 0;
+        int before = 0;
+        if (previous != null) {
+          for (Fingerprint fingerprint : fingerprints.values()) {
+            if (fingerprint.seenIn(previous)) {
+              before++;
+              if (seen.containsKey(fingerprint.fingerprint)) {
+                recurring++;
+              }
+            }
+          }
+        }
+        for (Map.Entry<String, Finding> finding : seen.entrySet()) {
+          Fingerprint fingerprint = fingerprints.get(finding.getKey());
+          if (fingerprint == null) {
+            fingerprints.put(finding.getKey(), new Fingerprint(finding.getKey(), finding.getValue(), build));
+          } else if (build > fingerprint.lastSeen) {
+            fingerprint.lastSeen = build;
+          }
+        }
+        builds.put(build, new BuildEntry(counts,
+            new Diff(previous == null ? 0 : previous, seen.size() - recurring, before - recurring, recurring)));
+        write();
+      }
+    }
+  }
+
+  /**
+   * Drops a deleted build from the index, along with the fingerprints no remaining build found, and computes the diff
+   * of the next build again, now to the build before the deleted one.
+   */
+  public void compact(int build) throws IOException {
+    synchronized (lock(file)) {
+      synchronized (this) {
+        read();
+        if (builds.remove(build) == null) {
+          return;
+        }
+        Integer previous = builds.lowerKey(build);
+        Integer next = builds.higherKey(build);
+        fingerprints.values().removeIf(f -> {
+          if (f.lastSeen == build) {
+            f.lastSeen = previous == null ? 0 : previous;
+          }
+          // first sightings stay, a finding is not new again after the build it was found in is deleted
+          return f.lastSeen < f.firstSeen || builds.subMap(f.firstSeen, true, f.lastSeen, true).isEmpty();
+        });
+        if (next != null) {
+          builds.get(next).diff = diff(next, previous);
+        }
+        write();
+      }
+    }
+  }
+
+  /**
+   * Diff of {@code build} to {@code previous} from the first and last sightings of the findings.
+   */
+  private Diff diff(int build, Integer previous) {
+    int count = 0;
+    int before = 0;
+    int recurring = 0;
+    for (Fingerprint fingerprint : fingerprints.values()) {
+      boolean inBuild = fingerprint.seenIn(build);
+      boolean inPrevious = previous != null && fingerprint.seenIn(previous);
+      count += inBuild ? 1 : 0;
+      before += inPrevious ? 1 : 0;
+      recurring += inBuild && inPrevious ? 1 : 0;
+    }
+    return new Diff(previous == null ? 0 : previous, count - recurring, before - recurring, recurring);
+  }
+
+  /**
+   * Replaces the index file, holding the lock of the file.
+   */
+  private void write() throws IOException {
+    File parent = file.getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+      throw new IOException("cannot create directory " + parent);
+    }
+    File tmp = new File(file.getPath() + ".tmp");
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+      for (Fingerprint fingerprint : fingerprints.values()) {
+        Line line = new Line();
+        line.fingerprint = fingerprint;
+        writer.write(GSON.toJson(line));
+        writer.write('\n');
+      }
+      for (Map.Entry<Integer, BuildEntry> entry : builds.entrySet()) {
+        Line line = new Line();
+        line.build = entry.getKey();
+        line.counts = entry.getValue().counts;
+        line.diff = entry.getValue().diff;
+        writer.write(GSON.toJson(line));
+        writer.write('\n');
+      }
+    }
+    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  public synchronized boolean contains(int build) {
+    return builds.containsKey(build);
+  }
+
+  /**
+   * Findings of the build per severity, or an empty map when the build is not indexed.
+   */
+  public synchronized Map<Severity, Integer> getCounts(int build) {
+    BuildEntry entry = builds.get(build);
+    return entry == null ? Collections.<Severity, Integer>emptyMap() : Collections.unmodifiableMap(entry.counts);
+  }
+
+  /**
+   * New, fixed and recurring findings of the build since the build indexed before it, or {@code null} when the
+   * build is not indexed.
+   */
+  public synchronized Diff getDiff(int build) {
+    BuildEntry entry = builds.get(build);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.diff == null) {
+      entry.diff = diff(build, builds.lowerKey(build));
+    }
+    return entry.diff;
+  }
+
+  /**
+   * Whether the finding was first seen in the given build.
+   */
+  public synchronized boolean isNew(Finding finding, int build) {
+    Fingerprint fingerprint = fingerprints.get(fingerprint(finding));
+    return fingerprint != null && fingerprint.firstSeen == build;
+  }
+
+  public synchronized Fingerprint get(String fingerprint) {
+    return fingerprints.get(fingerprint);
+  }
+
+  /**
+   * Numbers of the indexed builds, newest first, at most {@code limit} of them.
+   */
+  public synchronized List<Integer> getBuilds(int limit) {
+    List<Integer> numbers = new ArrayList<>();
+    for (Integer build : builds.descendingKeySet()) {
+      if (numbers.size() >= limit) {
+        break;
+      }
+      numbers.add(build);
+    }
+    return numbers;
+  }
+
+  synchronized int size() {
+    return fingerprints.size();
+  }
+}
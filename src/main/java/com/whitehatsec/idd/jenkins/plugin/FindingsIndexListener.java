@@ -0,0 +1,29 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+
+/**
+ * Compacts the {@link FindingsIndex} of a job when Jenkins deletes one of its builds, e.g. by the build discarder.
+ */
+@Extension
+public class FindingsIndexListener extends RunListener<Run<?, ?>> {
+  private static final Logger LOGGER = Logger.getLogger(FindingsIndexListener.class.getName());
+
+  @Override
+  public void onDeleted(Run<?, ?> run) {
+    if (!FindingsIndex.exists(run.getParent())) {
+      return;
+    }
+    try {
+      FindingsIndex.of(run.getParent()).compact(run.getNumber());
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "cannot compact the IDD findings index of " + run.getParent().getFullName(), e);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+
+/**
+ * Reads HAR files straight out of {@code .har.gz}, {@code .zip} and {@code .tar.gz} archives, one streaming pass
+ * per archive, without unpacking them to disk.
+ */
+final class HarArchives {
+  static final String HAR_GZ_EXTENSION = ".har.gz";
+  static final String ENTRY_SEPARATOR = "!/";
+
+  private HarArchives() {
+  }
+
+  interface EntryHandler {
+    /**
+     * @param entry name of the HAR file inside the archive, or {@code null} for a {@code .har.gz} file
+     * @param in the uncompressed HAR file, closed by the caller
+     */
+    void entry(String entry, InputStream in) throws IOException;
+  }
+
+  static boolean isArchive(String path) {
+    String lower = path.toLowerCase(Locale.ENGLISH);
+    return lower.endsWith(HAR_GZ_EXTENSION) || lower.endsWith(".zip") || lower.endsWith(".tar.gz") || lower.endsWith(".tgz");
+  }
+
+  /**
+   * Whether discovery picks up the file, either a plain HAR file or an archive of HAR files.
+   */
+  static boolean isHarSource(String path) {
+    return path.endsWith(HarDiscovery.HAR_EXTENSION) || isArchive(path);
+  }
+
+  /**
+   * Name of the HAR file reported in findings and metrics, {@code bundle.zip!/login.har} for archive entries.
+   */
+  static String name(String archiveName, String entry) {
+    return entry == null ? archiveName : archiveName + ENTRY_SEPARATOR + entry;
+  }
+
+  /**
+   * Passes every HAR file of the archive to {@code handler}, in archive order.
+   */
+  static void forEachHar(File archive, EntryHandler handler) throws IOException {
+    String lower = archive.getName().toLowerCase(Locale.ENGLISH);
+    if (lower.endsWith(HAR_GZ_EXTENSION)) {
+      try (InputStream in = new GZIPInputStream(new FileInputStream(archive), 64 * 1024)) {
+        handler.entry(null, in);
+      }
+    } else if (lower.endsWith(".zip")) {
+      try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(new FileInputStream(archive), 64 * 1024))) {
+        for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+          if (!entry.isDirectory() && entry.getName().endsWith(HarDiscovery.HAR_EXTENSION)) {
+            handler.entry(entry.getName(), new NonClosingInputStream(zip));
+          }
+        }
+      }
+    } else {
+      try (TarArchiveInputStream tar = new TarArchiveInputStream(new GZIPInputStream(new FileInputStream(archive), 64 * 1024))) {
+        for (TarArchiveEntry entry = tar.getNextTarEntry(); entry != null; entry = tar.getNextTarEntry()) {
+          if (entry.isFile() && entry.getName().endsWith(HarDiscovery.HAR_EXTENSION)) {
+            handler.entry(entry.getName(), new NonClosingInputStream(tar));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Opens the uncompressed content of {@code har}, which must be a HAR file or an archive entry.
+   */
+  static InputStream open(HarFile har) throws IOException {
+    File file = new File(har.getPath());
+    if (!isArchive(har.getPath())) {
+      return new FileInputStream(file);
+    }
+    String lower = file.getName().toLowerCase(Locale.ENGLISH);
+    if (lower.endsWith(HAR_GZ_EXTENSION)) {
+      return new GZIPInputStream(new FileInputStream(file), 64 * 1024);
+    }
+    // zip and tar entries can only be reached by skipping over the entries before them
+    if (lower.endsWith(".zip")) {
+      ZipInputStream zip = new ZipInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+      try {
+        for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+          if (entry.getName().equals(har.getEntry())) {
+            return zip;
+          }
+        }
+      } catch (IOException e) {
+        zip.close();
+        throw e;
+      }
+      zip.close();
+    } else {
+      TarArchiveInputStream tar = new TarArchiveInputStream(new GZIPInputStream(new FileInputStream(file), 64 * 1024));
+      try {
+        for (TarArchiveEntry entry = tar.getNextTarEntry(); entry != null; entry = tar.getNextTarEntry()) {
+          if (entry.getName().equals(har.getEntry())) {
+            return tar;
+          }
+        }
+      } catch (IOException e) {
+        tar.close();
+        throw e;
+      }
+      tar.close();
+    }
+    throw new FileNotFoundException(har.getEntry() + " not found in " + file);
+  }
+
+  /**
+   * Lets the handler close its reader without closing the archive, which holds the next entries.
+   */
+  private static class NonClosingInputStream extends FilterInputStream {
+    NonClosingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public void close() {
+      // the archive is closed by forEachHar
+    }
+  }
+}
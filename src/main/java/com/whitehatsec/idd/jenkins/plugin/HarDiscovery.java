@@ -0,0 +1,203 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import org.apache.commons.io.input.CountingInputStream;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Lists the HAR files of a HAR Source with their sizes, entry counts and digests in a single call on the agent
+ * owning the workspace. Each file is read once, the entries are counted while the digest is computed.
+ * HAR files inside {@code .har.gz}, {@code .zip} and {@code .tar.gz} archives are listed the same way,
+ * digesting their uncompressed content while streaming through the archive.
+ * <p>
+ * Discovery can be limited to named HAR files of a directory, which are looked up instead of walking the directory,
+ * and to sizes, which does not read plain HAR files at all.
+ */
+class HarDiscovery extends MasterToSlaveFileCallable<HarListing> {
+  private static final long serialVersionUID = 1L;
+
+  static final String HAR_EXTENSION = ".har";
+
+  private final Set<String> names;
+  private final boolean digest;
+
+  HarDiscovery() {
+    this(null, true);
+  }
+
+  /**
+   * @param names names of the HAR files to list in a HAR Source directory, or {@code null} for all of them
+   * @param digest whether to list digests and entry counts, or only sizes
+   */
+  HarDiscovery(Collection<String> names, boolean digest) {
+    this.names = names == null ? null : new TreeSet<>(names);
+    this.digest = digest;
+  }
+
+  @Override
+  public HarListing invoke(File harSource, VirtualChannel channel) throws IOException, InterruptedException {
+    if (!harSource.exists()) {
+      return new HarListing(false, false, Collections.singletonList(new HarFile(harSource.getPath(), harSource.getName(), 0, 0, null)));
+    }
+    if (!harSource.isDirectory()) {
+      if (HarArchives.isArchive(harSource.getPath())) {
+        List<HarFile> files = new ArrayList<>();
+        addArchive(files, harSource.toPath(), harSource.getName(), null);
+        return new HarListing(true, false, files);
+      }
+      return new HarListing(true, false, Collections.singletonList(toHarFile(harSource.toPath(), harSource.getName())));
+    }
+
+    if (names != null) {
+      return new HarListing(true, true, listNamed(harSource.toPath()));
+    }
+    List<HarFile> files = new ArrayList<>();
+    try (Stream<Path> walk = Files.walk(harSource.toPath())) {
+      for (Path path : walk.filter(p -> HarArchives.isHarSource(p.toString()) && Files.isRegularFile(p))
+          .sorted(Comparator.comparing(Path::toString)).collect(Collectors.toList())) {
+        String name = harSource.toPath().relativize(path).toString().replace(File.separatorChar, '/');
+        if (HarArchives.isArchive(path.toString())) {
+          addArchive(files, path, name, null);
+        } else {
+          files.add(toHarFile(path, name));
+        }
+      }
+    }
+    return new HarListing(true, true, files);
+  }
+
+  /**
+   * The named HAR files that exist, skipping names outside of the directory; the caller reports the missing ones.
+   */
+  private List<HarFile> listNamed(Path root) throws IOException {
+    List<HarFile> files = new ArrayList<>();
+    Map<String, Set<String>> archiveEntries = new TreeMap<>();
+    for (String name : names) {
+      int separator = name.indexOf(HarArchives.ENTRY_SEPARATOR);
+      String fileName = separator < 0 ? name : name.substring(0, separator);
+      Path path = root.resolve(fileName);
+      if (!path.normalize().startsWith(root.normalize()) || !HarArchives.isHarSource(path.toString()) || !Files.isRegularFile(path)) {
+        continue;
+      }
+      if (HarArchives.isArchive(path.toString())) {
+        archiveEntries.computeIfAbsent(fileName, n -> new HashSet<>()).add(name);
+      } else {
+        files.add(toHarFile(path, fileName));
+      }
+    }
+    for (Map.Entry<String, Set<String>> archive : archiveEntries.entrySet()) {
+      addArchive(files, root.resolve(archive.getKey()), archive.getKey(), archive.getValue());
+    }
+    return files;
+  }
+
+  private HarFile toHarFile(Path path, String name) throws IOException {
+    if (!digest) {
+      return new HarFile(path.toString(), name, Files.size(path), Files.getLastModifiedTime(path).toMillis(), null);
+    }
+    MessageDigest md = Digests.sha256();
+    long entries;
+    try (InputStream in = new DigestInputStream(new BufferedInputStream(Files.newInputStream(path)), md)) {
+      entries = countEntries(in);
+      drain(in);
+    }
+    return new HarFile(path.toString(), name, Files.size(path), Files.getLastModifiedTime(path).toMillis(),
+        Util.toHexString(md.digest()), entries);
+  }
+
+  /**
+   * Adds the HAR files of the archive, or those of them named in {@code wanted} when it is not {@code null}. Their
+   * uncompressed sizes are only known by streaming through them.
+   */
+  private void addArchive(List<HarFile> files, Path archive, String archiveName, Set<String> wanted) throws IOException {
+    long lastModified = Files.getLastModifiedTime(archive).toMillis();
+    HarArchives.forEachHar(archive.toFile(), (entry, in) -> {
+      String name = HarArchives.name(archiveName, entry);
+      if (wanted != null && !wanted.contains(name)) {
+        return;
+      }
+      CountingInputStream counting = new CountingInputStream(in);
+      if (!digest) {
+        drain(counting);
+        files.add(new HarFile(archive.toString(), entry, name, counting.getByteCount(), lastModified, null, -1));
+        return;
+      }
+      MessageDigest md = Digests.sha256();
+      long entries;
+      try (InputStream digesting = new DigestInputStream(counting, md)) {
+        entries = countEntries(digesting);
+        drain(digesting);
+      }
+      files.add(new HarFile(archive.toString(), entry, name, counting.getByteCount(), lastModified, Util.toHexString(md.digest()), entries));
+    });
+  }
+
+  private static void drain(InputStream in) throws IOException {
+    byte[] buffer = new byte[64 * 1024];
+    while (in.read(buffer) != -1) {
+      // digest the rest of the file
+    }
+  }
+
+  /**
+   * Number of entries in {@code log.entries}, or -1 when the stream is not a HAR file.
+   */
+  private static long countEntries(InputStream in) {
+    JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    try {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if (!"log".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_OBJECT) {
+          reader.skipValue();
+          continue;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+          if (!"entries".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            continue;
+          }
+          long entries = 0;
+          reader.beginArray();
+          while (reader.hasNext()) {
+            reader.skipValue();
+            entries++;
+          }
+          return entries;
+        }
+        return -1;
+      }
+    } catch (IOException|IllegalStateException e) {
+      // not a HAR file, the scanner reports it
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,102 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Accessors for the request part of a HAR entry.
+ */
+final class HarEntries {
+  private static final Pattern ID_SEGMENT =
+      Pattern.compile("\\d+|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}|[0-9a-fA-F]{16,}");
+
+  private HarEntries() {
+  }
+
+  static JsonObject request(JsonObject entry) {
+    JsonElement request = entry.get("request");
+    return request != null && request.isJsonObject() ? request.getAsJsonObject() : new JsonObject();
+  }
+
+  static String method(JsonObject entry) {
+    return string(request(entry), "method").toUpperCase(Locale.ENGLISH);
+  }
+
+  static String url(JsonObject entry) {
+    return string(request(entry), "url");
+  }
+
+  static URI uri(JsonObject entry) {
+    try {
+      return new URI(url(entry));
+    } catch (URISyntaxException e) {
+      return null;
+    }
+  }
+
+  static String host(URI uri) {
+    if (uri == null || uri.getHost() == null) {
+      return "";
+    }
+    return uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+  }
+
+  /**
+   * Path with the segments that look like identifiers, i.e. numbers, UUIDs and long hex strings, replaced by
+   * {@code {id}}, so {@code /users/42} and {@code /users/43} are the same endpoint.
+   */
+  static String pathTemplate(String path) {
+    if (path == null || path.isEmpty()) {
+      return "/";
+    }
+    String[] segments = path.split("/", -1);
+    for (int i = 0; i < segments.length; i++) {
+      if (ID_SEGMENT.matcher(segments[i]).matches()) {
+        segments[i] = "{id}";
+      }
+    }
+    return String.join("/", segments);
+  }
+
+  /**
+   * Sorted names of the query string and form parameters, without the excluded ones.
+   */
+  static TreeSet<String> parameterNames(JsonObject entry, Collection<String> excludedParameters) {
+    TreeSet<String> names = new TreeSet<>();
+    JsonObject request = request(entry);
+    addNames(names, request.get("queryString"), excludedParameters);
+    JsonElement postData = request.get("postData");
+    if (postData != null && postData.isJsonObject()) {
+      addNames(names, postData.getAsJsonObject().get("params"), excludedParameters);
+    }
+    return names;
+  }
+
+  private static void addNames(TreeSet<String> names, JsonElement params, Collection<String> excludedParameters) {
+    if (params == null || !params.isJsonArray()) {
+      return;
+    }
+    for (JsonElement param : (JsonArray) params) {
+      if (!param.isJsonObject()) {
+        continue;
+      }
+      String name = string(param.getAsJsonObject(), "name");
+      if (!name.isEmpty() && (excludedParameters == null || !excludedParameters.contains(name))) {
+        names.add(name);
+      }
+    }
+  }
+
+  private static String string(JsonObject object, String member) {
+    JsonElement value = object.get(member);
+    return value != null && value.isJsonPrimitive() ? value.getAsString() : "";
+  }
+}
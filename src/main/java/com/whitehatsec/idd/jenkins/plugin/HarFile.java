@@ -0,0 +1,122 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.Serializable;
+
+public class HarFile implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final String path;
+  private final String entry;
+  private final String name;
+  private final long size;
+  private final long lastModified;
+  private final String digest;
+  private final long entries;
+  private final int shard;
+  private final int shardCount;
+
+  public HarFile(String path, String name, long size, long lastModified, String digest) {
+    this(path, name, size, lastModified, digest, -1);
+  }
+
+  public HarFile(String path, String name, long size, long lastModified, String digest, long entries) {
+    this(path, null, name, size, lastModified, digest, entries);
+  }
+
+  /**
+   * HAR file {@code entry} of the archive at {@code path}, see {@link HarArchives}.
+   */
+  public HarFile(String path, String entry, String name, long size, long lastModified, String digest, long entries) {
+    this(path, entry, name, size, lastModified, digest, entries, 0, 0);
+  }
+
+  private HarFile(String path, String entry, String name, long size, long lastModified, String digest, long entries, int shard,
+      int shardCount) {
+    this.path = path;
+    this.entry = entry;
+    this.name = name;
+    this.size = size;
+    this.lastModified = lastModified;
+    this.digest = digest;
+    this.entries = entries;
+    this.shard = shard;
+    this.shardCount = shardCount;
+  }
+
+  /**
+   * Same HAR file, scanned from another location such as a filtered copy.
+   */
+  public HarFile withPath(String newPath) {
+    return new HarFile(newPath, null, name, size, lastModified, digest, entries, shard, shardCount);
+  }
+
+  /**
+   * Shard {@code shard} (1-based) of {@code shardCount} of this HAR file, reported under the same name.
+   */
+  public HarFile withShard(String shardPath, long shardSize, int shard, int shardCount) {
+    return new HarFile(shardPath, null, name, shardSize, lastModified, digest, entries, shard, shardCount);
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Name of the HAR file inside the archive at {@link #getPath()}, or {@code null} for a HAR file or {@code .har.gz} file.
+   */
+  public String getEntry() {
+    return entry;
+  }
+
+  /**
+   * Whether the HAR file has to be read through {@link HarArchives} and staged before the scanner can read it.
+   */
+  public boolean isCompressed() {
+    return HarArchives.isArchive(path);
+  }
+
+  /**
+   * Path relative to the HAR Source, which stays stable when the workspace moves.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Uncompressed size in bytes.
+   */
+  public long getSize() {
+    return size;
+  }
+
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  public String getDigest() {
+    return digest;
+  }
+
+  /**
+   * Number of entries of the original HAR file, or -1 when it could not be parsed.
+   */
+  public long getEntries() {
+    return entries;
+  }
+
+  public boolean isShard() {
+    return shardCount > 0;
+  }
+
+  public int getShard() {
+    return shard;
+  }
+
+  public int getShardCount() {
+    return shardCount;
+  }
+
+  public String getDisplayName() {
+    return isShard() ? name + " [shard " + shard + "/" + shardCount + "]" : name;
+  }
+}
@@ -0,0 +1,144 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Drops HAR entries the scanner would discard anyway, i.e. excluded URLs and file extensions and hosts
+ * outside {@code allowedHosts}, and collapses requests with the same method, URL and parameter names.
+ * Requests are only collapsed within a HAR file, so the filtered copy of a HAR file only depends on its own content.
+ * With a result cache, entries whose result is cached are dropped as well.
+ */
+class HarFilter {
+  private final List<String> excludedUrls;
+  private final Set<String> excludedFileExtensions = new HashSet<>();
+  private final Set<String> excludedParameters;
+  private final Set<String> allowedHosts;
+  private final Gson gson = new Gson();
+  private ResultCacheKeys cacheKeys;
+  private Set<String> cachedKeys = Collections.emptySet();
+
+  HarFilter(Configuration config) {
+    this.excludedUrls = config.getExcludedUrls() == null ? Collections.<String>emptyList() : new ArrayList<>(config.getExcludedUrls());
+    if (config.getExcludedFileExtensions() != null) {
+      for (String extension : config.getExcludedFileExtensions()) {
+        excludedFileExtensions.add("." + extension.toLowerCase(Locale.ENGLISH));
+      }
+    }
+    this.excludedParameters = config.getExcludedParameters() == null ? Collections.<String>emptySet() : new HashSet<>(config.getExcludedParameters());
+    this.allowedHosts = config.getAllowedHosts() == null ? Collections.<String>emptySet() : new HashSet<>(config.getAllowedHosts());
+  }
+
+  /**
+   * Also drops the entries whose result cache key is one of {@code cachedKeys}, and records the keys of the others.
+   */
+  HarFilter withResultCache(ResultCacheKeys keys, Set<String> cached) {
+    this.cacheKeys = keys;
+    this.cachedKeys = cached;
+    return this;
+  }
+
+  FilterStats filter(String harName, File in, File out) throws IOException {
+    return filter(harName, new FileInputStream(in), out);
+  }
+
+  /**
+   * Same as {@link #filter(String, File, File)} for a HAR file read from {@code in}, which is closed.
+   */
+  FilterStats filter(String harName, InputStream in, File out) throws IOException {
+    FilterStats stats = new FilterStats(harName, out.getPath());
+    Set<String> seen = new HashSet<>();
+    try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8)))) {
+      writer.beginObject().name("log").beginObject();
+      HarStream.read(reader, new HarStream.Handler() {
+        @Override
+        public void logField(String name, JsonElement value) throws IOException {
+          writer.name(name);
+          gson.toJson(value, writer);
+        }
+
+        @Override
+        public void startEntries() throws IOException {
+          writer.name("entries").beginArray();
+        }
+
+        @Override
+        public void entry(JsonObject entry) throws IOException {
+          if (isExcluded(entry)) {
+            stats.excluded();
+          } else if (!seen.add(signature(entry))) {
+            stats.duplicate();
+          } else if (cacheKeys != null) {
+            String key = cacheKeys.key(entry);
+            if (cachedKeys.contains(key)) {
+              stats.cached(key);
+            } else {
+              stats.kept(key, cacheKeys.endpoint(entry));
+              gson.toJson(entry, writer);
+            }
+          } else {
+            stats.kept();
+            gson.toJson(entry, writer);
+          }
+        }
+
+        @Override
+        public void endEntries() throws IOException {
+          writer.endArray();
+        }
+      });
+      writer.endObject().endObject();
+    }
+    return stats;
+  }
+
+  boolean isExcluded(JsonObject entry) {
+    String url = HarEntries.url(entry);
+    for (String excludedUrl : excludedUrls) {
+      if (!excludedUrl.isEmpty() && url.contains(excludedUrl)) {
+        return true;
+      }
+    }
+
+    URI uri = HarEntries.uri(entry);
+    String path = uri == null || uri.getPath() == null ? url : uri.getPath();
+    String lowerPath = path.toLowerCase(Locale.ENGLISH);
+    int dot = lowerPath.lastIndexOf('.');
+    if (dot >= 0 && lowerPath.indexOf('/', dot) < 0 && excludedFileExtensions.contains(lowerPath.substring(dot))) {
+      return true;
+    }
+
+    if (!allowedHosts.isEmpty() && uri != null) {
+      return !allowedHosts.contains(HarEntries.host(uri)) && !allowedHosts.contains(uri.getHost());
+    }
+    return false;
+  }
+
+  String signature(JsonObject entry) {
+    URI uri = HarEntries.uri(entry);
+    String base = uri == null ? HarEntries.url(entry) : uri.getScheme() + "://" + HarEntries.host(uri) + uri.getPath();
+    return HarEntries.method(entry) + " " + base + " " + HarEntries.parameterNames(entry, excludedParameters);
+  }
+}
@@ -0,0 +1,38 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.Serializable;
+import java.util.List;
+
+public class HarListing implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final boolean exists;
+  private final boolean directory;
+  private final List<HarFile> files;
+
+  public HarListing(boolean exists, boolean directory, List<HarFile> files) {
+    this.exists = exists;
+    this.directory = directory;
+    this.files = files;
+  }
+
+  public boolean exists() {
+    return exists;
+  }
+
+  public boolean isDirectory() {
+    return directory;
+  }
+
+  public List<HarFile> getFiles() {
+    return files;
+  }
+
+  public long getTotalSize() {
+    long total = 0;
+    for (HarFile file : files) {
+      total += file.getSize();
+    }
+    return total;
+  }
+}
@@ -0,0 +1,77 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+/**
+ * Timing and throughput of the scan of one HAR file.
+ */
+public class HarMetrics {
+  private final String har;
+  private final long wallMillis;
+  private final long cpuMillis;
+  private final long size;
+  private final long entries;
+  private final boolean batch;
+  private final int exitCode;
+
+  public HarMetrics(String har, long wallMillis, long cpuMillis, long size, long entries, boolean batch, int exitCode) {
+    this.har = har;
+    this.wallMillis = wallMillis;
+    this.cpuMillis = cpuMillis;
+    this.size = size;
+    this.entries = entries;
+    this.batch = batch;
+    this.exitCode = exitCode;
+  }
+
+  static HarMetrics of(ScanResult result) {
+    HarFile har = result.getHar();
+    return new HarMetrics(har.getName(), result.getDurationMillis(), result.getCpuMillis(), har.getSize(), har.getEntries(),
+        result.isBatch(), result.getExitCode());
+  }
+
+  public String getHar() {
+    return har;
+  }
+
+  public long getWallMillis() {
+    return wallMillis;
+  }
+
+  /**
+   * CPU time of the scanner, or -1 when the agent cannot report it.
+   */
+  public long getCpuMillis() {
+    return cpuMillis;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Entries of the HAR file, or -1 when it could not be parsed.
+   */
+  public long getEntries() {
+    return entries;
+  }
+
+  /**
+   * Whether wall and CPU time are the share of a batch invocation by file size.
+   */
+  public boolean isBatch() {
+    return batch;
+  }
+
+  public int getExitCode() {
+    return exitCode;
+  }
+
+  /**
+   * Recorded requests replayed per second of wall time, or -1 when unknown.
+   */
+  public double getRequestsPerSecond() {
+    if (entries < 0 || wallMillis <= 0) {
+      return -1;
+    }
+    return entries * 1000.0 / wallMillis;
+  }
+}
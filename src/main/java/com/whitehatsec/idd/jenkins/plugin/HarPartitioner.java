@@ -0,0 +1,68 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Splits HAR files into shards of about the same expected scan time, using longest processing time first:
+ * the HAR files are handed out by decreasing expected time, each to the shard with the least time so far.
+ * <p>
+ * The expected time of a HAR file is its duration in an earlier build. HAR files without one are estimated from
+ * their size at the average time per byte of the HAR files that have one, or by size alone when none has.
+ */
+final class HarPartitioner {
+  private HarPartitioner() {
+  }
+
+  static final class Shard {
+    final List<HarFile> hars = new ArrayList<>();
+    long expectedMillis;
+  }
+
+  static List<Shard> partition(List<HarFile> hars, Map<String, Long> durations, int shardCount) {
+    long knownMillis = 0;
+    long knownBytes = 0;
+    for (HarFile har : hars) {
+      Long duration = durations.get(har.getName());
+      if (duration != null && duration > 0) {
+        knownMillis += duration;
+        knownBytes += har.getSize();
+      }
+    }
+    double millisPerByte = knownBytes > 0 ? (double) knownMillis / knownBytes : 0;
+
+    List<HarFile> sorted = new ArrayList<>(hars);
+    sorted.sort(Comparator.comparingLong((HarFile har) -> expectedMillis(har, durations, millisPerByte)).reversed()
+        .thenComparing(HarFile::getName));
+
+    PriorityQueue<Shard> queue = new PriorityQueue<>(Comparator.comparingLong((Shard s) -> s.expectedMillis)
+        .thenComparingInt(s -> s.hars.size()));
+    List<Shard> shards = new ArrayList<>();
+    for (int i = 0; i < Math.max(1, Math.min(shardCount, hars.size())); i++) {
+      Shard shard = new Shard();
+      shards.add(shard);
+      queue.add(shard);
+    }
+    for (HarFile har : sorted) {
+      Shard shard = queue.poll();
+      shard.hars.add(har);
+      shard.expectedMillis += expectedMillis(har, durations, millisPerByte);
+      queue.add(shard);
+    }
+    return shards;
+  }
+
+  /**
+   * Expected scan time, in milliseconds when known or estimated from an earlier build, otherwise in bytes.
+   */
+  static long expectedMillis(HarFile har, Map<String, Long> durations, double millisPerByte) {
+    Long duration = durations.get(har.getName());
+    if (duration != null && duration > 0) {
+      return duration;
+    }
+    return millisPerByte > 0 ? Math.round(har.getSize() * millisPerByte) : har.getSize();
+  }
+}
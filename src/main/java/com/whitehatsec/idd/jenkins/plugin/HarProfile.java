@@ -0,0 +1,182 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * What a scan of a HAR file has to work through, by host: the entries, the distinct endpoints, i.e. method, scheme
+ * and path template, and the bytes of the request bodies. Hosts are kept as recorded, so the profile of a HAR file
+ * only depends on its content and is cached by its digest; {@link #inScope} applies host mapping and allowed hosts.
+ */
+class HarProfile implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  static class Host implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int entries;
+    private int endpoints;
+    private long payloadBytes;
+
+    int getEntries() {
+      return entries;
+    }
+
+    int getEndpoints() {
+      return endpoints;
+    }
+
+    long getPayloadBytes() {
+      return payloadBytes;
+    }
+  }
+
+  /**
+   * Totals of the hosts in scope.
+   */
+  static class Scope {
+    private int hosts;
+    private int entries;
+    private int endpoints;
+    private long payloadBytes;
+
+    int getHosts() {
+      return hosts;
+    }
+
+    int getEntries() {
+      return entries;
+    }
+
+    int getEndpoints() {
+      return endpoints;
+    }
+
+    long getPayloadBytes() {
+      return payloadBytes;
+    }
+  }
+
+  private final String digest;
+  private int entries;
+  private long payloadBytes;
+  private final Map<String, Host> hosts = new TreeMap<>();
+  long lastUsed;
+
+  HarProfile(String digest) {
+    this.digest = digest;
+  }
+
+  /**
+   * Profiles the HAR file read from {@code in}, which is closed, holding one entry in memory at a time.
+   */
+  static HarProfile read(String digest, InputStream in) throws IOException {
+    HarProfile profile = new HarProfile(digest);
+    Map<String, Set<String>> endpoints = new HashMap<>();
+    try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))) {
+      HarStream.read(reader, new HarStream.Handler() {
+        @Override
+        public void logField(String name, JsonElement value) {
+        }
+
+        @Override
+        public void startEntries() {
+        }
+
+        @Override
+        public void entry(JsonObject entry) {
+          URI uri = HarEntries.uri(entry);
+          String hostName = HarEntries.host(uri);
+          Host host = profile.hosts.computeIfAbsent(hostName, h -> new Host());
+          String endpoint = HarEntries.method(entry) + " " + (uri == null ? HarEntries.url(entry)
+              : uri.getScheme() + " " + HarEntries.pathTemplate(uri.getPath()));
+          if (endpoints.computeIfAbsent(hostName, h -> new HashSet<>()).add(endpoint)) {
+            host.endpoints++;
+          }
+          long payload = payloadBytes(entry);
+          host.entries++;
+          host.payloadBytes += payload;
+          profile.entries++;
+          profile.payloadBytes += payload;
+        }
+
+        @Override
+        public void endEntries() {
+        }
+      });
+    }
+    return profile;
+  }
+
+  private static long payloadBytes(JsonObject entry) {
+    JsonElement postData = HarEntries.request(entry).get("postData");
+    if (postData == null || !postData.isJsonObject()) {
+      return 0;
+    }
+    JsonElement text = postData.getAsJsonObject().get("text");
+    return text != null && text.isJsonPrimitive() ? text.getAsString().getBytes(StandardCharsets.UTF_8).length : 0;
+  }
+
+  String getDigest() {
+    return digest;
+  }
+
+  int getEntries() {
+    return entries;
+  }
+
+  long getPayloadBytes() {
+    return payloadBytes;
+  }
+
+  Map<String, Host> getHosts() {
+    return hosts;
+  }
+
+  /**
+   * Totals of the hosts the scanner attacks: all of them without allowed hosts, otherwise those allowed as recorded,
+   * without their port, or as mapped by an enabled host mapping.
+   */
+  Scope inScope(List<HostMapping> hostMapping, Collection<String> allowedHosts) {
+    Map<String, String> mapped = new HashMap<>();
+    if (hostMapping != null) {
+      for (HostMapping hm : hostMapping) {
+        if (hm.isEnable() && hm.getFrom() != null && hm.getTo() != null) {
+          mapped.put(hm.getFrom().trim().toLowerCase(Locale.ENGLISH), hm.getTo().trim());
+        }
+      }
+    }
+    Scope scope = new Scope();
+    for (Map.Entry<String, Host> e : hosts.entrySet()) {
+      String host = e.getKey();
+      int colon = host.lastIndexOf(':');
+      String target = mapped.get(host.toLowerCase(Locale.ENGLISH));
+      if (allowedHosts != null && !allowedHosts.isEmpty() && !allowedHosts.contains(host)
+          && !(colon > 0 && allowedHosts.contains(host.substring(0, colon))) && !(target != null && allowedHosts.contains(target))) {
+        continue;
+      }
+      scope.hosts++;
+      scope.entries += e.getValue().entries;
+      scope.endpoints += e.getValue().endpoints;
+      scope.payloadBytes += e.getValue().payloadBytes;
+    }
+    return scope;
+  }
+}
@@ -0,0 +1,99 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import hudson.model.Job;
+
+/**
+ * {@link HarProfile}s of the HAR files of a job by digest, one JSON profile per line in the job directory, so an
+ * unchanged HAR file is profiled once. Beyond {@link #MAX_PROFILES} the least recently used profiles are evicted.
+ */
+final class HarProfiles {
+  static final String PROFILES_FILE = "idd-har-profiles.jsonl";
+  static final int MAX_PROFILES = 10000;
+
+  private static final Gson GSON = new Gson();
+
+  private HarProfiles() {
+  }
+
+  static File profilesFile(Job<?, ?> job) {
+    return new File(job.getRootDir(), PROFILES_FILE);
+  }
+
+  static Map<String, HarProfile> load(File file) throws IOException {
+    synchronized (HarProfiles.class) {
+      return read(file);
+    }
+  }
+
+  private static Map<String, HarProfile> read(File file) throws IOException {
+    Map<String, HarProfile> profiles = new LinkedHashMap<>();
+    if (!file.isFile()) {
+      return profiles;
+    }
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        try {
+          HarProfile profile = GSON.fromJson(line, HarProfile.class);
+          if (profile != null && profile.getDigest() != null) {
+            profiles.put(profile.getDigest(), profile);
+          }
+        } catch (JsonParseException e) {
+          // a profile of an older format, profiled again
+        }
+      }
+    }
+    return profiles;
+  }
+
+  /**
+   * Marks the profiles used by a build and adds the new ones, to the file as it is now, which another build may have
+   * updated since it was loaded. Then evicts the least recently used profiles beyond {@code maxProfiles}.
+   */
+  static void update(File file, Collection<HarProfile> used, int maxProfiles) throws IOException {
+    synchronized (HarProfiles.class) {
+      Map<String, HarProfile> profiles = read(file);
+      long now = System.currentTimeMillis();
+      for (HarProfile profile : used) {
+        profile.lastUsed = now;
+        profiles.put(profile.getDigest(), profile);
+      }
+      List<HarProfile> recentFirst = new ArrayList<>(profiles.values());
+      recentFirst.sort(Comparator.comparingLong((HarProfile p) -> p.lastUsed).reversed());
+
+      File tmp = new File(file.getPath() + ".tmp");
+      try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+        for (HarProfile profile : recentFirst.subList(0, Math.min(maxProfiles, recentFirst.size()))) {
+          writer.write(GSON.toJson(profile));
+          writer.write('\n');
+        }
+      }
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Splits a HAR file into shards of at most {@code maxEntries} entries and about {@code maxBytes} bytes each.
+ * Every shard repeats the {@code log} fields found before {@code entries}, so it is a valid HAR file on its own.
+ * Only one entry is held in memory at a time.
+ */
+class HarSplitter {
+  private final int maxEntries;
+  private final long maxBytes;
+  private final Gson gson = new Gson();
+
+  HarSplitter(int maxEntries, long maxBytes) {
+    this.maxEntries = maxEntries > 0 ? maxEntries : Integer.MAX_VALUE;
+    this.maxBytes = maxBytes > 0 ? maxBytes : Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns the shard files written to {@code outputDir}, or an empty list if the HAR file fits in one shard.
+   */
+  List<File> split(File in, File outputDir, String prefix) throws IOException {
+    return split(new FileInputStream(in), outputDir, prefix);
+  }
+
+  /**
+   * Same as {@link #split(File, File, String)} for a HAR file read from {@code in}, which is closed.
+   */
+  List<File> split(InputStream in, File outputDir, String prefix) throws IOException {
+    List<File> shards = new ArrayList<>();
+    List<Map.Entry<String, JsonElement>> header = new ArrayList<>();
+
+    try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))) {
+      HarStream.read(reader, new HarStream.Handler() {
+        private CountingWriter counter;
+        private JsonWriter writer;
+        private int entries;
+
+        @Override
+        public void logField(String name, JsonElement value) {
+          if (shards.isEmpty()) {
+            header.add(new AbstractMap.SimpleImmutableEntry<>(name, value));
+          }
+        }
+
+        @Override
+        public void startEntries() {
+        }
+
+        @Override
+        public void entry(JsonObject entry) throws IOException {
+          if (writer == null || entries >= maxEntries || counter.count >= maxBytes) {
+            closeShard();
+            File shard = new File(outputDir, prefix + "-" + (shards.size() + 1) + HarDiscovery.HAR_EXTENSION);
+            shards.add(shard);
+            counter = new CountingWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(shard), StandardCharsets.UTF_8)));
+            writer = new JsonWriter(counter);
+            writer.beginObject().name("log").beginObject();
+            for (Map.Entry<String, JsonElement> field : header) {
+              writer.name(field.getKey());
+              gson.toJson(field.getValue(), writer);
+            }
+            writer.name("entries").beginArray();
+            entries = 0;
+          }
+          gson.toJson(entry, writer);
+          entries++;
+        }
+
+        @Override
+        public void endEntries() throws IOException {
+          closeShard();
+        }
+
+        private void closeShard() throws IOException {
+          if (writer != null) {
+            writer.endArray().endObject().endObject();
+            writer.close();
+            writer = null;
+          }
+        }
+      });
+    } catch (IOException|RuntimeException e) {
+      deleteAll(shards);
+      throw e;
+    }
+
+    if (shards.size() <= 1) {
+      deleteAll(shards);
+      shards.clear();
+    }
+    return shards;
+  }
+
+  private static void deleteAll(List<File> files) {
+    for (File file : files) {
+      if (file.exists() && !file.delete()) {
+        file.deleteOnExit();
+      }
+    }
+  }
+
+  private static final class CountingWriter extends Writer {
+    private final Writer out;
+    private long count;
+
+    CountingWriter(Writer out) {
+      this.out = out;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+      out.write(cbuf, off, len);
+      count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.IOException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Streams a HAR file so that at most one entry of {@code log.entries} is held in memory at a time.
+ */
+final class HarStream {
+  interface Handler {
+    void logField(String name, JsonElement value) throws IOException;
+
+    void startEntries() throws IOException;
+
+    void entry(JsonObject entry) throws IOException;
+
+    void endEntries() throws IOException;
+  }
+
+  private HarStream() {
+  }
+
+  static void read(JsonReader reader, Handler handler) throws IOException {
+    JsonParser parser = new JsonParser();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if (!"log".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_OBJECT) {
+        reader.skipValue();
+        continue;
+      }
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if ("entries".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+          handler.startEntries();
+          reader.beginArray();
+          while (reader.hasNext()) {
+            JsonElement entry = parser.parse(reader);
+            if (entry.isJsonObject()) {
+              handler.entry(entry.getAsJsonObject());
+            }
+          }
+          reader.endArray();
+          handler.endEntries();
+        } else {
+          handler.logField(name, parser.parse(reader));
+        }
+      }
+      reader.endObject();
+    }
+    reader.endObject();
+  }
+}
@@ -1,6 +1,10 @@
 package com.whitehatsec.idd.jenkins.plugin;
 
-public class HostMapping {
+import java.io.Serializable;
+
+public class HostMapping implements Serializable {
+  private static final long serialVersionUID = 1L;
+
 	private String from;
   private String to;
   private boolean enable;
@@ -0,0 +1,152 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import hudson.model.TaskListener;
+
+/**
+ * Controller-wide count of the scans running against each target host with a {@link WhiteHatIDDHostBudget}.
+ * A scan waits until every one of its target hosts has a free slot, and takes the slots of all of them at once.
+ * <p>
+ * With adaptive concurrency, the slots of a host shrink and grow like TCP congestion control: a scan whose time
+ * per request exceeds {@link #SLOWDOWN} times the usual time of the host, or whose output reports errors for more
+ * than {@link #MAX_ERROR_RATE} of its requests, halves them; any other scan adds about one slot per round of scans,
+ * up to the budget.
+ */
+final class HostThrottle {
+  static final double SLOWDOWN = 2.0;
+  static final double MAX_ERROR_RATE = 0.05;
+  private static final double BASELINE_WEIGHT = 0.2;
+
+  private static final Map<String, Host> HOSTS = new HashMap<>();
+
+  private HostThrottle() {
+  }
+
+  static final class Host {
+    final String name;
+    int running;
+    double limit = -1;
+    double millisPerRequest = -1;
+
+    Host(String name) {
+      this.name = name;
+    }
+
+    int slots() {
+      return (int) Math.max(1, Math.floor(limit));
+    }
+  }
+
+  /**
+   * Slots taken by one scan, to be handed back to {@link #release}.
+   */
+  static final class Permit {
+    final List<Host> hosts;
+
+    Permit(List<Host> hosts) {
+      this.hosts = hosts;
+    }
+  }
+
+  /**
+   * Waits for a slot on each target host with a budget; returns {@code null} when none of them has one, or when the
+   * scans of the build are cancelled while waiting.
+   */
+  static Permit acquire(Collection<String> targetHosts, ScanContext ctx, TaskListener listener) throws InterruptedException {
+    WhiteHatIDDGlobalConfiguration config = WhiteHatIDDGlobalConfiguration.get();
+    boolean waiting = false;
+    synchronized (HOSTS) {
+      while (!ctx.isCancelled()) {
+        List<Host> hosts = new ArrayList<>();
+        Host full = null;
+        for (String name : targetHosts) {
+          WhiteHatIDDHostBudget budget = config.getBudget(name);
+          if (budget == null || budget.getScanSlots() == 0) {
+            continue;
+          }
+          Host host = HOSTS.computeIfAbsent(name.toLowerCase(Locale.ENGLISH), Host::new);
+          int max = budget.getScanSlots();
+          host.limit = host.limit < 0 || !config.isAdaptiveConcurrency() ? max : Math.min(host.limit, max);
+          hosts.add(host);
+          if (host.running >= host.slots()) {
+            full = host;
+          }
+        }
+        if (hosts.isEmpty()) {
+          return null;
+        }
+        if (full == null) {
+          for (Host host : hosts) {
+            host.running++;
+          }
+          return new Permit(hosts);
+        }
+        if (!waiting) {
+          listener.getLogger().println("wait for target host " + full.name + ", " + full.running + " of " + full.slots()
+              + " scans running");
+          waiting = true;
+        }
+        HOSTS.wait();
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Wakes the scans waiting for a slot, so that the ones of a cancelled build give up.
+   */
+  static void wakeUp() {
+    synchronized (HOSTS) {
+      HOSTS.notifyAll();
+    }
+  }
+
+  /**
+   * Hands the slots back and adapts the slots of the hosts to how the scan went.
+   *
+   * @param requests requests of the scanned HAR files, or -1 when not known
+   * @param errorLines error lines of the scanner output, or -1 when not counted
+   */
+  static void release(Permit permit, long wallMillis, long requests, long errorLines, TaskListener listener) {
+    if (permit == null) {
+      return;
+    }
+    boolean adaptive = WhiteHatIDDGlobalConfiguration.get().isAdaptiveConcurrency();
+    synchronized (HOSTS) {
+      for (Host host : permit.hosts) {
+        host.running--;
+        if (!adaptive || requests <= 0) {
+          continue;
+        }
+        double millisPerRequest = (double) wallMillis / requests;
+        boolean slow = host.millisPerRequest > 0 && millisPerRequest > SLOWDOWN * host.millisPerRequest;
+        boolean failing = errorLines > MAX_ERROR_RATE * requests;
+        if (slow || failing) {
+          int before = host.slots();
+          host.limit = Math.max(1, host.limit / 2);
+          listener.getLogger().println(String.format("target host %s is %s, reduce concurrent scans from %d to %d", host.name,
+              slow ? String.format("slowing down (%.0f ms per request, usually %.0f)", millisPerRequest, host.millisPerRequest)
+                  : "failing (" + errorLines + " errors in " + requests + " requests)",
+              before, host.slots()));
+        } else {
+          host.limit += 1.0 / host.slots();
+          host.millisPerRequest = host.millisPerRequest < 0 ? millisPerRequest
+              : (1 - BASELINE_WEIGHT) * host.millisPerRequest + BASELINE_WEIGHT * millisPerRequest;
+        }
+      }
+      HOSTS.notifyAll();
+    }
+  }
+
+  static void reset() {
+    synchronized (HOSTS) {
+      HOSTS.clear();
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Outcome of one directed-dast-common process.
+ */
+class Invocation {
+  private static final Pattern TIMES = Pattern.compile("(\\d+)m(\\d+(?:[.,]\\d+)?)s");
+
+  final int exitCode;
+  final long wallMillis;
+  final long cpuMillis;
+
+  Invocation(int exitCode, long wallMillis, long cpuMillis) {
+    this.exitCode = exitCode;
+    this.wallMillis = wallMillis;
+    this.cpuMillis = cpuMillis;
+  }
+
+  /**
+   * User plus system CPU time of the children from the output of the POSIX shell builtin {@code times},
+   * whose second line holds the times of the processes run by the shell, or -1 if it cannot be parsed.
+   */
+  static long parseTimes(String times) {
+    String[] lines = times == null ? new String[0] : times.trim().split("\\r?\\n");
+    if (lines.length < 2) {
+      return -1;
+    }
+    Matcher m = TIMES.matcher(lines[1]);
+    double seconds = 0;
+    int found = 0;
+    while (m.find()) {
+      seconds += Long.parseLong(m.group(1)) * 60 + Double.parseDouble(m.group(2).replace(',', '.'));
+      found++;
+    }
+    return found == 2 ? Math.round(seconds * 1000) : -1;
+  }
+}
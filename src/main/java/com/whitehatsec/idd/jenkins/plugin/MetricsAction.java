@@ -0,0 +1,140 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import hudson.model.Action;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+import jenkins.tasks.SimpleBuildStep;
+
+/**
+ * Per-HAR scan metrics and the time spent in the plugin's own phases during a build.
+ */
+public class MetricsAction implements RunAction2, SimpleBuildStep.LastBuildAction {
+  private final PhaseTimings phases = new PhaseTimings();
+  private final List<HarMetrics> hars = new ArrayList<>();
+  private List<ModuleMetrics> modules;
+  private List<ResourceEvent> events;
+  private transient Run<?, ?> run;
+
+  public static synchronized MetricsAction getOrCreate(Run<?, ?> run) {
+    MetricsAction action = run.getAction(MetricsAction.class);
+    if (action == null) {
+      action = new MetricsAction();
+      run.addAction(action);
+    }
+    return action;
+  }
+
+  @Override
+  public String getIconFileName() {
+    return "graph.png";
+  }
+
+  @Override
+  public String getDisplayName() {
+    return Messages.MetricsAction_DisplayName();
+  }
+
+  @Override
+  public String getUrlName() {
+    return "idd-metrics";
+  }
+
+  @Override
+  public void onAttached(Run<?, ?> r) {
+    this.run = r;
+  }
+
+  @Override
+  public void onLoad(Run<?, ?> r) {
+    this.run = r;
+  }
+
+  public Run<?, ?> getRun() {
+    return run;
+  }
+
+  @Override
+  public Collection<? extends Action> getProjectActions() {
+    return run == null ? Collections.emptyList() : Collections.singletonList(new MetricsProjectAction(run.getParent()));
+  }
+
+  public void addPhases(PhaseTimings timings) {
+    phases.add(timings);
+  }
+
+  public synchronized void add(HarMetrics metrics) {
+    hars.add(metrics);
+  }
+
+  public synchronized void addModule(ModuleMetrics metrics) {
+    if (modules == null) {
+      modules = new ArrayList<>();
+    }
+    modules.add(metrics);
+  }
+
+  /**
+   * Attack modules in the order they were scanned, empty unless each module was scanned in a pass of its own.
+   */
+  public synchronized List<ModuleMetrics> getModules() {
+    return modules == null ? Collections.<ModuleMetrics>emptyList() : Collections.unmodifiableList(new ArrayList<>(modules));
+  }
+
+  public synchronized void addEvents(Collection<ResourceEvent> added) {
+    if (added.isEmpty()) {
+      return;
+    }
+    if (events == null) {
+      events = new ArrayList<>();
+    }
+    events.addAll(added);
+  }
+
+  /**
+   * Scans that timed out, hit a resource limit or waited for the agent, in the order they happened.
+   */
+  public synchronized List<ResourceEvent> getEvents() {
+    return events == null ? Collections.<ResourceEvent>emptyList() : Collections.unmodifiableList(new ArrayList<>(events));
+  }
+
+  public Map<String, Long> getPhaseMillis() {
+    return phases.getMillis();
+  }
+
+  public long getOverheadMillis() {
+    return phases.getTotalMillis();
+  }
+
+  public synchronized List<HarMetrics> getHars() {
+    return Collections.unmodifiableList(new ArrayList<>(hars));
+  }
+
+  public synchronized long getWallMillis() {
+    return hars.stream().mapToLong(HarMetrics::getWallMillis).sum();
+  }
+
+  /**
+   * CPU time of all scans, counting only the scans whose CPU time is known.
+   */
+  public synchronized long getCpuMillis() {
+    return hars.stream().mapToLong(HarMetrics::getCpuMillis).filter(m -> m >= 0).sum();
+  }
+
+  public synchronized double getRequestsPerSecond() {
+    long entries = 0;
+    long millis = 0;
+    for (HarMetrics har : hars) {
+      if (har.getEntries() >= 0) {
+        entries += har.getEntries();
+        millis += har.getWallMillis();
+      }
+    }
+    return millis > 0 ? entries * 1000.0 / millis : -1;
+  }
+}
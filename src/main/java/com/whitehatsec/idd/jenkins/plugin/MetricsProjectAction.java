@@ -0,0 +1,180 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.CategoryAxis;
+import org.jfree.chart.axis.CategoryLabelPositions;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.renderer.category.LineAndShapeRenderer;
+
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.util.ChartUtil;
+import hudson.util.DataSetBuilder;
+import hudson.util.Graph;
+import hudson.util.ShiftedCategoryAxis;
+
+/**
+ * Trend of the scan metrics over the recent builds of a job.
+ */
+public class MetricsProjectAction implements Action {
+  static final int TREND_BUILDS = 30;
+
+  private final Job<?, ?> job;
+
+  public MetricsProjectAction(Job<?, ?> job) {
+    this.job = job;
+  }
+
+  @Override
+  public String getIconFileName() {
+    return null;
+  }
+
+  @Override
+  public String getDisplayName() {
+    return Messages.MetricsAction_DisplayName();
+  }
+
+  @Override
+  public String getUrlName() {
+    return "idd-metrics";
+  }
+
+  public Job<?, ?> getJob() {
+    return job;
+  }
+
+  public boolean hasTrend() {
+    Run<?, ?> last = job.getLastCompletedBuild();
+    return last != null && last.getAction(MetricsAction.class) != null;
+  }
+
+  public Graph getTrend() {
+    Run<?, ?> last = job.getLastCompletedBuild();
+    return new Graph(last == null ? 0 : last.getTimestamp().getTimeInMillis(), 500, 200) {
+      @Override
+      protected JFreeChart createGraph() {
+        return createTrendChart();
+      }
+    };
+  }
+
+  public boolean hasModuleTrend() {
+    Run<?, ?> last = job.getLastCompletedBuild();
+    MetricsAction metrics = last == null ? null : last.getAction(MetricsAction.class);
+    return metrics != null && !metrics.getModules().isEmpty();
+  }
+
+  /**
+   * Scan time of each attack module, for the builds that scanned each module in a pass of its own.
+   */
+  public Graph getModuleTrend() {
+    Run<?, ?> last = job.getLastCompletedBuild();
+    return new Graph(last == null ? 0 : last.getTimestamp().getTimeInMillis(), 500, 200) {
+      @Override
+      protected JFreeChart createGraph() {
+        return createModuleTrendChart();
+      }
+    };
+  }
+
+  public boolean hasFindingsTrend() {
+    return FindingsIndex.exists(job);
+  }
+
+  /**
+   * Findings per severity of the recent builds, read from the {@link FindingsIndex}.
+   */
+  public Graph getFindingsTrend() {
+    Run<?, ?> last = job.getLastCompletedBuild();
+    return new Graph(last == null ? 0 : last.getTimestamp().getTimeInMillis(), 500, 200) {
+      @Override
+      protected JFreeChart createGraph() {
+        try {
+          return createFindingsTrendChart();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    };
+  }
+
+  private JFreeChart createTrendChart() {
+    DataSetBuilder<String, ChartUtil.NumberOnlyBuildLabel> data = new DataSetBuilder<>();
+    int count = 0;
+    for (Run<?, ?> run = job.getLastCompletedBuild(); run != null && count < TREND_BUILDS; run = run.getPreviousCompletedBuild()) {
+      MetricsAction metrics = run.getAction(MetricsAction.class);
+      if (metrics == null) {
+        continue;
+      }
+      ChartUtil.NumberOnlyBuildLabel label = new ChartUtil.NumberOnlyBuildLabel(run);
+      data.add(metrics.getWallMillis() / 1000.0, Messages.MetricsAction_WallTime(), label);
+      data.add(metrics.getCpuMillis() / 1000.0, Messages.MetricsAction_CpuTime(), label);
+      data.add(metrics.getOverheadMillis() / 1000.0, Messages.MetricsAction_Overhead(), label);
+      count++;
+    }
+
+    return createLineChart(data);
+  }
+
+  private JFreeChart createModuleTrendChart() {
+    DataSetBuilder<String, ChartUtil.NumberOnlyBuildLabel> data = new DataSetBuilder<>();
+    int count = 0;
+    for (Run<?, ?> run = job.getLastCompletedBuild(); run != null && count < TREND_BUILDS; run = run.getPreviousCompletedBuild()) {
+      MetricsAction metrics = run.getAction(MetricsAction.class);
+      if (metrics == null || metrics.getModules().isEmpty()) {
+        continue;
+      }
+      ChartUtil.NumberOnlyBuildLabel label = new ChartUtil.NumberOnlyBuildLabel(run);
+      for (ModuleMetrics module : metrics.getModules()) {
+        data.add(module.getWallMillis() / 1000.0, module.getModule(), label);
+      }
+      count++;
+    }
+    return createLineChart(data);
+  }
+
+  private JFreeChart createFindingsTrendChart() throws IOException {
+    FindingsIndex index = FindingsIndex.of(job);
+    DataSetBuilder<String, ChartUtil.NumberOnlyBuildLabel> data = new DataSetBuilder<>();
+    for (int number : index.getBuilds(TREND_BUILDS)) {
+      Run<?, ?> run = job.getBuildByNumber(number);
+      if (run == null) {
+        continue;
+      }
+      ChartUtil.NumberOnlyBuildLabel label = new ChartUtil.NumberOnlyBuildLabel(run);
+      Map<Severity, Integer> counts = index.getCounts(number);
+      for (Severity severity : Severity.values()) {
+        data.add(counts.getOrDefault(severity, 0), severity.level, label);
+      }
+    }
+    return createLineChart(data, Messages.MetricsAction_Findings());
+  }
+
+  private static JFreeChart createLineChart(DataSetBuilder<String, ChartUtil.NumberOnlyBuildLabel> data) {
+    return createLineChart(data, Messages.MetricsAction_Seconds());
+  }
+
+  private static JFreeChart createLineChart(DataSetBuilder<String, ChartUtil.NumberOnlyBuildLabel> data, String rangeAxisLabel) {
+    JFreeChart chart = ChartFactory.createLineChart(null, null, rangeAxisLabel, data.build(),
+        PlotOrientation.VERTICAL, true, true, false);
+    chart.setBackgroundPaint(Color.white);
+    CategoryPlot plot = chart.getCategoryPlot();
+    plot.setBackgroundPaint(Color.white);
+    plot.setRangeGridlinePaint(Color.lightGray);
+    CategoryAxis domainAxis = new ShiftedCategoryAxis(null);
+    domainAxis.setCategoryLabelPositions(CategoryLabelPositions.UP_90);
+    plot.setDomainAxis(domainAxis);
+    LineAndShapeRenderer renderer = (LineAndShapeRenderer) plot.getRenderer();
+    renderer.setBaseShapesVisible(true);
+    return chart;
+  }
+}
@@ -0,0 +1,111 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.RootAction;
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+
+/**
+ * Exports the metrics of the last completed build of every job the user can read in the Prometheus text format
+ * at {@code /idd-metrics/}.
+ */
+@Extension
+public class MetricsRootAction implements RootAction {
+  static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=UTF-8";
+
+  private static final Map<String, String> HELP = new LinkedHashMap<>();
+
+  static {
+    HELP.put("idd_build_number", "Number of the last completed build with WhiteHat IDD metrics.");
+    HELP.put("idd_phase_seconds", "Time spent in a phase of the WhiteHat IDD plugin.");
+    HELP.put("idd_scan_wall_seconds", "Wall time of the scan of a HAR file.");
+    HELP.put("idd_scan_cpu_seconds", "CPU time of the scanner for a HAR file.");
+    HELP.put("idd_scan_har_bytes", "Size of a scanned HAR file.");
+    HELP.put("idd_scan_har_entries", "Entries of a scanned HAR file.");
+    HELP.put("idd_scan_requests_per_second", "Recorded requests replayed per second for a HAR file.");
+    HELP.put("idd_scan_exit_code", "Exit code of the scanner for a HAR file.");
+  }
+
+  @Override
+  public String getIconFileName() {
+    return null;
+  }
+
+  @Override
+  public String getDisplayName() {
+    return null;
+  }
+
+  @Override
+  public String getUrlName() {
+    return "idd-metrics";
+  }
+
+  public void doIndex(StaplerRequest req, StaplerResponse rsp) throws IOException {
+    rsp.setContentType(CONTENT_TYPE);
+    try (PrintWriter out = rsp.getWriter()) {
+      write(out);
+    }
+  }
+
+  void write(PrintWriter out) {
+    Map<String, List<String>> samples = new LinkedHashMap<>();
+    for (String name : HELP.keySet()) {
+      samples.put(name, new ArrayList<>());
+    }
+    for (Job<?, ?> job : Jenkins.get().getAllItems(Job.class)) {
+      Run<?, ?> run = job.getLastCompletedBuild();
+      MetricsAction metrics = run == null ? null : run.getAction(MetricsAction.class);
+      if (metrics == null) {
+        continue;
+      }
+      String jobLabel = "job=\"" + escape(job.getFullName()) + "\"";
+      sample(samples, "idd_build_number", jobLabel, run.getNumber());
+      for (Map.Entry<String, Long> phase : metrics.getPhaseMillis().entrySet()) {
+        sample(samples, "idd_phase_seconds", jobLabel + ",phase=\"" + escape(phase.getKey()) + "\"", phase.getValue() / 1000.0);
+      }
+      for (HarMetrics har : metrics.getHars()) {
+        String labels = jobLabel + ",har=\"" + escape(har.getHar()) + "\"";
+        sample(samples, "idd_scan_wall_seconds", labels, har.getWallMillis() / 1000.0);
+        if (har.getCpuMillis() >= 0) {
+          sample(samples, "idd_scan_cpu_seconds", labels, har.getCpuMillis() / 1000.0);
+        }
+        sample(samples, "idd_scan_har_bytes", labels, har.getSize());
+        if (har.getEntries() >= 0) {
+          sample(samples, "idd_scan_har_entries", labels, har.getEntries());
+        }
+        if (har.getRequestsPerSecond() >= 0) {
+          sample(samples, "idd_scan_requests_per_second", labels, har.getRequestsPerSecond());
+        }
+        sample(samples, "idd_scan_exit_code", labels, har.getExitCode());
+      }
+    }
+
+    for (Map.Entry<String, List<String>> metric : samples.entrySet()) {
+      out.print("# HELP " + metric.getKey() + " " + HELP.get(metric.getKey()) + "\n");
+      out.print("# TYPE " + metric.getKey() + " gauge\n");
+      for (String line : metric.getValue()) {
+        out.print(line + "\n");
+      }
+    }
+  }
+
+  private static void sample(Map<String, List<String>> samples, String name, String labels, double value) {
+    samples.get(name).add(name + "{" + labels + "} " + value);
+  }
+
+  static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
@@ -0,0 +1,70 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.Serializable;
+import java.util.Locale;
+
+/**
+ * Time, requests and findings of one attack module, scanned in a pass of its own.
+ */
+public class ModuleMetrics implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  public enum Status {
+    COMPLETED,
+    /** Stopped when the time budget ran out. */
+    CUT_OFF,
+    /** Not started, the time budget had run out or the scans were cancelled. */
+    SKIPPED
+  }
+
+  private final String module;
+  private final long wallMillis;
+  private final long requests;
+  private final int findings;
+  private final Status status;
+
+  public ModuleMetrics(String module, long wallMillis, long requests, int findings, Status status) {
+    this.module = module;
+    this.wallMillis = wallMillis;
+    this.requests = requests;
+    this.findings = findings;
+    this.status = status;
+  }
+
+  static ModuleMetrics skipped(String module) {
+    return new ModuleMetrics(module, 0, 0, 0, Status.SKIPPED);
+  }
+
+  public String getModule() {
+    return module;
+  }
+
+  public long getWallMillis() {
+    return wallMillis;
+  }
+
+  /**
+   * Requests of the scanned HAR files, or -1 when not known.
+   */
+  public long getRequests() {
+    return requests;
+  }
+
+  public int getFindings() {
+    return findings;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public double getRequestsPerSecond() {
+    return requests >= 0 && wallMillis > 0 ? requests * 1000.0 / wallMillis : -1;
+  }
+
+  @Override
+  public String toString() {
+    return module + ": " + status.name().toLowerCase(Locale.ENGLISH).replace('_', ' ') + ", " + wallMillis + " ms, "
+        + (requests >= 0 ? requests + " requests, " : "") + findings + " findings";
+  }
+}
@@ -0,0 +1,36 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Writes a copy of the settings file this callable is invoked on that attacks with a single module.
+ */
+class ModuleSettings extends MasterToSlaveFileCallable<Void> {
+  private static final long serialVersionUID = 1L;
+
+  private final String module;
+  private final boolean disablePassiveModules;
+  private final String targetPath;
+
+  ModuleSettings(String module, boolean disablePassiveModules, String targetPath) {
+    this.module = module;
+    this.disablePassiveModules = disablePassiveModules;
+    this.targetPath = targetPath;
+  }
+
+  @Override
+  public Void invoke(File settingsFile, VirtualChannel channel) throws IOException, InterruptedException {
+    Configuration config = SettingsFile.readSettings(settingsFile);
+    config.setAttackModules(Collections.singletonList(module));
+    if (disablePassiveModules) {
+      config.setDisablePassiveModules(true);
+    }
+    SettingsFile.saveSettings(config, new File(targetPath));
+    return null;
+  }
+}
@@ -0,0 +1,107 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Stream-parses a scanner findings file on the agent. Each finding is normalized and written as one JSON line
+ * to {@code <findings file>.jsonl}, and only the counts per HAR file are returned, or {@code null} when the
+ * scanner wrote no findings file.
+ * The findings file is either a JSON array of findings or an object with a {@code findings} array.
+ * Findings in the {@link Baseline} are marked suppressed as they are read.
+ */
+class ParseFindings extends MasterToSlaveFileCallable<Map<String, FindingCounts>> {
+  private static final long serialVersionUID = 1L;
+
+  static final String NORMALIZED_SUFFIX = ".jsonl";
+
+  private final Map<String, String> harNamesByPath;
+  private final String defaultHarName;
+  private final String baselinePath;
+
+  ParseFindings(Map<String, String> harNamesByPath, String defaultHarName) {
+    this(harNamesByPath, defaultHarName, null);
+  }
+
+  /**
+   * @param baselinePath baseline file on the agent, loaded once per agent until it changes, or {@code null}
+   */
+  ParseFindings(Map<String, String> harNamesByPath, String defaultHarName, String baselinePath) {
+    this.harNamesByPath = new HashMap<>(harNamesByPath);
+    this.defaultHarName = defaultHarName;
+    this.baselinePath = baselinePath;
+  }
+
+  @Override
+  public Map<String, FindingCounts> invoke(File findingsFile, VirtualChannel channel) throws IOException, InterruptedException {
+    if (!findingsFile.isFile()) {
+      return null;
+    }
+    Map<String, FindingCounts> counts = new TreeMap<>();
+    Baseline baseline = baselinePath == null ? null : Baseline.load(new File(baselinePath));
+    File normalized = new File(findingsFile.getPath() + NORMALIZED_SUFFIX);
+
+    Gson gson = new Gson();
+    JsonParser parser = new JsonParser();
+    try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(new FileInputStream(findingsFile), StandardCharsets.UTF_8)));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(normalized), StandardCharsets.UTF_8))) {
+      if (!toFindingsArray(reader)) {
+        return counts;
+      }
+      reader.beginArray();
+      while (reader.hasNext()) {
+        JsonElement element = parser.parse(reader);
+        if (!element.isJsonObject()) {
+          continue;
+        }
+        String har = Finding.string(element.getAsJsonObject(), "har", "harFile", "source");
+        String harName = harNamesByPath.containsKey(har) ? harNamesByPath.get(har) : defaultHarName;
+        Finding finding = Finding.fromJson(element.getAsJsonObject(), harName);
+        if (baseline != null) {
+          baseline.apply(finding);
+        }
+        counts.computeIfAbsent(harName, name -> new FindingCounts()).add(finding);
+        writer.write(gson.toJson(finding));
+        writer.write('\n');
+      }
+    }
+    return counts;
+  }
+
+  private static boolean toFindingsArray(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+      return true;
+    }
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      return false;
+    }
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if ("findings".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+        return true;
+      }
+      reader.skipValue();
+    }
+    return false;
+  }
+}
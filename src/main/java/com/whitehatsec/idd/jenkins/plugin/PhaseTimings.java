@@ -0,0 +1,52 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wall time of the plugin's own phases in milliseconds, in the order they ran.
+ */
+public class PhaseTimings implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  public static final String SETTINGS_COPY = "settings_copy";
+  public static final String READ_SETTINGS = "read_settings";
+  public static final String UPDATE_HOST_MAPPING = "update_host_mapping_settings";
+  public static final String SAVE_SETTINGS = "save_settings";
+  public static final String DIRECTORY_WALK = "directory_walk";
+  public static final String PROFILE = "profile";
+  public static final String PRE_FILTER = "pre_filter";
+  public static final String SPLIT = "split";
+
+  private final Map<String, Long> millis = new LinkedHashMap<>();
+
+  /**
+   * Records the time since {@code startNanos} for the phase and returns the current {@link System#nanoTime()}
+   * so that consecutive phases can be timed one after another.
+   */
+  public synchronized long record(String phase, long startNanos) {
+    long now = System.nanoTime();
+    millis.merge(phase, (now - startNanos) / 1000000, Long::sum);
+    return now;
+  }
+
+  public synchronized void add(PhaseTimings other) {
+    for (Map.Entry<String, Long> e : other.getMillis().entrySet()) {
+      millis.merge(e.getKey(), e.getValue(), Long::sum);
+    }
+  }
+
+  public synchronized Map<String, Long> getMillis() {
+    return Collections.unmodifiableMap(new LinkedHashMap<>(millis));
+  }
+
+  public synchronized long getTotalMillis() {
+    long total = 0;
+    for (long m : millis.values()) {
+      total += m;
+    }
+    return total;
+  }
+}
@@ -0,0 +1,79 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.google.gson.JsonParseException;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Writes a filtered copy of each HAR file under the directory this callable is invoked on. A HAR file that cannot be
+ * parsed is left unfiltered for the scanner to report on.
+ */
+class PreFilterHars extends MasterToSlaveFileCallable<List<FilterStats>> {
+  private static final long serialVersionUID = 1L;
+
+  private final String settingsPath;
+  private final List<HarFile> hars;
+  private final String appVersion;
+  private final Set<String> cachedKeys;
+
+  PreFilterHars(String settingsPath, List<HarFile> hars) {
+    this(settingsPath, hars, null, null);
+  }
+
+  /**
+   * @param cachedKeys keys of the {@link ResultCache}, or {@code null} without a result cache
+   */
+  PreFilterHars(String settingsPath, List<HarFile> hars, String appVersion, Set<String> cachedKeys) {
+    this.settingsPath = settingsPath;
+    this.hars = new ArrayList<>(hars);
+    this.appVersion = appVersion;
+    this.cachedKeys = cachedKeys == null ? null : new HashSet<>(cachedKeys);
+  }
+
+  @Override
+  public List<FilterStats> invoke(File outputDir, VirtualChannel channel) throws IOException, InterruptedException {
+    Configuration config = SettingsFile.readSettings(new File(settingsPath));
+    HarFilter filter = new HarFilter(config);
+    if (cachedKeys != null) {
+      filter.withResultCache(ResultCacheKeys.of(config, appVersion), cachedKeys);
+    }
+    List<FilterStats> stats = new ArrayList<>();
+    for (HarFile har : hars) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      // filtered copies of archive entries are plain HAR files
+      File out = new File(outputDir, filteredName(har));
+      File parent = out.getParentFile();
+      if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+        throw new IOException("cannot create directory " + parent);
+      }
+      try {
+        stats.add(filter.filter(har.getName(), HarArchives.open(har), out));
+      } catch (IOException | JsonParseException | IllegalStateException e) {
+        Files.deleteIfExists(out.toPath());
+        FilterStats unfiltered = new FilterStats(har.getName(), har.getPath());
+        unfiltered.unfiltered(e.toString());
+        stats.add(unfiltered);
+      }
+    }
+    return stats;
+  }
+
+  private static String filteredName(HarFile har) {
+    if (!har.isCompressed()) {
+      return har.getName();
+    }
+    String name = har.getName().replace(HarArchives.ENTRY_SEPARATOR, "/");
+    return name.endsWith(HarDiscovery.HAR_EXTENSION) ? name : name + HarDiscovery.HAR_EXTENSION;
+  }
+}
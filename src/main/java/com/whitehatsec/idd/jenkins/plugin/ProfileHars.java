@@ -0,0 +1,39 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonParseException;
+
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Profiles HAR files on the agent owning the workspace, each in one streaming pass, archive entries included.
+ * A HAR file that cannot be read has a {@code null} profile, its scan reports the error.
+ */
+class ProfileHars extends MasterToSlaveCallable<List<HarProfile>, IOException> {
+  private static final long serialVersionUID = 1L;
+
+  private final List<HarFile> hars;
+
+  ProfileHars(List<HarFile> hars) {
+    this.hars = new ArrayList<>(hars);
+  }
+
+  @Override
+  public List<HarProfile> call() throws IOException {
+    List<HarProfile> profiles = new ArrayList<>();
+    for (HarFile har : hars) {
+      if (Thread.currentThread().isInterrupted()) {
+        throw new IOException("profiling HAR files interrupted");
+      }
+      try {
+        profiles.add(HarProfile.read(har.getDigest(), HarArchives.open(har)));
+      } catch (IOException | JsonParseException e) {
+        profiles.add(null);
+      }
+    }
+    return profiles;
+  }
+}
@@ -0,0 +1,34 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+public class RequestOptions {
+  private int requestDelay;
+  private int retryCount;
+  private int timeout;
+
+  /**
+   * Milliseconds the scanner waits between two requests.
+   */
+  public int getRequestDelay() {
+    return requestDelay;
+  }
+
+  public void setRequestDelay(int requestDelay) {
+    this.requestDelay = requestDelay;
+  }
+
+  public int getRetryCount() {
+    return retryCount;
+  }
+
+  public void setRetryCount(int retryCount) {
+    this.retryCount = retryCount;
+  }
+
+  public int getTimeout() {
+    return timeout;
+  }
+
+  public void setTimeout(int timeout) {
+    this.timeout = timeout;
+  }
+}
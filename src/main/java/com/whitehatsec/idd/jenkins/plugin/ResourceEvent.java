@@ -0,0 +1,59 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.Serializable;
+import java.util.Locale;
+
+/**
+ * A scan that hit one of the resource limits of the builder, or whose start was held back by them.
+ */
+public class ResourceEvent implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  public enum Type {
+    /** The scan ran longer than the Scan Timeout and its processes were killed. */
+    TIMEOUT,
+    /** The scanner was killed, most likely for using more than the Max Scanner Memory. */
+    MEMORY_LIMIT,
+    /** The scan waited for the load or the free memory of the agent to get back within the admission limits. */
+    ADMISSION_WAIT
+  }
+
+  private final Type type;
+  private final String scan;
+  private final long millis;
+  private final String detail;
+
+  public ResourceEvent(Type type, String scan, long millis, String detail) {
+    this.type = type;
+    this.scan = scan;
+    this.millis = millis;
+    this.detail = detail;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * HAR file or batch of the scan.
+   */
+  public String getScan() {
+    return scan;
+  }
+
+  /**
+   * Time the scan ran before it was killed, or waited before it started.
+   */
+  public long getMillis() {
+    return millis;
+  }
+
+  public String getDetail() {
+    return detail;
+  }
+
+  @Override
+  public String toString() {
+    return type.name().toLowerCase(Locale.ENGLISH).replace('_', ' ') + " " + scan + " after " + millis + " ms: " + detail;
+  }
+}
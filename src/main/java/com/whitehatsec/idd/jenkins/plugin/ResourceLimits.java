@@ -0,0 +1,69 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory and CPU limits of the scanner on Unix agents. When the agent user can start a transient systemd scope, the
+ * scanner runs in a cgroup of its own with {@code MemoryMax} and {@code CPUQuota}; otherwise its address space is
+ * limited with {@code ulimit -v} and the CPU limit is not applied.
+ */
+final class ResourceLimits {
+  /** Exit code of a process killed with SIGKILL, as the out-of-memory killer of a cgroup does. */
+  static final int KILLED_EXIT_CODE = 128 + 9;
+
+  private ResourceLimits() {
+  }
+
+  /**
+   * {@code sh -c} command running {@code argv} within the limits, or as it is without limits, then writing the CPU
+   * times of the scanner to {@code timesPath} and exiting with the exit code of the scanner. {@code argv} and
+   * {@code timesPath} are arguments of the shell, {@code "$@"} and {@code "$0"}, never part of its script, so paths
+   * with spaces or shell syntax in them are passed on unchanged.
+   *
+   * @param maxMemoryMB memory of the scanner in MB, 0 for no limit
+   * @param maxCpuPercent CPU of the scanner in percent of one processor, 0 for no limit
+   */
+  static List<String> wrap(List<String> argv, int maxMemoryMB, int maxCpuPercent, String timesPath) {
+    List<String> cmds = new ArrayList<>();
+    cmds.add("sh");
+    cmds.add("-c");
+    cmds.add(limited(maxMemoryMB, maxCpuPercent) + "; rc=$?; times > \"$0\"; exit $rc");
+    cmds.add(timesPath);
+    cmds.addAll(argv);
+    return cmds;
+  }
+
+  private static String limited(int maxMemoryMB, int maxCpuPercent) {
+    String command = "\"$@\"";
+    if (maxMemoryMB <= 0 && maxCpuPercent <= 0) {
+      return command;
+    }
+    StringBuilder scope = new StringBuilder("systemd-run --user --scope --quiet");
+    if (maxMemoryMB > 0) {
+      scope.append(" -p MemoryMax=").append(maxMemoryMB).append('M');
+    }
+    if (maxCpuPercent > 0) {
+      scope.append(" -p CPUQuota=").append(maxCpuPercent).append('%');
+    }
+    String fallback;
+    String notice;
+    if (maxMemoryMB > 0) {
+      // in a subshell, so the limit does not apply to the commands run after the scanner
+      fallback = "(ulimit -v " + maxMemoryMB * 1024L + " && exec " + command + ")";
+      notice = maxCpuPercent > 0 ? "memory limited with ulimit, CPU not limited" : "memory limited with ulimit";
+    } else {
+      fallback = command;
+      notice = "CPU not limited";
+    }
+    return "if systemd-run --user --scope --quiet true >/dev/null 2>&1; then " + scope + " " + command + "; "
+        + "else echo 'no systemd scope for the scanner on this agent, " + notice + "'; " + fallback + "; fi";
+  }
+
+  /**
+   * Whether the scanner was most likely killed for exceeding its memory limit.
+   */
+  static boolean isMemoryKill(int exitCode, int maxMemoryMB) {
+    return maxMemoryMB > 0 && exitCode == KILLED_EXIT_CODE;
+  }
+}
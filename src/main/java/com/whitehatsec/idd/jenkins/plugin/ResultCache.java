@@ -0,0 +1,172 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import hudson.model.Job;
+
+/**
+ * Findings per endpoint of earlier scans of a job, kept one JSON entry per line in the job directory so that later
+ * builds only attack new or changed endpoints. Once the file grows beyond its size limit, the least recently used
+ * entries are evicted.
+ */
+class ResultCache {
+  static final String CACHE_FILE = "idd-result-cache.jsonl";
+
+  static class Entry {
+    private final String key;
+    private final String endpoint;
+    private final List<Finding> findings;
+    private long lastUsed;
+
+    Entry(String key, String endpoint, List<Finding> findings) {
+      this.key = key;
+      this.endpoint = endpoint;
+      this.findings = new ArrayList<>(findings);
+    }
+
+    String getKey() {
+      return key;
+    }
+
+    String getEndpoint() {
+      return endpoint;
+    }
+
+    List<Finding> getFindings() {
+      return findings == null ? Collections.<Finding>emptyList() : findings;
+    }
+  }
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+  private long bytes;
+  private int evicted;
+
+  static File cacheFile(Job<?, ?> job) {
+    return new File(job.getRootDir(), CACHE_FILE);
+  }
+
+  static ResultCache load(File file) throws IOException {
+    synchronized (ResultCache.class) {
+      return read(file);
+    }
+  }
+
+  private static ResultCache read(File file) throws IOException {
+    ResultCache cache = new ResultCache();
+    if (!file.isFile()) {
+      return cache;
+    }
+    Gson gson = new Gson();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        try {
+          Entry entry = gson.fromJson(line, Entry.class);
+          if (entry != null && entry.key != null) {
+            cache.entries.put(entry.key, entry);
+            cache.bytes += line.length() + 1;
+          }
+        } catch (JsonParseException e) {
+          // an entry of an older format, attacked again
+        }
+      }
+    }
+    return cache;
+  }
+
+  /**
+   * Marks the entries hit by a build as used and adds the endpoints it scanned, to the cache file as it is now,
+   * which another build may have updated since it was loaded. Then evicts the least recently used entries beyond
+   * {@code maxBytes}.
+   */
+  static ResultCache update(File file, Collection<String> hits, Collection<Entry> added, long maxBytes) throws IOException {
+    synchronized (ResultCache.class) {
+      ResultCache cache = read(file);
+      long now = System.currentTimeMillis();
+      for (String key : hits) {
+        Entry entry = cache.entries.get(key);
+        if (entry != null) {
+          entry.lastUsed = now;
+        }
+      }
+      for (Entry entry : added) {
+        entry.lastUsed = now;
+        cache.entries.put(entry.key, entry);
+      }
+
+      List<Entry> recentFirst = new ArrayList<>(cache.entries.values());
+      recentFirst.sort(Comparator.comparingLong((Entry e) -> e.lastUsed).reversed());
+      Gson gson = new Gson();
+      List<String> lines = new ArrayList<>();
+      cache.bytes = 0;
+      for (Entry entry : recentFirst) {
+        String line = gson.toJson(entry);
+        if (cache.evicted > 0 || cache.bytes + line.length() + 1 > maxBytes) {
+          cache.entries.remove(entry.key);
+          cache.evicted++;
+        } else {
+          lines.add(line);
+          cache.bytes += line.length() + 1;
+        }
+      }
+
+      File tmp = new File(file.getPath() + ".tmp");
+      try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+        for (int i = lines.size() - 1; i >= 0; i--) {
+          writer.write(lines.get(i));
+          writer.write('\n');
+        }
+      }
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      return cache;
+    }
+  }
+
+  Set<String> keys() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+
+  Entry get(String key) {
+    return entries.get(key);
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Entries evicted by the last {@link #update}.
+   */
+  int getEvicted() {
+    return evicted;
+  }
+}
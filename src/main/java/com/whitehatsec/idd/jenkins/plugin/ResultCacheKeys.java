@@ -0,0 +1,71 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.google.gson.JsonObject;
+
+import hudson.Util;
+
+/**
+ * Identity of a HAR request in the {@link ResultCache}. The endpoint is the method, the host after host mapping and
+ * the path template; the key adds the parameter names, the attack modules, the severity filter and the application
+ * version, so a new application version or a different set of attack modules attacks every endpoint again.
+ */
+class ResultCacheKeys {
+  private final Map<String, String> hosts = new HashMap<>();
+  private final Set<String> excludedParameters;
+  private final String scope;
+
+  ResultCacheKeys(List<HostMapping> hostMapping, Collection<String> excludedParameters, Collection<String> attackModules,
+      String filterOnSeverity, String appVersion) {
+    if (hostMapping != null) {
+      for (HostMapping hm : hostMapping) {
+        if (hm.isEnable() && hm.getFrom() != null && hm.getTo() != null) {
+          hosts.put(hm.getFrom().trim().toLowerCase(Locale.ENGLISH), hm.getTo().trim());
+        }
+      }
+    }
+    this.excludedParameters = excludedParameters == null ? Collections.<String>emptySet() : new HashSet<>(excludedParameters);
+    TreeSet<String> modules = attackModules == null ? new TreeSet<>() : new TreeSet<>(attackModules);
+    this.scope = appVersion + "\n" + modules + "\n" + filterOnSeverity + "\n";
+  }
+
+  static ResultCacheKeys of(Configuration config, String appVersion) {
+    return new ResultCacheKeys(config.getHosts(), config.getExcludedParameters(), config.getAttackModules(), config.getFilterOnSeverity(),
+        appVersion);
+  }
+
+  String endpoint(String method, String url) {
+    URI uri;
+    try {
+      uri = new URI(url);
+    } catch (Exception e) {
+      return method.toUpperCase(Locale.ENGLISH) + " " + url;
+    }
+    String host = HarEntries.host(uri);
+    String mapped = hosts.get(host.toLowerCase(Locale.ENGLISH));
+    return method.toUpperCase(Locale.ENGLISH) + " " + uri.getScheme() + "://" + (mapped != null ? mapped : host)
+        + HarEntries.pathTemplate(uri.getPath());
+  }
+
+  String endpoint(JsonObject entry) {
+    return endpoint(HarEntries.method(entry), HarEntries.url(entry));
+  }
+
+  String key(JsonObject entry) {
+    MessageDigest md = Digests.sha256();
+    md.update((scope + endpoint(entry) + " " + HarEntries.parameterNames(entry, excludedParameters)).getBytes(StandardCharsets.UTF_8));
+    return Util.toHexString(md.digest());
+  }
+}
@@ -0,0 +1,129 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import hudson.model.Job;
+import hudson.model.TaskListener;
+
+/**
+ * The {@link ResultCache} as used by one build step: which endpoints the pre-filter dropped as cached and which it
+ * left to scan, so their findings can be reported and cached afterwards.
+ */
+class ResultCacheUse {
+  final ResultCache cache;
+  final String appVersion;
+  final Map<String, FilterStats> stats = new HashMap<>();
+  private final File file;
+  private final ResultCacheKeys keys;
+
+  ResultCacheUse(ResultCache cache, String appVersion, Job<?, ?> job, ResultCacheKeys keys) {
+    this.cache = cache;
+    this.appVersion = appVersion;
+    this.file = ResultCache.cacheFile(job);
+    this.keys = keys;
+  }
+
+  void reportHits(TaskListener listener) {
+    long hits = 0;
+    long misses = 0;
+    for (FilterStats s : stats.values()) {
+      hits += s.getCached();
+      misses += s.getKeptKeys().size();
+    }
+    long total = hits + misses;
+    listener.getLogger().println("result cache: " + hits + " hits, " + misses + " misses"
+        + (total > 0 ? ", hit rate " + hits * 100 / total + "%" : ""));
+  }
+
+  /**
+   * Caches the findings of the endpoints scanned by the successful scans, appends the cached findings of the
+   * endpoints that were not scanned to the findings of the build and returns their counts per HAR file.
+   *
+   * @param baseline accepted findings, applied to the cached findings, or {@code null}
+   * @param failOnSeverity severity of the findings the scanner exits non-zero for
+   */
+  Map<String, FindingCounts> update(List<ScanResult> results, FindingsAction findingsAction, Baseline baseline,
+      Severity failOnSeverity, long maxBytes, TaskListener listener) throws IOException {
+    Set<String> scanned = new HashSet<>();
+    int failed = 0;
+    for (ScanResult result : results) {
+      if (!stats.containsKey(result.getHar().getName())) {
+        continue;
+      }
+      if (isComplete(result, failOnSeverity)) {
+        scanned.add(result.getHar().getName());
+      } else if (!result.isCancelled()) {
+        failed++;
+      }
+    }
+    if (failed > 0) {
+      listener.getLogger().println("result cache: findings of " + failed + " scans that did not succeed are not cached");
+    }
+
+    List<ResultCache.Entry> added = new ArrayList<>();
+    Map<String, List<Finding>> scannedFindings = findingsAction.readFindings(scanned);
+    for (String harName : scanned) {
+      Map<String, List<Finding>> byEndpoint = new HashMap<>();
+      for (Finding finding : scannedFindings.getOrDefault(harName, new ArrayList<>())) {
+        byEndpoint.computeIfAbsent(keys.endpoint(finding.getMethod(), finding.getUrl()), e -> new ArrayList<>()).add(finding);
+      }
+      for (Map.Entry<String, String> kept : stats.get(harName).getKeptKeys().entrySet()) {
+        added.add(new ResultCache.Entry(kept.getKey(), kept.getValue(), byEndpoint.getOrDefault(kept.getValue(), new ArrayList<>())));
+      }
+    }
+
+    Map<String, FindingCounts> cachedCounts = new TreeMap<>();
+    List<Finding> cachedFindings = new ArrayList<>();
+    Set<String> hits = new HashSet<>();
+    for (FilterStats s : stats.values()) {
+      FindingCounts counts = new FindingCounts();
+      for (String key : s.getCachedKeys()) {
+        ResultCache.Entry entry = cache.get(key);
+        if (entry == null) {
+          continue;
+        }
+        hits.add(key);
+        for (Finding finding : entry.getFindings()) {
+          Finding forHar = finding.forHar(s.getHarName());
+          if (baseline != null) {
+            baseline.apply(forHar);
+          }
+          counts.add(forHar);
+          cachedFindings.add(forHar);
+        }
+      }
+      if (!s.getCachedKeys().isEmpty()) {
+        cachedCounts.put(s.getHarName(), counts);
+      }
+    }
+    findingsAction.appendFindings(cachedFindings);
+
+    ResultCache updated = ResultCache.update(file, hits, added, maxBytes);
+    listener.getLogger().println("result cache: " + added.size() + " endpoints added, " + updated.getEvicted() + " evicted, "
+        + updated.size() + " endpoints, " + updated.getBytes() / 1024 + " KB");
+    return cachedCounts;
+  }
+
+  /**
+   * Whether the scan got through every endpoint, so that an endpoint without findings has none: it succeeded, or only
+   * exited non-zero for findings at Fail on Severity. A scan that timed out, was killed or failed otherwise may not
+   * have attacked every endpoint it was given.
+   */
+  static boolean isComplete(ScanResult result, Severity failOnSeverity) {
+    FindingCounts findings = result.getFindings();
+    if (result.isCancelled() || findings == null) {
+      return false;
+    }
+    // exit codes from 128 up are those of a process killed by a signal, e.g. by the Scan Timeout
+    return result.isSuccess() || (result.getExitCode() > 0 && result.getExitCode() < 128
+        && findings.getCountAtLeast(failOnSeverity) + findings.getSuppressedAtLeast(failOnSeverity) > 0);
+  }
+}
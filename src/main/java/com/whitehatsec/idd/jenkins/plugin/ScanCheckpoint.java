@@ -0,0 +1,103 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.TaskListener;
+
+/**
+ * Manifest of the HAR files completed by an interrupted scan of a HAR Source, kept in the workspace so that the
+ * next attempt, a pipeline {@code retry} or the next build, only scans the HAR files that are left.
+ * The manifest is rewritten after each scanner invocation and deleted once every HAR file was scanned.
+ */
+class ScanCheckpoint {
+  static final String CHECKPOINT_DIR = ".idd-checkpoint";
+
+  private final transient FilePath file;
+  private final String harSource;
+  private final String settingsDigest;
+  private final Map<String, ScanIndexAction.Entry> completed = new TreeMap<>();
+
+  private ScanCheckpoint(FilePath file, String harSource, String settingsDigest) {
+    this.file = file;
+    this.harSource = harSource;
+    this.settingsDigest = settingsDigest;
+  }
+
+  static FilePath manifestFile(FilePath workspace, String harSource) {
+    return workspace.child(CHECKPOINT_DIR).child(Util.getDigestOf(harSource).substring(0, 12) + ".json");
+  }
+
+  /**
+   * Loads the checkpoint left by an interrupted scan of the same HAR Source with the same settings,
+   * or starts a new one.
+   */
+  static ScanCheckpoint load(FilePath workspace, String harSource, String settingsDigest, TaskListener listener)
+      throws IOException, InterruptedException {
+    FilePath file = manifestFile(workspace, harSource);
+    ScanCheckpoint checkpoint = new ScanCheckpoint(file, harSource, settingsDigest);
+    file.getParent().mkdirs();
+    if (!file.exists()) {
+      return checkpoint;
+    }
+    try {
+      ScanCheckpoint previous = new Gson().fromJson(file.readToString(), ScanCheckpoint.class);
+      if (previous != null && harSource.equals(previous.harSource) && settingsDigest != null
+          && settingsDigest.equals(previous.settingsDigest)) {
+        checkpoint.completed.putAll(previous.completed);
+        listener.getLogger().println("resume interrupted scan, " + checkpoint.completed.size() + " HAR files completed before");
+      } else {
+        listener.getLogger().println("ignore checkpoint " + file.getRemote() + ", HAR Source or settings changed");
+      }
+    } catch (JsonParseException e) {
+      listener.getLogger().println("ignore unreadable checkpoint " + file.getRemote() + ": " + e.getMessage());
+    }
+    return checkpoint;
+  }
+
+  /**
+   * Returns the entry of a HAR file that was scanned successfully before the interruption and did not change since.
+   */
+  synchronized ScanIndexAction.Entry completed(HarFile har) {
+    ScanIndexAction.Entry entry = completed.get(har.getName());
+    if (entry == null || entry.getExitCode() != 0 || entry.getDigest() == null || !entry.getDigest().equals(har.getDigest())) {
+      return null;
+    }
+    return entry;
+  }
+
+  synchronized Map<String, ScanIndexAction.Entry> getCompleted() {
+    return Collections.unmodifiableMap(new TreeMap<>(completed));
+  }
+
+  /**
+   * Adds the finished scans and rewrites the manifest. Shards are left out, a sharded HAR file is only
+   * complete once all its shards are.
+   */
+  synchronized List<ScanResult> record(List<ScanResult> results, int buildNumber) throws IOException, InterruptedException {
+    for (ScanResult result : results) {
+      if (result.isCancelled() || result.getHar().isShard()) {
+        continue;
+      }
+      completed.put(result.getHar().getName(), new ScanIndexAction.Entry(result.getHar().getDigest(), result.getExitCode(),
+          result.getDurationMillis(), result.isBatch(), buildNumber, result.getFindings()));
+    }
+    FilePath tmp = file.sibling(file.getName() + ".tmp");
+    tmp.write(new Gson().toJson(this), StandardCharsets.UTF_8.name());
+    tmp.renameTo(file);
+    return results;
+  }
+
+  void delete() throws IOException, InterruptedException {
+    file.delete();
+  }
+}
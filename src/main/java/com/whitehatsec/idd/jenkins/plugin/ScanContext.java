@@ -0,0 +1,173 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Proc;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+/**
+ * Per-build state shared by the scans of one {@link WhiteHatIDDBuilder} step.
+ */
+class ScanContext {
+  final Run<?, ?> run;
+  final FilePath workspace;
+  final Launcher launcher;
+  final EnvVars env;
+  /** Settings of the scans, switched between module passes. */
+  volatile String settingsPath;
+  final FilePath scratchDir;
+  final FindingsAction findings;
+  final TaskListener listener;
+  /** Baseline file on the agent, or {@code null} when no findings are suppressed. Set before the scans start. */
+  String baselinePath;
+  private final AtomicInteger invocations = new AtomicInteger();
+  private final AtomicInteger outputLogs = new AtomicInteger();
+  private File outputDir;
+  private final Set<Proc> running = new HashSet<>();
+  private final Set<Future<?>> submitted = new HashSet<>();
+  /** Volatile, as {@link HostThrottle} reads it while holding its own lock rather than this one. */
+  private volatile String cancelReason;
+  private final List<ResourceEvent> events = new ArrayList<>();
+  /** Whether the scanner accepts several HAR files per invocation, {@code null} until a batch showed it. */
+  private Boolean batchSupported;
+
+  ScanContext(Run<?, ?> run, FilePath workspace, Launcher launcher, EnvVars env, String settingsPath, FilePath scratchDir,
+      FindingsAction findings, TaskListener listener) {
+    this.run = run;
+    this.workspace = workspace;
+    this.launcher = launcher;
+    this.env = env;
+    this.settingsPath = settingsPath;
+    this.scratchDir = scratchDir;
+    this.findings = findings;
+    this.listener = listener;
+  }
+
+  /**
+   * Controller-side file receiving the gzip-compressed output of the next scanner invocation.
+   */
+  synchronized File nextOutputLog(String label) throws IOException {
+    if (outputDir == null) {
+      outputDir = Files.createTempDirectory("idd-output").toFile();
+    }
+    return new File(outputDir, outputLogs.incrementAndGet() + "-" + label.replaceAll("[^A-Za-z0-9._-]", "_") + ".log.gz");
+  }
+
+  synchronized File getOutputDir() {
+    return outputDir;
+  }
+
+  /**
+   * Starts the scanner unless the scans were cancelled, in which case {@code null} is returned.
+   */
+  synchronized Proc start(Launcher.ProcStarter starter) throws IOException {
+    if (cancelReason != null) {
+      return null;
+    }
+    Proc proc = starter.start();
+    running.add(proc);
+    return proc;
+  }
+
+  synchronized void finished(Proc proc) {
+    running.remove(proc);
+  }
+
+  /**
+   * Submits a scan to the daemon of the agent unless the scans were cancelled, in which case {@code null} is returned.
+   */
+  synchronized Future<Integer> submit(DaemonScan scan) throws IOException {
+    if (cancelReason != null) {
+      return null;
+    }
+    Future<Integer> future = workspace.getChannel().callAsync(scan);
+    submitted.add(future);
+    return future;
+  }
+
+  synchronized void finished(Future<?> future) {
+    submitted.remove(future);
+  }
+
+  /**
+   * Stops queued scans from starting, kills the running processes and interrupts the daemon scans, which closes their
+   * connection to the daemon and so cancels them there.
+   */
+  synchronized void cancel(String reason) throws IOException, InterruptedException {
+    if (cancelReason != null) {
+      return;
+    }
+    cancelReason = reason;
+    listener.getLogger().println("cancel remaining scans: " + reason);
+    for (Proc proc : running) {
+      proc.kill();
+    }
+    running.clear();
+    for (Future<?> future : submitted) {
+      future.cancel(true);
+    }
+    submitted.clear();
+    HostThrottle.wakeUp();
+  }
+
+  synchronized void addEvent(ResourceEvent event) {
+    events.add(event);
+  }
+
+  synchronized List<ResourceEvent> getEvents() {
+    return new ArrayList<>(events);
+  }
+
+  synchronized Boolean getBatchSupported() {
+    return batchSupported;
+  }
+
+  synchronized void setBatchSupported(boolean batchSupported) {
+    this.batchSupported = batchSupported;
+  }
+
+  boolean isCancelled() {
+    return cancelReason != null;
+  }
+
+  String getCancelReason() {
+    return cancelReason;
+  }
+
+  FilePath getFindingsDir() {
+    return scratchDir.child("findings");
+  }
+
+  /**
+   * Directory holding the compressed HAR files of the next scanner invocation, see {@link StageArchives}.
+   */
+  FilePath nextStagingDir() {
+    return scratchDir.child("staged-" + invocations.incrementAndGet());
+  }
+
+  /**
+   * File receiving the CPU times of the next scanner invocation.
+   */
+  FilePath nextTimesFile() {
+    return scratchDir.child("times-" + invocations.incrementAndGet() + ".txt");
+  }
+
+  /**
+   * Findings file of the next scanner invocation, or {@code null} when findings are not collected.
+   */
+  FilePath nextFindingsFile() {
+    return findings == null ? null : getFindingsDir().child("findings-" + invocations.incrementAndGet() + ".json");
+  }
+}
@@ -0,0 +1,342 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import hudson.Util;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+/**
+ * Long-lived scanner process on an agent, shared by the builds running there, so that attack modules are
+ * loaded once instead of once per scan.
+ * <p>
+ * The daemon is started as {@code directed-dast-common -daemon -port-file <file> -idle-timeout <seconds>}, listens on
+ * a loopback port which it writes to the port file, and speaks one JSON object per line:
+ * <ul>
+ *   <li>{@code {"op":"ping"}} is answered with {@code {"type":"pong"}};</li>
+ *   <li>{@code {"op":"scan","settings":...,"hars":[...],"findings":...}} is answered with any number of
+ *   {@code {"type":"output","line":...}} followed by {@code {"type":"exit","code":...}}. Closing the connection
+ *   cancels the scan;</li>
+ *   <li>{@code {"op":"shutdown"}} stops the daemon.</li>
+ * </ul>
+ * Before each scan the daemon is pinged and restarted if it does not answer. A daemon started here that stays unused
+ * for the idle timeout is shut down, in case it does not do so on its own.
+ * <p>
+ * Port files are kept in a directory of the agent only its user may use, see {@link #daemonDir(File)}, and a port file
+ * of another user is never trusted. The daemon is started with the environment of the build that starts it, without the
+ * variables describing that build, see {@link #daemonEnv(Map)}. Builds whose environment otherwise differs, or which
+ * shut the daemon down after another idle timeout, get a daemon and port file of their own.
+ */
+class ScanDaemon {
+  static final int CONNECT_TIMEOUT_MILLIS = 5000;
+  static final long START_TIMEOUT_MILLIS = 60000;
+  static final int POLL_MILLIS = 1000;
+
+  /** Variables Jenkins sets for each build, which a daemon shared by several builds does not get. */
+  static final List<String> BUILD_VARIABLES = Arrays.asList("WORKSPACE", "WORKSPACE_TMP", "EXECUTOR_NUMBER", "NODE_NAME",
+      "NODE_LABELS", "BRANCH_NAME", "STAGE_NAME", "JENKINS_SERVER_COOKIE", "HUDSON_SERVER_COOKIE", "HUDSON_COOKIE");
+  static final List<String> BUILD_VARIABLE_PREFIXES = Arrays.asList("BUILD_", "JOB_", "RUN_", "GIT_", "CHANGE_");
+
+  private static final Map<File, ScanDaemon> DAEMONS = new HashMap<>();
+  private static final ScheduledExecutorService IDLE = Executors.newSingleThreadScheduledExecutor(
+      new NamingThreadFactory(new DaemonThreadFactory(), "WhiteHat IDD daemon idle shutdown"));
+
+  private final List<String> command;
+  private final Map<String, String> env;
+  private final File portFile;
+  private final long idleTimeoutMillis;
+  private Process process;
+  private int busy;
+  private ScheduledFuture<?> idleShutdown;
+
+  ScanDaemon(List<String> command, Map<String, String> env, File portFile, long idleTimeoutMillis) {
+    this.command = command;
+    this.env = new HashMap<>(env);
+    this.portFile = portFile;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+  }
+
+  /**
+   * Command line starting the daemon of the scanner installed in {@code iddHome}.
+   */
+  static List<String> command(String iddHome, File portFile, long idleTimeoutMillis) {
+    List<String> command = new ArrayList<>();
+    command.add(new File(iddHome, "target/directed-dast-common").getPath());
+    command.add("-daemon");
+    command.add("-port-file");
+    command.add(portFile.getPath());
+    command.add("-idle-timeout");
+    command.add(String.valueOf(idleTimeoutMillis / 1000));
+    return command;
+  }
+
+  /**
+   * Environment of a daemon started by a build with this environment.
+   */
+  static Map<String, String> daemonEnv(Map<String, String> env) {
+    Map<String, String> daemonEnv = new TreeMap<>();
+    for (Map.Entry<String, String> e : env.entrySet()) {
+      if (!BUILD_VARIABLES.contains(e.getKey()) && BUILD_VARIABLE_PREFIXES.stream().noneMatch(e.getKey()::startsWith)) {
+        daemonEnv.put(e.getKey(), e.getValue());
+      }
+    }
+    return daemonEnv;
+  }
+
+  /**
+   * Port file of the daemon of the scanner installed in {@code iddHome}, distinct for each daemon environment and idle
+   * timeout, so that a build never submits its scans to a daemon started with another one.
+   */
+  static File portFile(File daemonDir, String iddHome, Map<String, String> daemonEnv, long idleTimeoutMillis) {
+    StringBuilder key = new StringBuilder(iddHome).append('\n').append(idleTimeoutMillis);
+    for (Map.Entry<String, String> e : new TreeMap<>(daemonEnv).entrySet()) {
+      key.append('\n').append(e.getKey()).append('=').append(e.getValue());
+    }
+    return new File(daemonDir, "idd-daemon-" + Util.getDigestOf(key.toString()).substring(0, 12) + ".port");
+  }
+
+  /**
+   * Creates the directory of the port files, accessible by the agent user only, and checks that it belongs to that
+   * user.
+   */
+  static File daemonDir(File dir) throws IOException {
+    Path path = dir.toPath();
+    if (!Files.isDirectory(path)) {
+      Files.createDirectories(path);
+      if (isPosix(path)) {
+        Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rwx------"));
+      }
+    }
+    if (!isOwned(path)) {
+      throw new IOException(dir + " belongs to another user, cannot keep IDD daemon port files there");
+    }
+    return dir;
+  }
+
+  private static boolean isPosix(Path path) {
+    return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+  }
+
+  /**
+   * Whether the file belongs to the user of this JVM. Only checked where file permissions are POSIX.
+   */
+  static boolean isOwned(Path path) throws IOException {
+    if (!isPosix(path)) {
+      return true;
+    }
+    UserPrincipal user = path.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+    return Files.getOwner(path).equals(user);
+  }
+
+  /**
+   * Returns the daemon for this port file, reusing one that is already running on the machine.
+   */
+  static synchronized ScanDaemon get(List<String> command, Map<String, String> env, File portFile, long idleTimeoutMillis) {
+    return DAEMONS.computeIfAbsent(portFile, f -> new ScanDaemon(command, env, f, idleTimeoutMillis));
+  }
+
+  /**
+   * Runs a scan on the daemon, starting or restarting it if it does not answer, and copies its output to {@code out}.
+   */
+  int scan(String settingsPath, List<String> harPaths, String findingsPath, OutputStream out, PrintStream log)
+      throws IOException, InterruptedException {
+    int port = acquire(log);
+    try {
+      JsonObject request = new JsonObject();
+      request.addProperty("op", "scan");
+      request.addProperty("settings", settingsPath);
+      request.add("hars", new Gson().toJsonTree(harPaths));
+      if (findingsPath != null) {
+        request.addProperty("findings", findingsPath);
+      }
+      try (Socket socket = connect(port, POLL_MILLIS)) {
+        send(socket, request);
+        InputStream in = new BufferedInputStream(socket.getInputStream());
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+          int b;
+          try {
+            b = in.read();
+          } catch (SocketTimeoutException e) {
+            // closing the connection on interrupt cancels the scan in the daemon
+            if (Thread.interrupted()) {
+              throw new InterruptedException("IDD daemon scan interrupted");
+            }
+            continue;
+          }
+          if (b == -1) {
+            throw new IOException("IDD daemon closed the connection before the scan finished");
+          }
+          if (b != '\n') {
+            line.write(b);
+            continue;
+          }
+          JsonObject message = new Gson().fromJson(new String(line.toByteArray(), StandardCharsets.UTF_8), JsonObject.class);
+          line.reset();
+          String type = message.has("type") ? message.get("type").getAsString() : "";
+          if ("output".equals(type)) {
+            out.write((message.get("line").getAsString() + "\n").getBytes(StandardCharsets.UTF_8));
+          } else if ("exit".equals(type)) {
+            out.flush();
+            return message.get("code").getAsInt();
+          }
+        }
+      }
+    } finally {
+      release();
+    }
+  }
+
+  boolean ping(int port) {
+    JsonObject request = new JsonObject();
+    request.addProperty("op", "ping");
+    try (Socket socket = connect(port, CONNECT_TIMEOUT_MILLIS)) {
+      send(socket, request);
+      String line = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+      return line != null && "pong".equals(new Gson().fromJson(line, JsonObject.class).get("type").getAsString());
+    } catch (IOException|RuntimeException e) {
+      return false;
+    }
+  }
+
+  synchronized void shutdown() {
+    int port = readPort();
+    if (port > 0) {
+      JsonObject request = new JsonObject();
+      request.addProperty("op", "shutdown");
+      try (Socket socket = connect(port, CONNECT_TIMEOUT_MILLIS)) {
+        send(socket, request);
+      } catch (IOException e) {
+        // already gone
+      }
+    }
+    if (process != null) {
+      process.destroy();
+      process = null;
+    }
+    portFile.delete();
+  }
+
+  private synchronized int acquire(PrintStream log) throws IOException, InterruptedException {
+    busy++;
+    if (idleShutdown != null) {
+      idleShutdown.cancel(false);
+      idleShutdown = null;
+    }
+    try {
+      int port = readPort();
+      if (port > 0 && ping(port)) {
+        return port;
+      }
+      if (port > 0) {
+        log.println("IDD daemon on port " + port + " does not answer, restart it");
+      }
+      return start(log);
+    } catch (IOException|InterruptedException|RuntimeException e) {
+      release();
+      throw e;
+    }
+  }
+
+  private synchronized void release() {
+    busy--;
+    if (busy == 0 && process != null) {
+      idleShutdown = IDLE.schedule(this::shutdownIfIdle, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private synchronized void shutdownIfIdle() {
+    if (busy == 0) {
+      shutdown();
+    }
+  }
+
+  private int start(PrintStream log) throws IOException, InterruptedException {
+    if (process != null) {
+      process.destroyForcibly();
+    }
+    portFile.delete();
+    log.println("start IDD daemon: " + String.join(" ", command));
+    ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true)
+        .redirectOutput(new File(portFile.getPath() + ".log"));
+    builder.environment().putAll(env);
+    process = builder.start();
+    long deadline = System.currentTimeMillis() + START_TIMEOUT_MILLIS;
+    while (System.currentTimeMillis() < deadline) {
+      if (!process.isAlive()) {
+        throw new IOException("IDD daemon exited with " + process.exitValue() + ", see " + portFile.getPath() + ".log");
+      }
+      int port = readPort();
+      if (port > 0 && ping(port)) {
+        log.println("IDD daemon listening on port " + port);
+        return port;
+      }
+      Thread.sleep(200);
+    }
+    process.destroyForcibly();
+    process = null;
+    throw new IOException("IDD daemon did not start within " + START_TIMEOUT_MILLIS / 1000 + " seconds");
+  }
+
+  private int readPort() {
+    try {
+      if (!portFile.isFile() || !isOwned(portFile.toPath())) {
+        return -1;
+      }
+      return Integer.parseInt(new String(Files.readAllBytes(portFile.toPath()), StandardCharsets.UTF_8).trim());
+    } catch (IOException|NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static Socket connect(int port, int readTimeoutMillis) throws IOException {
+    Socket socket = new Socket();
+    try {
+      socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+      socket.setSoTimeout(readTimeoutMillis);
+      return socket;
+    } catch (IOException e) {
+      socket.close();
+      throw e;
+    }
+  }
+
+  private static void send(Socket socket, JsonObject request) throws IOException {
+    Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+    writer.write(request.toString());
+    writer.write('\n');
+    writer.flush();
+  }
+}
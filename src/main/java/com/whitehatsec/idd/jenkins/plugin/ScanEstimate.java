@@ -0,0 +1,113 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Expected scan times of HAR files. A HAR file scanned by an earlier build with the same digest is expected to take
+ * as long as it did then. Other HAR files are estimated from their {@link HarProfile}, at the average time per
+ * in-scope endpoint of the HAR files with both a recorded duration and a profile. Without such HAR files nothing is
+ * known in milliseconds and HAR files are only ranked, by their in-scope endpoints and then their payload bytes.
+ */
+final class ScanEstimate {
+  private final Map<String, HarProfile> profiles;
+  private final Map<String, Long> recorded = new HashMap<>();
+  private final List<HostMapping> hostMapping;
+  private final Collection<String> allowedHosts;
+  private final double millisPerEndpoint;
+
+  /**
+   * @param profiles profiles by digest, of the HAR files to scan and as many earlier ones as known
+   * @param previousIndex index of an earlier build, or {@code null}
+   */
+  ScanEstimate(List<HarFile> hars, Map<String, HarProfile> profiles, ScanIndexAction previousIndex, List<HostMapping> hostMapping,
+      Collection<String> allowedHosts) {
+    this.profiles = profiles;
+    this.hostMapping = hostMapping;
+    this.allowedHosts = allowedHosts;
+    long knownMillis = 0;
+    long knownEndpoints = 0;
+    if (previousIndex != null) {
+      for (ScanIndexAction.Entry entry : previousIndex.getEntries().values()) {
+        HarProfile profile = entry.getDigest() == null ? null : profiles.get(entry.getDigest());
+        if (profile != null && entry.getExitCode() == 0 && entry.getDurationMillis() > 0) {
+          knownMillis += entry.getDurationMillis();
+          knownEndpoints += profile.inScope(hostMapping, allowedHosts).getEndpoints();
+        }
+      }
+      for (HarFile har : hars) {
+        ScanIndexAction.Entry entry = previousIndex.getEntry(har.getName());
+        if (entry != null && entry.getExitCode() == 0 && entry.getDurationMillis() > 0 && entry.getDigest() != null
+            && entry.getDigest().equals(har.getDigest())) {
+          recorded.put(har.getName(), entry.getDurationMillis());
+        }
+      }
+    }
+    this.millisPerEndpoint = knownEndpoints > 0 ? (double) knownMillis / knownEndpoints : 0;
+  }
+
+  HarProfile.Scope scope(HarFile har) {
+    HarProfile profile = profiles.get(har.getDigest());
+    return profile == null ? new HarProfile.Scope() : profile.inScope(hostMapping, allowedHosts);
+  }
+
+  /**
+   * Expected scan time of the HAR file or shard in milliseconds, or -1 when unknown.
+   */
+  long expectedMillis(HarFile har) {
+    Long duration = recorded.get(har.getName());
+    if (duration == null && (millisPerEndpoint <= 0 || !profiles.containsKey(har.getDigest()))) {
+      return -1;
+    }
+    long millis = duration != null ? duration : Math.round(scope(har).getEndpoints() * millisPerEndpoint);
+    return millis / Math.max(1, har.getShardCount());
+  }
+
+  /**
+   * HAR files by decreasing expected scan time, so the pool starts the longest scans first and the short ones fill
+   * in at the end.
+   */
+  List<HarFile> longestFirst(List<HarFile> hars) {
+    List<HarFile> sorted = new ArrayList<>(hars);
+    sorted.sort(Comparator.comparingLong(this::rank).thenComparingLong(har -> scope(har).getPayloadBytes()).reversed()
+        .thenComparing(HarFile::getName).thenComparingInt(HarFile::getShard));
+    return sorted;
+  }
+
+  private long rank(HarFile har) {
+    long millis = expectedMillis(har);
+    return millis >= 0 ? millis : scope(har).getEndpoints() / Math.max(1, har.getShardCount());
+  }
+
+  /**
+   * Expected wall time of scanning the batches in order on {@code parallelism} workers, each taking the next batch
+   * when it is done, or -1 when the time of a HAR file is unknown.
+   */
+  long expectedMillis(List<List<HarFile>> batches, int parallelism) {
+    PriorityQueue<Long> workers = new PriorityQueue<>();
+    for (int i = 0; i < Math.max(1, Math.min(parallelism, batches.size())); i++) {
+      workers.add(0L);
+    }
+    for (List<HarFile> batch : batches) {
+      long batchMillis = 0;
+      for (HarFile har : batch) {
+        long millis = expectedMillis(har);
+        if (millis < 0) {
+          return -1;
+        }
+        batchMillis += millis;
+      }
+      workers.add(workers.poll() + batchMillis);
+    }
+    long total = 0;
+    for (long millis : workers) {
+      total = Math.max(total, millis);
+    }
+    return total;
+  }
+}
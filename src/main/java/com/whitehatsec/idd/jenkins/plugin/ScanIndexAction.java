@@ -0,0 +1,139 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+
+/**
+ * Content-hash index of the HAR files scanned by a build, keyed by HAR name relative to the HAR Source.
+ * A later build skips HAR files whose digest and effective settings digest match the index of the
+ * last successful build.
+ */
+public class ScanIndexAction extends InvisibleAction {
+  private final String harSource;
+  private final String settingsDigest;
+  private final Map<String, Entry> entries = new TreeMap<>();
+
+  public ScanIndexAction(String harSource, String settingsDigest) {
+    this.harSource = harSource;
+    this.settingsDigest = settingsDigest;
+  }
+
+  public String getHarSource() {
+    return harSource;
+  }
+
+  public String getSettingsDigest() {
+    return settingsDigest;
+  }
+
+  public Map<String, Entry> getEntries() {
+    return Collections.unmodifiableMap(entries);
+  }
+
+  public Entry getEntry(String harName) {
+    return entries.get(harName);
+  }
+
+  /**
+   * Returns the entry recorded for this HAR file if neither its content nor the settings changed since.
+   */
+  public Entry unchanged(HarFile har, String currentSettingsDigest) {
+    if (settingsDigest == null || !settingsDigest.equals(currentSettingsDigest)) {
+      return null;
+    }
+    Entry entry = entries.get(har.getName());
+    if (entry == null || entry.getDigest() == null || !entry.getDigest().equals(har.getDigest()) || entry.getExitCode() != 0) {
+      return null;
+    }
+    return entry;
+  }
+
+  public void record(HarFile har, ScanResult result, int buildNumber) {
+    entries.put(har.getName(), new Entry(har.getDigest(), result.getExitCode(), result.getDurationMillis(), result.isBatch(), buildNumber,
+        result.getFindings()));
+  }
+
+  public void carryForward(HarFile har, Entry entry) {
+    entries.put(har.getName(), entry);
+  }
+
+  /**
+   * Adds the index to the build, merged with the index already recorded for the same HAR Source by another
+   * {@code whsIdd} step of the build, such as a parallel branch scanning another shard of the HAR files.
+   * HAR files scanned with different settings are not skipped by the next build.
+   */
+  public static synchronized void addTo(Run<?, ?> run, ScanIndexAction index) {
+    ScanIndexAction existing = forHarSource(run, index.getHarSource());
+    if (existing == null) {
+      run.addAction(index);
+      return;
+    }
+    String digest = existing.settingsDigest != null && existing.settingsDigest.equals(index.settingsDigest) ? existing.settingsDigest : null;
+    ScanIndexAction merged = new ScanIndexAction(index.getHarSource(), digest);
+    merged.entries.putAll(existing.entries);
+    merged.entries.putAll(index.entries);
+    run.removeAction(existing);
+    run.addAction(merged);
+  }
+
+  public static ScanIndexAction forHarSource(Run<?, ?> run, String harSource) {
+    if (run == null) {
+      return null;
+    }
+    for (ScanIndexAction action : run.getActions(ScanIndexAction.class)) {
+      if (action.getHarSource() != null && action.getHarSource().equals(harSource)) {
+        return action;
+      }
+    }
+    return null;
+  }
+
+  public static class Entry {
+    private final String digest;
+    private final int exitCode;
+    private final long durationMillis;
+    private final boolean batch;
+    private final int buildNumber;
+    private final FindingCounts findings;
+
+    public Entry(String digest, int exitCode, long durationMillis, boolean batch, int buildNumber, FindingCounts findings) {
+      this.digest = digest;
+      this.exitCode = exitCode;
+      this.durationMillis = durationMillis;
+      this.batch = batch;
+      this.buildNumber = buildNumber;
+      this.findings = findings;
+    }
+
+    public String getDigest() {
+      return digest;
+    }
+
+    public int getExitCode() {
+      return exitCode;
+    }
+
+    public long getDurationMillis() {
+      return durationMillis;
+    }
+
+    public boolean isBatch() {
+      return batch;
+    }
+
+    /**
+     * Build that actually scanned the HAR file; carried forward entries keep the original build number.
+     */
+    public int getBuildNumber() {
+      return buildNumber;
+    }
+
+    public FindingCounts getFindings() {
+      return findings;
+    }
+  }
+}
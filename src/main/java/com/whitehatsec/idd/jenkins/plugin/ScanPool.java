@@ -0,0 +1,104 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import hudson.model.TaskListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import hudson.util.StreamTaskListener;
+
+/**
+ * Runs batches of HAR scans on a bounded pool. With more than one worker, each batch writes to its own buffer
+ * which is copied to the build log in one piece when the batch ends, so output stays grouped per batch.
+ */
+class ScanPool {
+  interface Scan {
+    List<ScanResult> run(List<HarFile> batch, TaskListener listener) throws IOException, InterruptedException;
+  }
+
+  private final int maxParallelScans;
+  private final TaskListener listener;
+
+  ScanPool(int maxParallelScans, TaskListener listener) {
+    this.maxParallelScans = Math.max(1, maxParallelScans);
+    this.listener = listener;
+  }
+
+  List<ScanResult> scanAll(List<List<HarFile>> batches, Scan scan) throws IOException, InterruptedException {
+    List<ScanResult> results = new ArrayList<>();
+    if (maxParallelScans == 1 || batches.size() <= 1) {
+      for (List<HarFile> batch : batches) {
+        results.addAll(scan.run(batch, listener));
+      }
+      return results;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxParallelScans, batches.size()),
+        new NamingThreadFactory(new DaemonThreadFactory(), "WhiteHat IDD scan"));
+    try {
+      List<Future<List<ScanResult>>> futures = new ArrayList<>();
+      for (List<HarFile> batch : batches) {
+        futures.add(executor.submit(() -> runGroupedScan(batch, scan)));
+      }
+      for (Future<List<ScanResult>> future : futures) {
+        results.addAll(await(future));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  static List<List<HarFile>> partition(List<HarFile> hars, int batchSize) {
+    List<List<HarFile>> batches = new ArrayList<>();
+    int size = Math.max(1, batchSize);
+    for (int i = 0; i < hars.size(); i += size) {
+      batches.add(new ArrayList<>(hars.subList(i, Math.min(i + size, hars.size()))));
+    }
+    return batches;
+  }
+
+  private List<ScanResult> runGroupedScan(List<HarFile> batch, Scan scan) throws IOException, InterruptedException {
+    File buffer = File.createTempFile("idd-scan", ".log");
+    try {
+      try (StreamTaskListener scanListener = new StreamTaskListener(new FileOutputStream(buffer), Charset.defaultCharset())) {
+        return scan.run(batch, scanListener);
+      } finally {
+        synchronized (listener) {
+          Files.copy(buffer.toPath(), listener.getLogger());
+          listener.getLogger().flush();
+        }
+      }
+    } finally {
+      Files.deleteIfExists(buffer.toPath());
+    }
+  }
+
+  private static <T> T await(Future<T> future) throws IOException, InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof InterruptedException) {
+        throw (InterruptedException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.Serializable;
+
+public class ScanResult implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final HarFile har;
+  private final int exitCode;
+  private final long durationMillis;
+  private final boolean batch;
+  private final FindingCounts findings;
+  private final boolean cancelled;
+  private final long cpuMillis;
+
+  public ScanResult(HarFile har, int exitCode, long durationMillis) {
+    this(har, exitCode, durationMillis, false, null);
+  }
+
+  public ScanResult(HarFile har, int exitCode, long durationMillis, boolean batch, FindingCounts findings) {
+    this(har, exitCode, durationMillis, batch, findings, false, -1);
+  }
+
+  private ScanResult(HarFile har, int exitCode, long durationMillis, boolean batch, FindingCounts findings, boolean cancelled,
+      long cpuMillis) {
+    this.har = har;
+    this.exitCode = exitCode;
+    this.durationMillis = durationMillis;
+    this.batch = batch;
+    this.findings = findings;
+    this.cancelled = cancelled;
+    this.cpuMillis = cpuMillis;
+  }
+
+  /**
+   * A scan that was killed or never started because the remaining scans were cancelled.
+   */
+  public static ScanResult cancelled(HarFile har, long durationMillis) {
+    return new ScanResult(har, -1, durationMillis, false, null, true, -1);
+  }
+
+  public ScanResult withCpuMillis(long newCpuMillis) {
+    return new ScanResult(har, exitCode, durationMillis, batch, findings, cancelled, newCpuMillis);
+  }
+
+  public ScanResult withFindings(FindingCounts newFindings) {
+    return new ScanResult(har, exitCode, durationMillis, batch, newFindings, cancelled, cpuMillis);
+  }
+
+  public HarFile getHar() {
+    return har;
+  }
+
+  public String getHarPath() {
+    return har.getPath();
+  }
+
+  public int getExitCode() {
+    return exitCode;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  /**
+   * Whether the HAR file was scanned together with others in one invocation, in which case the duration
+   * is its share of the batch wall time by file size.
+   */
+  public boolean isBatch() {
+    return batch;
+  }
+
+  /**
+   * Findings of this HAR file, or {@code null} when findings are not collected.
+   */
+  public FindingCounts getFindings() {
+    return findings;
+  }
+
+  /**
+   * CPU time of the scanner process, or -1 when it is not known.
+   */
+  public long getCpuMillis() {
+    return cpuMillis;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  public boolean isSuccess() {
+    return exitCode == 0;
+  }
+}
@@ -0,0 +1,42 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+final class SettingsFile {
+  // Gson instances are thread-safe, and building them is not free
+  private static final Gson GSON = new Gson();
+  private static final Gson PRETTY_GSON = new GsonBuilder().setPrettyPrinting().create();
+
+  private SettingsFile() {
+  }
+
+  static Configuration readSettings(File file) throws IOException {
+    try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+      return GSON.fromJson(reader, Configuration.class);
+    }
+  }
+
+  static Configuration parse(String json) {
+    return GSON.fromJson(json, Configuration.class);
+  }
+
+  /**
+   * Settings as written to a settings file.
+   */
+  static String toJson(Configuration config) {
+    return PRETTY_GSON.toJson(config);
+  }
+
+  static void saveSettings(Configuration config, File file) throws IOException {
+    Files.write(file.toPath(), toJson(config).getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -12,4 +12,17 @@ public enum Severity {
   private Severity(String level) {
     this.level = level;
   }
+
+  public static Severity fromLevel(String level) {
+    for (Severity severity : values()) {
+      if (severity.level.equalsIgnoreCase(level) || severity.name().equalsIgnoreCase(level)) {
+        return severity;
+      }
+    }
+    return null;
+  }
+
+  public boolean isAtLeast(Severity other) {
+    return ordinal() <= other.ordinal();
+  }
 }
\ No newline at end of file
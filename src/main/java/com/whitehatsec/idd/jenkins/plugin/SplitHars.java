@@ -0,0 +1,55 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Replaces every HAR file larger than the shard limits with its shards, written under the directory
+ * this callable is invoked on.
+ */
+class SplitHars extends MasterToSlaveFileCallable<List<HarFile>> {
+  private static final long serialVersionUID = 1L;
+
+  private final List<HarFile> hars;
+  private final int maxEntries;
+  private final long maxBytes;
+
+  SplitHars(List<HarFile> hars, int maxEntries, long maxBytes) {
+    this.hars = new ArrayList<>(hars);
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+  }
+
+  @Override
+  public List<HarFile> invoke(File outputDir, VirtualChannel channel) throws IOException, InterruptedException {
+    if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+      throw new IOException("cannot create directory " + outputDir);
+    }
+    HarSplitter splitter = new HarSplitter(maxEntries, maxBytes);
+    List<HarFile> result = new ArrayList<>();
+    for (int i = 0; i < hars.size(); i++) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      HarFile har = hars.get(i);
+      if (maxEntries <= 0 && har.getSize() <= maxBytes) {
+        result.add(har);
+        continue;
+      }
+      List<File> shards = splitter.split(HarArchives.open(har), outputDir, "har-" + (i + 1));
+      if (shards.isEmpty()) {
+        result.add(har);
+      }
+      for (int shard = 0; shard < shards.size(); shard++) {
+        File file = shards.get(shard);
+        result.add(har.withShard(file.getPath(), file.length(), shard + 1, shards.size()));
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,143 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Makes the compressed HAR files of one scanner invocation readable by path under the directory this callable
+ * is invoked on. With {@code namedPipes} on a Unix agent every entry is a named pipe fed from the archive by a
+ * writer thread while the scanner reads it, so nothing is unpacked to disk. Otherwise, or when the pipe cannot
+ * be created, the entry is unpacked to a file, which only lives for the invocation. Plain HAR files are returned
+ * unchanged. {@link Unstage} stops the writers and deletes the directory after the invocation.
+ */
+class StageArchives extends MasterToSlaveFileCallable<List<HarFile>> {
+  private static final long serialVersionUID = 1L;
+
+  private static final Logger LOGGER = Logger.getLogger(StageArchives.class.getName());
+  private static final long WRITER_JOIN_MILLIS = 5000;
+
+  /** Pipe writers by pipe path, in the agent JVM. */
+  private static final Map<String, Thread> WRITERS = new HashMap<>();
+
+  private final List<HarFile> hars;
+  private final boolean namedPipes;
+
+  StageArchives(List<HarFile> hars, boolean namedPipes) {
+    this.hars = new ArrayList<>(hars);
+    this.namedPipes = namedPipes;
+  }
+
+  static boolean anyCompressed(List<HarFile> hars) {
+    return hars.stream().anyMatch(HarFile::isCompressed);
+  }
+
+  @Override
+  public List<HarFile> invoke(File stagingDir, VirtualChannel channel) throws IOException, InterruptedException {
+    if (!stagingDir.isDirectory() && !stagingDir.mkdirs()) {
+      throw new IOException("cannot create directory " + stagingDir);
+    }
+    boolean pipes = namedPipes && File.pathSeparatorChar == ':';
+    List<HarFile> staged = new ArrayList<>();
+    for (int i = 0; i < hars.size(); i++) {
+      HarFile har = hars.get(i);
+      if (!har.isCompressed()) {
+        staged.add(har);
+        continue;
+      }
+      File file = new File(stagingDir, (i + 1) + "-" + baseName(har));
+      if (!pipes || !startWriter(har, file)) {
+        try (InputStream in = HarArchives.open(har)) {
+          Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+      staged.add(har.withPath(file.getPath()));
+    }
+    return staged;
+  }
+
+  private static String baseName(HarFile har) {
+    String name = har.getEntry() != null ? har.getEntry() : new File(har.getPath()).getName();
+    name = name.substring(name.lastIndexOf('/') + 1).replaceAll("[^A-Za-z0-9._-]", "_");
+    return name.endsWith(HarDiscovery.HAR_EXTENSION) ? name : name.substring(0, name.length() - ".gz".length());
+  }
+
+  private static boolean startWriter(HarFile har, File pipe) throws InterruptedException {
+    try {
+      Process mkfifo = new ProcessBuilder("mkfifo", pipe.getPath()).redirectErrorStream(true).start();
+      mkfifo.getOutputStream().close();
+      if (mkfifo.waitFor() != 0 || !pipe.exists()) {
+        return false;
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.FINE, "cannot create named pipe " + pipe, e);
+      return false;
+    }
+    Thread writer = new Thread(() -> {
+      // opening the pipe blocks until the scanner opens it for reading
+      try (InputStream in = HarArchives.open(har); OutputStream out = new FileOutputStream(pipe)) {
+        Util.copyStream(in, out);
+      } catch (IOException e) {
+        // the scanner exited without reading the whole HAR file
+        LOGGER.log(Level.FINE, "stopped writing " + pipe, e);
+      } finally {
+        synchronized (WRITERS) {
+          WRITERS.remove(pipe.getPath());
+        }
+      }
+    }, "IDD HAR pipe " + har.getName());
+    writer.setDaemon(true);
+    synchronized (WRITERS) {
+      WRITERS.put(pipe.getPath(), writer);
+    }
+    writer.start();
+    return true;
+  }
+
+  /**
+   * Stops the pipe writers of the staging directory this callable is invoked on and deletes it.
+   */
+  static class Unstage extends MasterToSlaveFileCallable<Void> {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Void invoke(File stagingDir, VirtualChannel channel) throws IOException, InterruptedException {
+      Map<String, Thread> writers = new HashMap<>();
+      synchronized (WRITERS) {
+        for (Iterator<Map.Entry<String, Thread>> it = WRITERS.entrySet().iterator(); it.hasNext();) {
+          Map.Entry<String, Thread> writer = it.next();
+          if (writer.getKey().startsWith(stagingDir.getPath() + File.separator)) {
+            writers.put(writer.getKey(), writer.getValue());
+            it.remove();
+          }
+        }
+      }
+      for (Map.Entry<String, Thread> writer : writers.entrySet()) {
+        if (writer.getValue().isAlive()) {
+          // a writer still waiting for the scanner is released by opening the pipe, and fails on its next write;
+          // read-write opens of a pipe do not block, even when the writer has just finished
+          new RandomAccessFile(writer.getKey(), "rw").close();
+          writer.getValue().join(WRITER_JOIN_MILLIS);
+        }
+      }
+      Util.deleteRecursive(stagingDir);
+      return null;
+    }
+  }
+}
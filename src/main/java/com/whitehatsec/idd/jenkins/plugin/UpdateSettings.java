@@ -0,0 +1,88 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedList;
+import java.util.List;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Reads the job settings file, merges the builder configuration into it and writes it back when that changed it,
+ * all on the agent owning the workspace. Returns the digest of the effective settings, its attack modules, its allowed hosts and the time of each step.
+ */
+class UpdateSettings extends MasterToSlaveFileCallable<UpdateSettings.Result> {
+  private static final long serialVersionUID = 1L;
+
+  private final List<HostMapping> hosts;
+  private final String filterOnSeverity;
+  private final String failOnSeverity;
+  private final int requestDelay;
+
+  UpdateSettings(List<HostMapping> hosts, String filterOnSeverity, String failOnSeverity) {
+    this(hosts, filterOnSeverity, failOnSeverity, -1);
+  }
+
+  /**
+   * @param requestDelay milliseconds between two requests of the scanner, or -1 to keep the delay of the settings file
+   */
+  UpdateSettings(List<HostMapping> hosts, String filterOnSeverity, String failOnSeverity, int requestDelay) {
+    this.hosts = new LinkedList<>(hosts);
+    this.filterOnSeverity = filterOnSeverity;
+    this.failOnSeverity = failOnSeverity;
+    this.requestDelay = requestDelay;
+  }
+
+  @Override
+  public Result invoke(File settingsFile, VirtualChannel channel) throws IOException, InterruptedException {
+    PhaseTimings timings = new PhaseTimings();
+    long start = System.nanoTime();
+    byte[] current = Files.readAllBytes(settingsFile.toPath());
+    Configuration config = SettingsFile.parse(new String(current, StandardCharsets.UTF_8));
+    start = timings.record(PhaseTimings.READ_SETTINGS, start);
+    config = updateHostMappingSettings(config);
+    start = timings.record(PhaseTimings.UPDATE_HOST_MAPPING, start);
+    byte[] updated = SettingsFile.toJson(config).getBytes(StandardCharsets.UTF_8);
+    String digest = Digests.sha256(updated);
+    // most builds run with unchanged settings, leave the file and its timestamp alone then
+    if (!digest.equals(Digests.sha256(current))) {
+      Files.write(settingsFile.toPath(), updated);
+    }
+    timings.record(PhaseTimings.SAVE_SETTINGS, start);
+    return new Result(digest, timings, config.getAttackModules(), config.getAllowedHosts());
+  }
+
+  Configuration updateHostMappingSettings(Configuration config) {
+    config.setHosts(new LinkedList<HostMapping>(hosts));
+    config.setFilterOnSeverity(filterOnSeverity);
+    config.setFailOnSeverity(failOnSeverity);
+    // no request options mean no delay, leave them out rather than add them with zero retries and timeout
+    if (requestDelay > 0 || requestDelay == 0 && config.getRequestOptions() != null) {
+      if (config.getRequestOptions() == null) {
+        config.setRequestOptions(new RequestOptions());
+      }
+      config.getRequestOptions().setRequestDelay(requestDelay);
+    }
+    return config;
+  }
+
+  static class Result implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final String digest;
+    final PhaseTimings timings;
+    final List<String> attackModules;
+    final List<String> allowedHosts;
+
+    Result(String digest, PhaseTimings timings, List<String> attackModules, List<String> allowedHosts) {
+      this.digest = digest;
+      this.timings = timings;
+      this.attackModules = attackModules == null ? new LinkedList<>() : new LinkedList<>(attackModules);
+      this.allowedHosts = allowedHosts == null ? new LinkedList<>() : new LinkedList<>(allowedHosts);
+    }
+  }
+}
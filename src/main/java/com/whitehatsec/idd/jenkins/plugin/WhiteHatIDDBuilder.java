@@ -1,30 +1,31 @@
 package com.whitehatsec.idd.jenkins.plugin;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Reader;
-import java.io.Writer;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.ServletException;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.EnumUtils;
 import org.jenkinsci.Symbol;
@@ -38,26 +39,59 @@ import hudson.Extension;
 import hudson.FilePath;
 import hudson.Functions;
 import hudson.Launcher;
-import hudson.Plugin;
+import hudson.Proc;
 import hudson.Util;
 import hudson.model.AbstractProject;
+import hudson.model.Computer;
+import hudson.model.Node;
 import hudson.model.Result;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.slaves.WorkspaceList;
+import hudson.remoting.VirtualChannel;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
-import jenkins.model.Jenkins;
+import jenkins.security.MasterToSlaveCallable;
 import jenkins.tasks.SimpleBuildStep;
+import jenkins.util.BuildListenerAdapter;
+import jenkins.util.Timer;
 
 public class WhiteHatIDDBuilder extends Builder implements SimpleBuildStep {
   private String harSource;
   private String filterOnSeverity = DescriptorImpl.defaultFilterOnSeverity;
   private String failOnSeverity = DescriptorImpl.defaultFailOnSeverity;
   private ArrayList<WhiteHatIDDHostMapping> hostMapping;
+  private int maxParallelScans = DescriptorImpl.defaultMaxParallelScans;
+  private boolean forceFullScan;
+  private int batchSize = DescriptorImpl.defaultBatchSize;
+  private boolean preFilterHars;
+  private int shardMaxEntries;
+  private int shardMaxSizeMB;
+  private boolean streamArchives;
+  private boolean collectFindings;
+  private boolean failFast;
+  private int consoleLines = DescriptorImpl.defaultConsoleLines;
+  private boolean resumeInterrupted;
+  private boolean daemonMode;
+  private int daemonIdleMinutes = DescriptorImpl.defaultDaemonIdleMinutes;
+  private List<String> harFiles;
+  private int resultCacheMB;
+  private String appVersion;
+  private boolean perModuleTiming;
+  private int timeBudgetMinutes;
+  private String modulePriority;
+  private String baselineFile;
+  private int scanTimeoutMinutes;
+  private int maxMemoryMB;
+  private int maxCpuPercent;
+  private int maxLoadPercent;
+  private int minFreeMemoryMB;
 
-  private static final String IDD_HOME = "DIRECTED_DAST_HOME";
+  static final String IDD_HOME = "DIRECTED_DAST_HOME";
+  private static final String FINDINGS_FILE_OPTION = "-findings-file";
+  private static final String OUTPUT_ARTIFACT_DIR = "idd-output";
 
   @DataBoundConstructor
   public WhiteHatIDDBuilder(String harSource) {
@@ -81,6 +115,115 @@ public class WhiteHatIDDBuilder extends Builder implements SimpleBuildStep {
     return hostMapping == null ? new ArrayList<WhiteHatIDDHostMapping>() : hostMapping;
   }
 
+  public int getMaxParallelScans() {
+    return maxParallelScans;
+  }
+
+  public boolean isForceFullScan() {
+    return forceFullScan;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public boolean isPreFilterHars() {
+    return preFilterHars;
+  }
+
+  public boolean isStreamArchives() {
+    return streamArchives;
+  }
+
+  public String getBaselineFile() {
+    return baselineFile;
+  }
+
+  public int getResultCacheMB() {
+    return resultCacheMB;
+  }
+
+  public String getAppVersion() {
+    return appVersion;
+  }
+
+  public boolean isPerModuleTiming() {
+    return perModuleTiming;
+  }
+
+  public int getTimeBudgetMinutes() {
+    return timeBudgetMinutes;
+  }
+
+  public String getModulePriority() {
+    return modulePriority;
+  }
+
+  private boolean isModulePasses() {
+    return perModuleTiming || timeBudgetMinutes > 0;
+  }
+
+  public int getShardMaxEntries() {
+    return shardMaxEntries;
+  }
+
+  public int getShardMaxSizeMB() {
+    return shardMaxSizeMB;
+  }
+
+  public boolean isCollectFindings() {
+    return collectFindings;
+  }
+
+  public boolean isFailFast() {
+    return failFast;
+  }
+
+  public boolean isDaemonMode() {
+    return daemonMode;
+  }
+
+  public int getDaemonIdleMinutes() {
+    // 0 for jobs saved before the option existed
+    return daemonIdleMinutes > 0 ? daemonIdleMinutes : DescriptorImpl.defaultDaemonIdleMinutes;
+  }
+
+  public boolean isResumeInterrupted() {
+    return resumeInterrupted;
+  }
+
+  public int getConsoleLines() {
+    return consoleLines;
+  }
+
+  public int getScanTimeoutMinutes() {
+    return scanTimeoutMinutes;
+  }
+
+  public int getMaxMemoryMB() {
+    return maxMemoryMB;
+  }
+
+  public int getMaxCpuPercent() {
+    return maxCpuPercent;
+  }
+
+  public int getMaxLoadPercent() {
+    return maxLoadPercent;
+  }
+
+  public int getMinFreeMemoryMB() {
+    return minFreeMemoryMB;
+  }
+
+  /**
+   * HAR files of the HAR Source directory to scan, by name relative to it, such as a shard returned by
+   * {@code whsIddPartition}; all HAR files when empty.
+   */
+  public List<String> getHarFiles() {
+    return harFiles == null ? Collections.<String>emptyList() : Collections.unmodifiableList(harFiles);
+  }
+
   @DataBoundSetter
   public void setFilterOnSeverity(String filterOnSeverity) {
     this.filterOnSeverity = EnumUtils.isValidEnum(Severity.class, filterOnSeverity.toUpperCase()) ? filterOnSeverity : DescriptorImpl.defaultFilterOnSeverity;
@@ -96,116 +239,942 @@ public class WhiteHatIDDBuilder extends Builder implements SimpleBuildStep {
     this.hostMapping = hostMapping != null ? new ArrayList<WhiteHatIDDHostMapping>(hostMapping) : new ArrayList<WhiteHatIDDHostMapping>();
   }
 
-  private String getSettingsPath(EnvVars env, FilePath ws, TaskListener listener) throws IOException, InterruptedException {
-    String webAppPath = "";
-    Plugin plugin = Jenkins.get().getPlugin("directed-dast");
-    if (plugin != null) {
-      webAppPath = plugin.getWrapper().baseResourceURL.getFile();
+  @DataBoundSetter
+  public void setMaxParallelScans(int maxParallelScans) {
+    this.maxParallelScans = Math.max(0, maxParallelScans);
+  }
+
+  @DataBoundSetter
+  public void setForceFullScan(boolean forceFullScan) {
+    this.forceFullScan = forceFullScan;
+  }
+
+  @DataBoundSetter
+  public void setBatchSize(int batchSize) {
+    this.batchSize = Math.max(0, batchSize);
+  }
+
+  @DataBoundSetter
+  public void setPreFilterHars(boolean preFilterHars) {
+    this.preFilterHars = preFilterHars;
+  }
+
+  @DataBoundSetter
+  public void setStreamArchives(boolean streamArchives) {
+    this.streamArchives = streamArchives;
+  }
+
+  @DataBoundSetter
+  public void setBaselineFile(String baselineFile) {
+    this.baselineFile = Util.fixEmptyAndTrim(baselineFile);
+  }
+
+  @DataBoundSetter
+  public void setResultCacheMB(int resultCacheMB) {
+    this.resultCacheMB = Math.max(0, resultCacheMB);
+  }
+
+  @DataBoundSetter
+  public void setAppVersion(String appVersion) {
+    this.appVersion = Util.fixEmptyAndTrim(appVersion);
+  }
+
+  @DataBoundSetter
+  public void setPerModuleTiming(boolean perModuleTiming) {
+    this.perModuleTiming = perModuleTiming;
+  }
+
+  @DataBoundSetter
+  public void setTimeBudgetMinutes(int timeBudgetMinutes) {
+    this.timeBudgetMinutes = Math.max(0, timeBudgetMinutes);
+  }
+
+  @DataBoundSetter
+  public void setModulePriority(String modulePriority) {
+    this.modulePriority = Util.fixEmptyAndTrim(modulePriority);
+  }
+
+  @DataBoundSetter
+  public void setShardMaxEntries(int shardMaxEntries) {
+    this.shardMaxEntries = Math.max(0, shardMaxEntries);
+  }
+
+  @DataBoundSetter
+  public void setShardMaxSizeMB(int shardMaxSizeMB) {
+    this.shardMaxSizeMB = Math.max(0, shardMaxSizeMB);
+  }
+
+  @DataBoundSetter
+  public void setCollectFindings(boolean collectFindings) {
+    this.collectFindings = collectFindings;
+  }
+
+  @DataBoundSetter
+  public void setFailFast(boolean failFast) {
+    this.failFast = failFast;
+  }
+
+  @DataBoundSetter
+  public void setDaemonMode(boolean daemonMode) {
+    this.daemonMode = daemonMode;
+  }
+
+  @DataBoundSetter
+  public void setDaemonIdleMinutes(int daemonIdleMinutes) {
+    this.daemonIdleMinutes = Math.max(1, daemonIdleMinutes);
+  }
+
+  @DataBoundSetter
+  public void setResumeInterrupted(boolean resumeInterrupted) {
+    this.resumeInterrupted = resumeInterrupted;
+  }
+
+  @DataBoundSetter
+  public void setConsoleLines(int consoleLines) {
+    this.consoleLines = Math.max(0, consoleLines);
+  }
+
+  @DataBoundSetter
+  public void setScanTimeoutMinutes(int scanTimeoutMinutes) {
+    this.scanTimeoutMinutes = Math.max(0, scanTimeoutMinutes);
+  }
+
+  @DataBoundSetter
+  public void setMaxMemoryMB(int maxMemoryMB) {
+    this.maxMemoryMB = Math.max(0, maxMemoryMB);
+  }
+
+  @DataBoundSetter
+  public void setMaxCpuPercent(int maxCpuPercent) {
+    this.maxCpuPercent = Math.max(0, maxCpuPercent);
+  }
+
+  @DataBoundSetter
+  public void setMaxLoadPercent(int maxLoadPercent) {
+    this.maxLoadPercent = Math.max(0, maxLoadPercent);
+  }
+
+  @DataBoundSetter
+  public void setMinFreeMemoryMB(int minFreeMemoryMB) {
+    this.minFreeMemoryMB = Math.max(0, minFreeMemoryMB);
+  }
+
+  @DataBoundSetter
+  public void setHarFiles(List<String> harFiles) {
+    this.harFiles = harFiles == null || harFiles.isEmpty() ? null : new ArrayList<>(harFiles);
+  }
+
+  static String getSettingsPath(EnvVars env, FilePath ws, TaskListener listener) throws IOException, InterruptedException {
+    FilePath destFilePath = ws.child("idd-settings-jenkins-job-" + env.get("JOB_NAME") + ".json");
+    if (destFilePath.exists() && destFilePath.length() > 0) {
+      listener.getLogger().println("settings file " + destFilePath);
+    } else {
+      listener.getLogger().println("write settings template to " + destFilePath);
+      destFilePath.write(WhiteHatIDDGlobalConfiguration.get().getEffectiveSettingsTemplate(), "UTF-8");
+    }
+    return destFilePath.getRemote();
+  }
+
+  List<HostMapping> getHostMappingSettings() {
+    return getHostMappingSettings(getHostMapping());
+  }
+
+  static List<HostMapping> getHostMappingSettings(List<WhiteHatIDDHostMapping> hostMapping) {
+    LinkedHashMap<String, HostMapping> map = new LinkedHashMap<>();
+
+    for (WhiteHatIDDHostMapping hm: hostMapping) {
+      if (StringUtils.isBlank(hm.getFromHost()) || StringUtils.isBlank(hm.getToHost())) {
+        continue;
+      }
+      HostMapping h = new HostMapping();
+      h.setEnable(hm.getEnableHostMapping());
+      h.setFrom(hm.getFromHost());
+      h.setTo(hm.getToHost());
+      map.put(hm.getFromHost(), h);
     }
-    listener.getLogger().println("webapp path " + webAppPath);
+    return new LinkedList<HostMapping>(map.values());
+  }
+
+  /**
+   * Hosts the scans send requests to, which are the New Hosts of the enabled host mappings.
+   */
+  Set<String> getTargetHosts() {
+    return getTargetHosts(getHostMappingSettings());
+  }
+
+  static Set<String> getTargetHosts(List<HostMapping> hostMapping) {
+    Set<String> hosts = new LinkedHashSet<>();
+    for (HostMapping hm : hostMapping) {
+      if (hm.isEnable()) {
+        hosts.add(hm.getTo().trim());
+      }
+    }
+    return hosts;
+  }
 
+  private Invocation invokeIDD(ScanContext ctx, List<HarFile> hars, String label, FilePath findingsFile, TaskListener listener)
+      throws InterruptedException, IOException {
+    List<String> harPaths = hars.stream().map(HarFile::getPath).collect(Collectors.toList());
+    Admission admission = new Admission(maxLoadPercent, minFreeMemoryMB);
+    if (admission.isEnabled()) {
+      ResourceEvent wait = admission.await(ctx, label, listener);
+      if (wait != null) {
+        ctx.addEvent(wait);
+      }
+    }
+    HostThrottle.Permit permit = HostThrottle.acquire(getTargetHosts(), ctx, listener);
+    listener.getLogger().println("execute IDD with harSource: " + String.join(" ", harPaths));
+
+    BoundedConsoleOutputStream boundedOutput = null;
+    Invocation invocation = null;
     try {
-      FilePath srcFilePath = new FilePath(new File(webAppPath, "settings.default.json"));
-      if (srcFilePath.exists()) {
-        listener.getLogger().println("default settings exists " + srcFilePath);
-      } else {
-        listener.getLogger().println("default settings does NOT exist " + srcFilePath);
+      if (consoleLines > 0) {
+        File outputLog = ctx.nextOutputLog(label);
+        boundedOutput = new BoundedConsoleOutputStream(listener.getLogger(), ctx.listener.getLogger(),
+            new GZIPOutputStream(new FileOutputStream(outputLog)), ctx.run.getCharset(), consoleLines, consoleLines, label);
+      }
+      invocation = daemonMode
+          ? invokeDaemon(ctx, harPaths, label, findingsFile, boundedOutput != null ? boundedOutput : listener.getLogger(), listener)
+          : invokeProcess(ctx, harPaths, label, findingsFile, boundedOutput, listener);
+    } finally {
+      if (boundedOutput != null) {
+        boundedOutput.close();
       }
+      // entries are counted in the original HAR files, not in their shards
+      long requests = hars.stream().allMatch(h -> h.getEntries() >= 0 && !h.isShard())
+          ? hars.stream().mapToLong(HarFile::getEntries).sum() : -1;
+      HostThrottle.release(permit, invocation == null ? 0 : invocation.wallMillis, invocation == null ? -1 : requests,
+          boundedOutput == null ? -1 : boundedOutput.getErrorLines(), listener);
+    }
+    if (invocation != null) {
+      listener.getLogger().println("IDD returns exit code: " + invocation.exitCode);
+      return invocation;
+    }
+    listener.getLogger().println("IDD not started, scans were cancelled");
+    return new Invocation(-1, 0, -1);
+  }
 
-      FilePath destFilePath = ws.child("idd-settings-jenkins-job-" + env.get("JOB_NAME") + ".json");
-      if (destFilePath.exists() && destFilePath.length() > 0) {
-        listener.getLogger().println("settings file " + destFilePath);
-      } else {
-        listener.getLogger().println("copy settings " + srcFilePath + " to " + destFilePath);
-        destFilePath.copyFrom(srcFilePath);
+  /**
+   * Runs the scanner within the memory and CPU limits and kills its process tree once it takes longer than the
+   * Scan Timeout of each of its HAR files.
+   */
+  private Invocation invokeProcess(ScanContext ctx, List<String> harPaths, String label, FilePath findingsFile,
+      OutputStream boundedOutput, TaskListener listener) throws InterruptedException, IOException {
+    List<String> argv = new ArrayList<>();
+    argv.add(ctx.env.get(IDD_HOME) + "/target/directed-dast-common");
+    argv.add("-settings-file");
+    argv.add(ctx.settingsPath);
+    if (findingsFile != null) {
+      argv.add(FINDINGS_FILE_OPTION);
+      argv.add(findingsFile.getRemote());
+    }
+    argv.addAll(harPaths);
+
+    Launcher.ProcStarter starter = ctx.launcher.launch().envs(ctx.env).pwd(ctx.workspace);
+    FilePath timesFile = null;
+    if (ctx.launcher.isUnix()) {
+      // report the CPU time of the scanner through the shell builtin times
+      timesFile = ctx.nextTimesFile();
+      starter.cmds(ResourceLimits.wrap(argv, maxMemoryMB, maxCpuPercent, timesFile.getRemote()));
+    } else {
+      if (maxMemoryMB > 0 || maxCpuPercent > 0) {
+        listener.getLogger().println("memory and CPU limits are only applied on Unix agents");
       }
-      return destFilePath.getRemote();
-    } catch (IOException|InterruptedException e) {
+      starter.cmds(argv);
+    }
+
+    long start = System.currentTimeMillis();
+    Proc proc = ctx.start(boundedOutput != null ? starter.stdout(boundedOutput) : starter.stdout(listener));
+    if (proc == null) {
+      return null;
+    }
+    long timeoutMillis = TimeUnit.MINUTES.toMillis(scanTimeoutMinutes) * harPaths.size();
+    AtomicBoolean timedOut = new AtomicBoolean();
+    Future<?> timeout = timeoutMillis <= 0 ? null : Timer.get().schedule(() -> {
+      timedOut.set(true);
+      try {
+        // kills the shell and every process it started, which carry the environment of the build
+        proc.kill();
+      } catch (IOException | InterruptedException e) {
+        Functions.printStackTrace(e, listener.error("cannot kill the scan of " + label));
+      }
+    }, timeoutMillis, TimeUnit.MILLISECONDS);
+    int exitCode;
+    try {
+      exitCode = proc.join();
+    } finally {
+      if (timeout != null) {
+        timeout.cancel(false);
+      }
+      ctx.finished(proc);
+    }
+    long wallMillis = System.currentTimeMillis() - start;
+    if (timedOut.get()) {
+      listener.getLogger().println("IDD timed out after " + Util.getTimeSpanString(wallMillis) + ", killed its processes");
+      ctx.addEvent(new ResourceEvent(ResourceEvent.Type.TIMEOUT, label, wallMillis,
+          "Scan Timeout of " + scanTimeoutMinutes + " minutes per HAR file, " + harPaths.size() + " HAR files"));
+      exitCode = exitCode == 0 ? -1 : exitCode;
+    } else if (timesFile != null && ResourceLimits.isMemoryKill(exitCode, maxMemoryMB)) {
+      listener.getLogger().println("IDD was killed, most likely for using more than " + maxMemoryMB + " MB of memory");
+      ctx.addEvent(new ResourceEvent(ResourceEvent.Type.MEMORY_LIMIT, label, wallMillis,
+          "Max Scanner Memory of " + maxMemoryMB + " MB"));
+    }
+    long cpuMillis = -1;
+    if (timesFile != null && timesFile.exists()) {
+      cpuMillis = Invocation.parseTimes(timesFile.readToString());
+      timesFile.delete();
+    }
+    return new Invocation(exitCode, wallMillis, cpuMillis);
+  }
+
+  /**
+   * Submits the scan to the long-lived scanner of the agent instead of starting a process, and cancels it once it takes
+   * longer than the Scan Timeout of each of its HAR files. The memory and CPU limits and the CPU time of the shared
+   * daemon cannot be attributed to a single scan.
+   */
+  private Invocation invokeDaemon(ScanContext ctx, List<String> harPaths, String label, FilePath findingsFile, OutputStream out,
+      TaskListener listener) throws InterruptedException, IOException {
+    if (maxMemoryMB > 0 || maxCpuPercent > 0) {
+      listener.getLogger().println("memory and CPU limits do not apply to the shared IDD daemon");
+    }
+    long start = System.currentTimeMillis();
+    Future<Integer> scan = ctx.submit(new DaemonScan(ctx.env.get(IDD_HOME), ctx.env, daemonDir(ctx.workspace), ctx.settingsPath,
+        harPaths, findingsFile == null ? null : findingsFile.getRemote(), TimeUnit.MINUTES.toMillis(getDaemonIdleMinutes()), out));
+    if (scan == null) {
+      return null;
+    }
+    long timeoutMillis = TimeUnit.MINUTES.toMillis(scanTimeoutMinutes) * harPaths.size();
+    int exitCode;
+    try {
+      exitCode = timeoutMillis > 0 ? scan.get(timeoutMillis, TimeUnit.MILLISECONDS) : scan.get();
+    } catch (TimeoutException e) {
+      // closes the connection to the daemon, which stops the scan
+      scan.cancel(true);
+      long wallMillis = System.currentTimeMillis() - start;
+      listener.getLogger().println("IDD timed out after " + Util.getTimeSpanString(wallMillis) + ", cancelled its daemon scan");
+      ctx.addEvent(new ResourceEvent(ResourceEvent.Type.TIMEOUT, label, wallMillis,
+          "Scan Timeout of " + scanTimeoutMinutes + " minutes per HAR file, " + harPaths.size() + " HAR files"));
+      exitCode = -1;
+    } catch (CancellationException e) {
+      listener.getLogger().println("IDD daemon scan cancelled");
+      exitCode = -1;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("IDD daemon scan failed", e.getCause());
+    } catch (InterruptedException e) {
+      scan.cancel(true);
       throw e;
+    } finally {
+      ctx.finished(scan);
     }
+    return new Invocation(exitCode, System.currentTimeMillis() - start, -1);
   }
 
-  private String getHarSourcePath(EnvVars env, FilePath ws, TaskListener listener) throws IOException, InterruptedException {
+  /**
+   * Directory of the daemon port files on the agent of the workspace, in the root directory of the agent rather than in
+   * the temporary directory other users share.
+   */
+  private static String daemonDir(FilePath workspace) {
+    Computer computer = workspace.toComputer();
+    Node node = computer == null ? null : computer.getNode();
+    FilePath root = node == null ? null : node.getRootPath();
+    return (root != null ? root : WorkspaceList.tempDir(workspace)).child("idd-daemon").getRemote();
+  }
+
+  private void archiveOutput(ScanContext ctx, Launcher launcher, TaskListener listener) {
+    File outputDir = ctx.getOutputDir();
+    if (outputDir == null) {
+      return;
+    }
     try {
-      File file = new File(harSource);
-      if (file.isAbsolute()) {
-        return harSource;
+      Map<String, String> artifacts = new TreeMap<>();
+      File[] logs = outputDir.listFiles();
+      for (File log : logs == null ? new File[0] : logs) {
+        artifacts.put(OUTPUT_ARTIFACT_DIR + "/" + log.getName(), log.getName());
       }
-      FilePath harSourceFilePath = ws.child(harSource);
-      if (!harSourceFilePath.exists()) {
-        listener.getLogger().println("HAR file does NOT exist: " + harSourceFilePath);
-        return harSource;
+      if (!artifacts.isEmpty()) {
+        listener.getLogger().println("archive " + artifacts.size() + " compressed IDD output logs under " + OUTPUT_ARTIFACT_DIR);
+        ctx.run.getArtifactManager().archive(new FilePath(outputDir), launcher, BuildListenerAdapter.wrap(listener), artifacts);
       }
-      return harSourceFilePath.getRemote();
     } catch (IOException|InterruptedException e) {
-      throw e;
+      listener.getLogger().println("could not archive IDD output logs: " + e);
+    } finally {
+      try {
+        Util.deleteRecursive(outputDir);
+      } catch (IOException e) {
+        listener.getLogger().println("could not delete " + outputDir + ": " + e);
+      }
     }
   }
 
-  private Configuration readSettings(String fname) throws IOException {
-    Gson gson = new Gson();
-
+  private List<ScanResult> scanBatch(List<HarFile> batch, ScanContext ctx, TaskListener listener)
+      throws InterruptedException, IOException {
+    if (ctx.isCancelled() || !StageArchives.anyCompressed(batch)) {
+      return scanStagedBatch(batch, ctx, listener);
+    }
+    // compressed HAR files are only readable by path while their batch is scanned
+    FilePath stagingDir = ctx.nextStagingDir();
     try {
-      InputStream inputStream = new FileInputStream(fname);
-      Reader destFileReader = new InputStreamReader(inputStream, "UTF-8");
+      return scanStagedBatch(stagingDir.act(new StageArchives(batch, streamArchives)), ctx, listener);
+    } finally {
+      stagingDir.act(new StageArchives.Unstage());
+    }
+  }
 
-      Configuration config = gson.fromJson(destFileReader, Configuration.class);
-      destFileReader.close();
+  private List<ScanResult> scanStagedBatch(List<HarFile> batch, ScanContext ctx, TaskListener listener)
+      throws InterruptedException, IOException {
+    List<ScanResult> results = new ArrayList<>();
+    if (ctx.isCancelled()) {
+      for (HarFile har : batch) {
+        results.add(ScanResult.cancelled(har, 0));
+      }
+      return results;
+    }
 
-      return config;
-    } catch (IOException e) {
-      throw e;
+    Boolean batchSupported = ctx.getBatchSupported();
+    if (batch.size() > 1 && !Boolean.FALSE.equals(batchSupported)) {
+      FilePath findingsFile = ctx.nextFindingsFile();
+      Invocation invocation = invokeIDD(ctx, batch, "batch-of-" + batch.size() + "-" + batch.get(0).getName(), findingsFile, listener);
+      int exitCode = invocation.exitCode;
+      Map<String, FindingCounts> findings = parseFindings(ctx, findingsFile, batch, listener);
+      Severity threshold = Severity.fromLevel(getFailOnSeverity());
+      // the scanner exits non-zero for findings at Fail on Severity, including those the baseline suppresses
+      boolean attributed = findings != null
+          && findings.values().stream().anyMatch(c -> c.getCountAtLeast(threshold) + c.getSuppressedAtLeast(threshold) > 0);
+      if (exitCode == 0 || attributed) {
+        ctx.setBatchSupported(true);
+      }
+      if (exitCode == 0 || attributed || ctx.isCancelled() || Boolean.TRUE.equals(batchSupported)) {
+        appendFindings(ctx, findingsFile);
+        long totalSize = Math.max(1, batch.stream().mapToLong(HarFile::getSize).sum());
+        for (HarFile har : batch) {
+          FindingCounts counts = findings == null ? null : findings.getOrDefault(har.getName(), new FindingCounts());
+          // without findings to tell which HAR file failed the batch, all of them did
+          int harExitCode = !attributed || counts.getCountAtLeast(threshold) > 0 ? exitCode : 0;
+          long share = Math.max(1, har.getSize());
+          ScanResult result = new ScanResult(har, harExitCode, invocation.wallMillis * share / totalSize, true, counts)
+              .withCpuMillis(invocation.cpuMillis < 0 ? -1 : invocation.cpuMillis * share / totalSize);
+          results.add(checkFailFast(ctx, result));
+        }
+        return results;
+      }
+      listener.getLogger().println("batch of " + batch.size() + " HAR files did not succeed, scan each HAR file separately "
+          + "to check whether IDD accepts several HAR files");
     }
+
+    for (HarFile har : batch) {
+      if (ctx.isCancelled()) {
+        results.add(ScanResult.cancelled(har, 0));
+        continue;
+      }
+      FilePath findingsFile = ctx.nextFindingsFile();
+      Invocation invocation = invokeIDD(ctx, Collections.singletonList(har), har.getDisplayName(), findingsFile, listener);
+      Map<String, FindingCounts> findings = parseFindings(ctx, findingsFile, Collections.singletonList(har), listener);
+      FindingCounts counts = null;
+      int exitCode = invocation.exitCode;
+      if (findings != null) {
+        appendFindings(ctx, findingsFile);
+        counts = findings.getOrDefault(har.getName(), new FindingCounts());
+        exitCode = exitCodeOfFindings(exitCode, counts);
+      }
+      results.add(checkFailFast(ctx, new ScanResult(har, exitCode, invocation.wallMillis, false, counts)
+          .withCpuMillis(invocation.cpuMillis)));
+    }
+    if (batch.size() > 1 && batchSupported == null && !ctx.isCancelled()) {
+      // the failed batch is explained by a HAR file failing on its own, otherwise IDD rejected the batch
+      boolean explained = results.stream().anyMatch(r -> !r.isSuccess());
+      ctx.setBatchSupported(explained);
+      if (!explained) {
+        listener.getLogger().println("IDD does not accept several HAR files, scan the remaining HAR files one at a time");
+      }
+    }
+    return results;
   }
 
-  private Configuration updateHostMappingSettings(Configuration config) {
-    LinkedHashMap<String, HostMapping> map = new LinkedHashMap<>();
+  /**
+   * Exit code of a HAR file whose findings were collected: a scan that only exits non-zero for findings at Fail on
+   * Severity which the baseline suppresses succeeds, so the build fails on new findings only.
+   */
+  private int exitCodeOfFindings(int exitCode, FindingCounts counts) {
+    Severity threshold = Severity.fromLevel(getFailOnSeverity());
+    return exitCode != 0 && counts.getCountAtLeast(threshold) == 0 && counts.getSuppressedAtLeast(threshold) > 0 ? 0 : exitCode;
+  }
 
-    for (WhiteHatIDDHostMapping hm: hostMapping) {
-      if (StringUtils.isBlank(hm.getFromHost()) || StringUtils.isBlank(hm.getToHost())) {
+  private boolean isFailing(ScanResult result) {
+    return !result.isSuccess()
+        || (result.getFindings() != null && result.getFindings().getCountAtLeast(Severity.fromLevel(getFailOnSeverity())) > 0);
+  }
+
+  private ScanResult checkFailFast(ScanContext ctx, ScanResult result) throws IOException, InterruptedException {
+    if (!failFast) {
+      return result;
+    }
+    if (ctx.isCancelled()) {
+      return result.isSuccess() ? result : ScanResult.cancelled(result.getHar(), result.getDurationMillis());
+    }
+    if (isFailing(result)) {
+      ctx.cancel(result.getHar().getDisplayName() + " reached Fail on Severity " + getFailOnSeverity());
+    }
+    return result;
+  }
+
+  private Map<String, FindingCounts> parseFindings(ScanContext ctx, FilePath findingsFile, List<HarFile> hars, TaskListener listener)
+      throws IOException, InterruptedException {
+    if (findingsFile == null) {
+      return null;
+    }
+    Map<String, String> harNamesByPath = new HashMap<>();
+    for (HarFile har : hars) {
+      harNamesByPath.put(har.getPath(), har.getName());
+    }
+    Map<String, FindingCounts> findings = findingsFile.act(new ParseFindings(harNamesByPath, hars.get(0).getName(), ctx.baselinePath));
+    if (findings == null) {
+      listener.getLogger().println("IDD wrote no findings file " + findingsFile.getRemote());
+    }
+    return findings;
+  }
+
+  private static void appendFindings(ScanContext ctx, FilePath findingsFile) throws IOException, InterruptedException {
+    if (findingsFile != null) {
+      ctx.findings.appendFindings(findingsFile.sibling(findingsFile.getName() + ParseFindings.NORMALIZED_SUFFIX));
+    }
+  }
+
+  /**
+   * The HAR files listed in {@code harFiles}; a listed HAR file that does not exist fails the build, as its shard
+   * would otherwise silently be left unscanned.
+   */
+  private List<HarFile> selectHarFiles(HarListing listing, TaskListener listener) throws AbortException {
+    Map<String, HarFile> byName = new HashMap<>();
+    for (HarFile har : listing.getFiles()) {
+      byName.put(har.getName(), har);
+    }
+    List<HarFile> selected = new ArrayList<>();
+    List<String> missing = new ArrayList<>();
+    for (String name : harFiles) {
+      HarFile har = byName.get(name);
+      if (har != null) {
+        selected.add(har);
+      } else {
+        missing.add(name);
+      }
+    }
+    if (!missing.isEmpty()) {
+      throw new AbortException("HAR files do NOT exist in " + harSource + ": " + missing);
+    }
+    listener.getLogger().println("scan " + selected.size() + " HAR files listed in harFiles");
+    return selected;
+  }
+
+  /**
+   * Baseline of accepted findings, or {@code null} without a Baseline File.
+   */
+  private Baseline loadBaseline(FilePath workspace, EnvVars env, FindingsAction findingsAction, ScanContext ctx, TaskListener listener)
+      throws IOException, InterruptedException {
+    if (baselineFile == null) {
+      return null;
+    }
+    if (findingsAction == null) {
+      listener.getLogger().println("baseline needs Collect Findings, ignore Baseline File");
+      return null;
+    }
+    FilePath file = workspace.child(env.expand(baselineFile));
+    if (!file.exists()) {
+      throw new AbortException("baseline file does NOT exist: " + file);
+    }
+    Baseline baseline = file.act(new Baseline.Load());
+    listener.getLogger().println("baseline " + file.getRemote() + ": " + baseline.size() + " accepted findings");
+    ctx.baselinePath = file.getRemote();
+    return baseline;
+  }
+
+  private ResultCacheUse openResultCache(Run<?, ?> run, EnvVars env, FindingsAction findingsAction, TaskListener listener)
+      throws IOException {
+    if (resultCacheMB <= 0) {
+      return null;
+    }
+    if (findingsAction == null) {
+      listener.getLogger().println("result cache needs Collect Findings, attack every endpoint");
+      return null;
+    }
+    if (appVersion == null) {
+      listener.getLogger().println("result cache needs an Application Version, attack every endpoint");
+      return null;
+    }
+    String version = env.expand(appVersion);
+    ResultCache cache = ResultCache.load(ResultCache.cacheFile(run.getParent()));
+    listener.getLogger().println("result cache of application version " + version + ": " + cache.size() + " endpoints, "
+        + cache.getBytes() / 1024 + " KB");
+    return new ResultCacheUse(cache, version, run.getParent(), new ResultCacheKeys(getHostMappingSettings(), null, null, null, version));
+  }
+
+  /**
+   * Compares the time of the batches with the time their HAR files were estimated to take, see {@link ScanEstimate}.
+   */
+  private void reportBatchSavings(List<ScanResult> results, ScanEstimate estimate, TaskListener listener) {
+    long batchMillis = 0;
+    long estimatedMillis = 0;
+    int compared = 0;
+    for (ScanResult result : results) {
+      long millis = estimate == null || !result.isBatch() ? -1 : estimate.expectedMillis(result.getHar());
+      if (millis < 0) {
         continue;
       }
-      HostMapping h = new HostMapping();
-      h.setEnable(hm.getEnableHostMapping());
-      h.setFrom(hm.getFromHost());
-      h.setTo(hm.getToHost());
-      map.put(hm.getFromHost(), h);
+      batchMillis += result.getDurationMillis();
+      estimatedMillis += millis;
+      compared++;
+    }
+    if (compared == 0) {
+      listener.getLogger().println("batch mode: no estimated scan times to compare with");
+      return;
+    }
+    listener.getLogger().println(String.format("batch mode: %d HAR files scanned in %s, estimated %s, saved %s",
+        compared, Util.getTimeSpanString(batchMillis), Util.getTimeSpanString(estimatedMillis),
+        batchMillis <= estimatedMillis ? Util.getTimeSpanString(estimatedMillis - batchMillis) : "-" + Util.getTimeSpanString(batchMillis - estimatedMillis)));
+  }
+
+  private List<HarFile> resume(ScanCheckpoint checkpoint, List<HarFile> hars, Run<?, ?> run, FindingsAction findingsAction,
+      List<ScanResult> results, TaskListener listener) throws IOException {
+    List<HarFile> remaining = new ArrayList<>();
+    Map<Integer, Set<String>> findingsByBuild = new TreeMap<>();
+    for (HarFile har : hars) {
+      ScanIndexAction.Entry entry = checkpoint.completed(har);
+      if (entry == null || (findingsAction != null && entry.getFindings() == null)) {
+        remaining.add(har);
+        continue;
+      }
+      results.add(new ScanResult(har, entry.getExitCode(), entry.getDurationMillis(), entry.isBatch(), entry.getFindings()));
+      if (entry.getBuildNumber() != run.getNumber()) {
+        findingsByBuild.computeIfAbsent(entry.getBuildNumber(), n -> new HashSet<>()).add(har.getName());
+      }
+    }
+    listener.getLogger().println("resume: " + (hars.size() - remaining.size()) + " HAR files already scanned, " + remaining.size() + " left");
+    if (findingsAction != null) {
+      for (Map.Entry<Integer, Set<String>> e : findingsByBuild.entrySet()) {
+        findingsAction.copyFindings(run.getParent().getBuildByNumber(e.getKey()), e.getValue());
+      }
     }
-    config.setHosts(new LinkedList<HostMapping>(map.values()));
+    return remaining;
+  }
 
-    config.setFilterOnSeverity(filterOnSeverity);
-    config.setFailOnSeverity(failOnSeverity);
+  /**
+   * Profiles the HAR files to scan, those profiled by an earlier build only when they changed since, and estimates
+   * their scan times from the durations recorded by the last successful build.
+   */
+  private ScanEstimate estimate(Run<?, ?> run, FilePath workspace, List<HarFile> hars, UpdateSettings.Result settings,
+      TaskListener listener) throws IOException, InterruptedException {
+    File profilesFile = HarProfiles.profilesFile(run.getParent());
+    Map<String, HarProfile> profiles = HarProfiles.load(profilesFile);
+    List<HarFile> unprofiled = hars.stream().filter(har -> !profiles.containsKey(har.getDigest())).collect(Collectors.toList());
+    if (!unprofiled.isEmpty()) {
+      for (HarProfile profile : workspace.act(new ProfileHars(unprofiled))) {
+        if (profile != null) {
+          profiles.put(profile.getDigest(), profile);
+        }
+      }
+    }
+    listener.getLogger().println("profiled " + unprofiled.size() + " HAR files, reused " + (hars.size() - unprofiled.size()) + " profiles");
+    Map<String, HarProfile> used = new LinkedHashMap<>();
+    for (HarFile har : hars) {
+      HarProfile profile = profiles.get(har.getDigest());
+      if (profile != null) {
+        used.put(profile.getDigest(), profile);
+      }
+    }
+    HarProfiles.update(profilesFile, used.values(), HarProfiles.MAX_PROFILES);
 
-    return config;
+    ScanEstimate estimate = new ScanEstimate(hars, profiles, ScanIndexAction.forHarSource(run.getPreviousSuccessfulBuild(), harSource),
+        getHostMappingSettings(), settings.allowedHosts);
+    for (HarFile har : hars) {
+      HarProfile profile = profiles.get(har.getDigest());
+      if (profile == null) {
+        listener.getLogger().println("profile " + har.getName() + ": cannot be read");
+        continue;
+      }
+      HarProfile.Scope scope = estimate.scope(har);
+      long millis = estimate.expectedMillis(har);
+      listener.getLogger().println(String.format("profile %s: %d entries, %d endpoints on %d of %d hosts in scope, %d payload bytes%s",
+          har.getName(), profile.getEntries(), scope.getEndpoints(), scope.getHosts(), profile.getHosts().size(), scope.getPayloadBytes(),
+          millis >= 0 ? ", estimated " + Util.getTimeSpanString(millis) : ""));
+    }
+    return estimate;
   }
 
-  private void saveSettings(Configuration config, String fname) throws IOException {
-    Gson gson = new GsonBuilder().setPrettyPrinting().create();
+  private List<HarFile> preFilter(List<HarFile> hars, String settingsPath, FilePath filteredDir, List<ScanResult> results,
+      ResultCacheUse cacheUse, TaskListener listener) throws IOException, InterruptedException {
+    List<FilterStats> stats = filteredDir.act(cacheUse == null ? new PreFilterHars(settingsPath, hars)
+        : new PreFilterHars(settingsPath, hars, cacheUse.appVersion, cacheUse.cache.keys()));
+    List<HarFile> filtered = new ArrayList<>();
+    long entriesIn = 0;
+    long entriesOut = 0;
+    for (int i = 0; i < hars.size(); i++) {
+      FilterStats s = stats.get(i);
+      listener.getLogger().println("prefilter " + s);
+      if (s.isUnfiltered()) {
+        listener.getLogger().println("scan " + s.getHarName() + " unfiltered");
+        filtered.add(hars.get(i));
+        continue;
+      }
+      entriesIn += s.getEntriesIn();
+      entriesOut += s.getEntriesOut();
+      if (cacheUse != null) {
+        cacheUse.stats.put(s.getHarName(), s);
+      }
+      if (s.getEntriesOut() == 0) {
+        listener.getLogger().println("nothing left to scan in " + s.getHarName());
+        results.add(new ScanResult(hars.get(i), 0, 0));
+      } else {
+        filtered.add(hars.get(i).withPath(s.getFilteredPath()));
+      }
+    }
+    listener.getLogger().println("prefilter total: " + entriesIn + " entries in, " + entriesOut + " out");
+    if (cacheUse != null) {
+      cacheUse.reportHits(listener);
+    }
+    return filtered;
+  }
 
-    try {
-      OutputStream fileStream = new FileOutputStream(fname);
-      Writer writer = new OutputStreamWriter(fileStream, "UTF-8");
+  private List<HarFile> split(List<HarFile> hars, FilePath shardDir, TaskListener listener) throws IOException, InterruptedException {
+    long maxBytes = shardMaxSizeMB * 1024L * 1024L;
+    List<HarFile> split = shardDir.act(new SplitHars(hars, shardMaxEntries, maxBytes));
+    for (HarFile har : split) {
+      if (har.getShard() == 1) {
+        listener.getLogger().println("split " + har.getName() + " into " + har.getShardCount() + " shards");
+      }
+    }
+    return split;
+  }
 
-      gson.toJson(config, writer);
-      writer.close();
-    } catch (IOException e) {
-      throw e;
+  private static void reportCancelled(ScanContext ctx, List<ScanResult> results, TaskListener listener) {
+    List<String> cancelled = results.stream().filter(ScanResult::isCancelled)
+      .map(r -> r.getHar().getName()).collect(Collectors.toList());
+    listener.getLogger().println("scans cancelled: " + ctx.getCancelReason());
+    listener.getLogger().println("scanned " + (results.size() - cancelled.size()) + " of " + results.size() + " HAR files");
+    if (!cancelled.isEmpty()) {
+      listener.getLogger().println("not scanned: " + cancelled);
+    }
+  }
+
+  private void checkFindings(FindingsAction findingsAction, TaskListener listener) throws AbortException {
+    FindingCounts total = findingsAction.getTotal();
+    listener.getLogger().println("IDD findings: " + total);
+    Severity threshold = Severity.fromLevel(getFailOnSeverity());
+    int failing = total.getCountAtLeast(threshold);
+    if (failing > 0) {
+      throw new AbortException("IDD found " + failing + " findings at or above " + threshold.level);
     }
   }
 
-  private void invokeIDD(String settingsPath, String harSourcePath, EnvVars env, FilePath workspace, Launcher launcher, TaskListener listener)
-      throws InterruptedException, IOException, AbortException {
+  /**
+   * Scans all batches once per attack module, in the order of Module Priority, so the time of each module is known.
+   * A time budget cancels the scans once it is used up, which cuts off the running module and skips the rest.
+   */
+  private List<ScanResult> scanModulePasses(ScanPool pool, List<List<HarFile>> batches, List<HarFile> hars, ScanContext ctx,
+      List<String> attackModules, Set<String> incomplete, TaskListener listener) throws IOException, InterruptedException {
+    Future<?> deadline = null;
+    if (timeBudgetMinutes > 0) {
+      listener.getLogger().println("time budget: " + timeBudgetMinutes + " minutes");
+      deadline = Timer.get().schedule(() -> {
+        try {
+          ctx.cancel("time budget of " + timeBudgetMinutes + " minutes used up");
+        } catch (IOException | InterruptedException e) {
+          Functions.printStackTrace(e, listener.error("cannot stop the scans"));
+        }
+      }, timeBudgetMinutes, TimeUnit.MINUTES);
+    }
+    String settingsPath = ctx.settingsPath;
     try {
-      listener.getLogger().println("execute IDD with harSource: " + harSourcePath);
-      String cmdLine = String.format("%s/target/directed-dast-common -settings-file %s %s", env.get(IDD_HOME), settingsPath, harSourcePath);
-      int exitCode = (launcher.launch().cmdAsSingleString(cmdLine).envs(env).stdout(listener).pwd(workspace).start()).join();
-      listener.getLogger().println("IDD returns exit code: " + exitCode);
+      List<String> modules = orderModules(attackModules, modulePriority);
+      if (modules.isEmpty()) {
+        listener.getLogger().println("attackModules is empty in the settings, scan all attack modules at once");
+        List<ScanResult> results = pool.scanAll(batches, (batch, scanListener) -> scanBatch(batch, ctx, scanListener));
+        for (ScanResult result : results) {
+          if (result.isCancelled()) {
+            incomplete.add(result.getHar().getName());
+          }
+        }
+        return results;
+      }
 
-      if (exitCode != 0) {
-        throw new AbortException("IDD did not succeed");
+      boolean entriesKnown = hars.stream().allMatch(h -> h.getEntries() >= 0);
+      long requests = entriesKnown ? hars.stream().filter(h -> h.getShard() <= 1).mapToLong(HarFile::getEntries).sum() : -1;
+      MetricsAction metrics = MetricsAction.getOrCreate(ctx.run);
+      List<List<ScanResult>> passes = new ArrayList<>();
+      for (int i = 0; i < modules.size(); i++) {
+        String module = modules.get(i);
+        if (ctx.isCancelled()) {
+          listener.getLogger().println("skip attack module " + module);
+          metrics.addModule(ModuleMetrics.skipped(module));
+          continue;
+        }
+        FilePath moduleSettings = ctx.scratchDir.child("settings-" + module.replaceAll("[^A-Za-z0-9._-]", "_") + ".json");
+        ctx.workspace.child(settingsPath).act(new ModuleSettings(module, i > 0, moduleSettings.getRemote()));
+        ctx.settingsPath = moduleSettings.getRemote();
+        listener.getLogger().println("attack module " + module + (i == 0 ? " and passive modules" : ""));
+
+        long start = System.currentTimeMillis();
+        List<ScanResult> pass = pool.scanAll(batches, (batch, scanListener) -> scanBatch(batch, ctx, scanListener));
+        long wallMillis = System.currentTimeMillis() - start;
+        boolean cutOff = pass.stream().anyMatch(ScanResult::isCancelled);
+        int findings = pass.stream().filter(r -> r.getFindings() != null).mapToInt(r -> r.getFindings().getTotal()).sum();
+        ModuleMetrics moduleMetrics = new ModuleMetrics(module, wallMillis, cutOff ? -1 : requests, findings,
+            cutOff ? ModuleMetrics.Status.CUT_OFF : ModuleMetrics.Status.COMPLETED);
+        listener.getLogger().println("attack module " + moduleMetrics);
+        metrics.addModule(moduleMetrics);
+        passes.add(pass);
+      }
+      return mergePasses(passes, hars, modules.size(), incomplete);
+    } finally {
+      ctx.settingsPath = settingsPath;
+      if (deadline != null) {
+        deadline.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * Attack modules of the settings, those listed in {@code priority} first.
+   */
+  static List<String> orderModules(List<String> attackModules, String priority) {
+    List<String> ordered = new ArrayList<>();
+    if (priority != null) {
+      for (String module : priority.split("[,\\s]+")) {
+        if (attackModules.contains(module) && !ordered.contains(module)) {
+          ordered.add(module);
+        }
+      }
+    }
+    for (String module : attackModules) {
+      if (!ordered.contains(module)) {
+        ordered.add(module);
+      }
+    }
+    return ordered;
+  }
+
+  /**
+   * Adds up the results of each HAR file over the module passes. A HAR file that some attack modules did not get to
+   * keeps the findings of the others and is added to {@code incomplete}.
+   */
+  private static List<ScanResult> mergePasses(List<List<ScanResult>> passes, List<HarFile> hars, int moduleCount,
+      Set<String> incomplete) {
+    Map<String, List<ScanResult>> byHar = new LinkedHashMap<>();
+    for (List<ScanResult> pass : passes) {
+      for (ScanResult result : pass) {
+        byHar.computeIfAbsent(result.getHar().getDisplayName(), name -> new ArrayList<>()).add(result);
       }
-    } catch (Exception e) {
-      throw e;
+    }
+    List<ScanResult> merged = new ArrayList<>();
+    for (HarFile har : hars) {
+      List<ScanResult> results = byHar.getOrDefault(har.getDisplayName(), Collections.<ScanResult>emptyList());
+      int exitCode = 0;
+      long durationMillis = 0;
+      long cpuMillis = 0;
+      boolean batch = false;
+      FindingCounts findings = null;
+      int scanned = 0;
+      for (ScanResult result : results) {
+        durationMillis += result.getDurationMillis();
+        if (result.isCancelled()) {
+          continue;
+        }
+        scanned++;
+        exitCode = exitCode != 0 ? exitCode : result.getExitCode();
+        cpuMillis = cpuMillis < 0 || result.getCpuMillis() < 0 ? -1 : cpuMillis + result.getCpuMillis();
+        batch |= result.isBatch();
+        if (result.getFindings() != null) {
+          findings = findings == null ? new FindingCounts() : findings;
+          findings.add(result.getFindings());
+        }
+      }
+      if (scanned < moduleCount) {
+        incomplete.add(har.getName());
+      }
+      if (scanned == 0) {
+        merged.add(ScanResult.cancelled(har, durationMillis));
+      } else {
+        merged.add(new ScanResult(har, exitCode, durationMillis, batch, findings).withCpuMillis(cpuMillis));
+      }
+    }
+    return merged;
+  }
+
+  private static List<ScanResult> mergeShards(List<ScanResult> results, List<HarFile> unsharded) {
+    Map<String, List<ScanResult>> byName = new LinkedHashMap<>();
+    for (ScanResult result : results) {
+      byName.computeIfAbsent(result.getHar().getName(), name -> new ArrayList<>()).add(result);
+    }
+    List<ScanResult> merged = new ArrayList<>();
+    for (HarFile har : unsharded) {
+      List<ScanResult> shards = byName.get(har.getName());
+      if (shards == null) {
+        continue;
+      }
+      int exitCode = 0;
+      long durationMillis = 0;
+      long cpuMillis = 0;
+      boolean batch = false;
+      FindingCounts findings = null;
+      boolean cancelled = false;
+      for (ScanResult shard : shards) {
+        if (shard.isCancelled()) {
+          cancelled = true;
+          continue;
+        }
+        exitCode = exitCode != 0 ? exitCode : shard.getExitCode();
+        durationMillis += shard.getDurationMillis();
+        cpuMillis = cpuMillis < 0 || shard.getCpuMillis() < 0 ? -1 : cpuMillis + shard.getCpuMillis();
+        batch |= shard.isBatch();
+        if (shard.getFindings() != null) {
+          findings = findings == null ? new FindingCounts() : findings;
+          findings.add(shard.getFindings());
+        }
+      }
+      if (cancelled && exitCode == 0) {
+        merged.add(ScanResult.cancelled(har, durationMillis));
+      } else {
+        merged.add(new ScanResult(har, exitCode, durationMillis, batch, findings).withCpuMillis(cpuMillis));
+      }
+    }
+    return merged;
+  }
+
+  private static FilePath createScratchDir(FilePath workspace) throws IOException, InterruptedException {
+    FilePath tempDir = WorkspaceList.tempDir(workspace);
+    if (tempDir == null) {
+      tempDir = workspace;
+    }
+    tempDir.mkdirs();
+    return tempDir.createTempDir("idd-scan", null);
+  }
+
+  private static void deleteScratchDir(FilePath scratchDir, TaskListener listener) {
+    if (scratchDir == null) {
+      return;
+    }
+    try {
+      scratchDir.deleteRecursive();
+    } catch (IOException|InterruptedException e) {
+      listener.getLogger().println("could not delete " + scratchDir + ": " + e);
+    }
+  }
+
+  private int resolveMaxParallelScans(FilePath workspace) throws IOException, InterruptedException {
+    if (maxParallelScans > 0) {
+      return maxParallelScans;
+    }
+    VirtualChannel channel = workspace.getChannel();
+    return channel == null ? 1 : channel.call(new AvailableProcessors());
+  }
+
+  private static final class AvailableProcessors extends MasterToSlaveCallable<Integer, RuntimeException> {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Integer call() {
+      return Runtime.getRuntime().availableProcessors();
     }
   }
 
@@ -222,49 +1191,220 @@ public class WhiteHatIDDBuilder extends Builder implements SimpleBuildStep {
       throw new InterruptedException("required env variable is not set yet: " + IDD_HOME);
     }
 
+    FilePath scratchDir = null;
+    ScanContext ctx = null;
     try {
+      scratchDir = createScratchDir(workspace);
+      PhaseTimings timings = new PhaseTimings();
+      long phaseStart = System.nanoTime();
       String settingsPath = getSettingsPath(env, workspace, listener);
+      timings.record(PhaseTimings.SETTINGS_COPY, phaseStart);
+
+      listener.getLogger().println("update settings " + settingsPath);
+      int requestDelay = WhiteHatIDDGlobalConfiguration.get().getRequestDelayMillis(getTargetHosts());
+      if (requestDelay >= 0) {
+        listener.getLogger().println("request delay " + requestDelay + " ms to stay within the request rates of the target hosts");
+      } else {
+        // a delay of an earlier build would otherwise stay in the settings file
+        requestDelay = WhiteHatIDDGlobalConfiguration.get().getTemplateRequestDelayMillis();
+      }
+      UpdateSettings.Result settings = workspace.child(settingsPath)
+          .act(new UpdateSettings(getHostMappingSettings(), getFilterOnSeverity(), getFailOnSeverity(), requestDelay));
+      String settingsDigest = settings.digest;
+      timings.add(settings.timings);
 
-      listener.getLogger().println("read settings " + settingsPath);
-      Configuration config = readSettings(settingsPath);
+      listener.getLogger().println("env var " + IDD_HOME + " is " + env.get(IDD_HOME));
 
-      config = updateHostMappingSettings(config);
+      FilePath harSourceFilePath = workspace.child(harSource);
+      phaseStart = System.nanoTime();
+      // a partition only reads the HAR files listed for it
+      HarListing listing = harSourceFilePath.act(new HarDiscovery(harFiles, true));
+      timings.record(PhaseTimings.DIRECTORY_WALK, phaseStart);
+      if (!listing.exists()) {
+        listener.getLogger().println("HAR file does NOT exist: " + harSourceFilePath);
+      }
 
-      listener.getLogger().println("save settings " + settingsPath);
-      saveSettings(config, settingsPath);
+      if (listing.isDirectory()) {
+        listener.getLogger().println("harSource is a directory: " + harSourceFilePath.getRemote());
+        listener.getLogger().println("found " + listing.getFiles().size() + " HAR files, " + listing.getTotalSize() + " bytes");
+      } else if (listing.getFiles().isEmpty()) {
+        // e.g. an archive without HAR entries
+        listener.getLogger().println("no HAR files found in " + harSourceFilePath);
+      } else {
+        listener.getLogger().println("harSource is a file: " + listing.getFiles().get(0).getPath());
+      }
+      List<HarFile> harFilesToScan = harFiles == null ? listing.getFiles() : selectHarFiles(listing, listener);
 
-      listener.getLogger().println("env var " + IDD_HOME + " is " + env.get(IDD_HOME));
+      FindingsAction findingsAction = collectFindings ? FindingsAction.getOrCreate(run) : null;
+      ScanContext scanContext = new ScanContext(run, workspace, launcher, env, settingsPath, scratchDir, findingsAction, listener);
+      ctx = scanContext;
+      if (findingsAction != null) {
+        scanContext.getFindingsDir().mkdirs();
+      }
+      Baseline baseline = loadBaseline(workspace, env, findingsAction, scanContext, listener);
 
-      String harSourcePath = getHarSourcePath(env, workspace, listener);
-      File file = new File(harSourcePath);
-
-      if (file.isDirectory()) {
-        listener.getLogger().println("harSource is a directory: " + harSourcePath);
-
-        try (Stream<Path> walk = Files.walk(Paths.get(harSourcePath))) {
-          List<String> result = walk.map(x -> x.toString())
-            .filter(f -> f.endsWith(".har")).collect(Collectors.toList());
-          result.forEach(harPath -> {
-            try {
-              invokeIDD(settingsPath, harPath, env, workspace, launcher, listener);
-            } catch (AbortException e) {
-              run.setResult(Result.FAILURE);
-              throw new RuntimeException(e);
-            } catch (IOException e) {
-              Util.displayIOException(e, listener);
-              Functions.printStackTrace(e, listener.fatalError("command execution failed when harSource is a dir"));
-              throw new RuntimeException(e);
-            } catch (InterruptedException e) {
-              Functions.printStackTrace(e, listener.fatalError("job interrupted when harSource is a dir"));
-              throw new RuntimeException(e);
+      Run<?, ?> previousBuild = null;
+      if (isForceFullScan()) {
+        listener.getLogger().println("force full scan, ignore results of previous builds");
+      } else {
+        previousBuild = run.getPreviousSuccessfulBuild();
+      }
+      ScanIndexAction previousIndex = ScanIndexAction.forHarSource(previousBuild, harSource);
+      ScanIndexAction index = new ScanIndexAction(harSource, settingsDigest);
+
+      List<ScanResult> results = new ArrayList<>();
+      List<HarFile> hars = new ArrayList<>();
+      Set<String> carriedForward = new HashSet<>();
+      for (HarFile har : harFilesToScan) {
+        ScanIndexAction.Entry previous = previousIndex == null ? null : previousIndex.unchanged(har, settingsDigest);
+        if (previous != null && (findingsAction == null || previous.getFindings() != null)) {
+          listener.getLogger().println("skip unchanged HAR " + har.getName() + ", scanned in build #" + previous.getBuildNumber());
+          index.carryForward(har, previous);
+          carriedForward.add(har.getName());
+          if (findingsAction != null && baseline == null) {
+            findingsAction.add(har.getName(), previous.getFindings());
+          }
+        } else {
+          hars.add(har);
+        }
+      }
+      if (!carriedForward.isEmpty()) {
+        listener.getLogger().println("skipped " + carriedForward.size() + " unchanged HAR files");
+        if (findingsAction != null) {
+          Map<String, FindingCounts> copied = findingsAction.copyFindings(previousBuild, carriedForward, baseline);
+          if (baseline != null) {
+            // counted again, the baseline may have changed since
+            for (String harName : carriedForward) {
+              findingsAction.add(harName, copied.getOrDefault(harName, new FindingCounts()));
             }
+          }
+        }
+      }
+      if (resumeInterrupted && isModulePasses()) {
+        listener.getLogger().println("scans of single attack modules are not resumed, ignore Resume Interrupted Scan");
+      }
+      ScanCheckpoint checkpoint = resumeInterrupted && !isModulePasses()
+          ? ScanCheckpoint.load(workspace, harSource, settingsDigest, listener) : null;
+      if (checkpoint != null && !hars.isEmpty()) {
+        hars = resume(checkpoint, hars, run, findingsAction, results, listener);
+      }
+
+      ScanEstimate estimate = null;
+      if (!hars.isEmpty()) {
+        phaseStart = System.nanoTime();
+        estimate = estimate(run, workspace, hars, settings, listener);
+        timings.record(PhaseTimings.PROFILE, phaseStart);
+      }
+
+      ResultCacheUse cacheUse = openResultCache(run, env, findingsAction, listener);
+      if ((preFilterHars || cacheUse != null) && !hars.isEmpty()) {
+        phaseStart = System.nanoTime();
+        hars = preFilter(hars, settingsPath, scratchDir.child("filtered"), results, cacheUse, listener);
+        timings.record(PhaseTimings.PRE_FILTER, phaseStart);
+      }
+      List<HarFile> unsharded = hars;
+      if ((shardMaxEntries > 0 || shardMaxSizeMB > 0) && !hars.isEmpty()) {
+        phaseStart = System.nanoTime();
+        hars = split(hars, scratchDir.child("shards"), listener);
+        timings.record(PhaseTimings.SPLIT, phaseStart);
+      }
+
+      if (estimate != null) {
+        hars = estimate.longestFirst(hars);
+      }
+
+      int parallelism = hars.size() > Math.max(1, batchSize) ? resolveMaxParallelScans(workspace) : 1;
+      if (listing.isDirectory()) {
+        listener.getLogger().println("scan " + hars.size() + " HAR files, up to " + parallelism + " at a time");
+      }
+      List<List<HarFile>> batches = ScanPool.partition(hars, batchSize);
+      if (batchSize > 1 && !hars.isEmpty()) {
+        listener.getLogger().println("batch mode: " + batches.size() + " invocations of up to " + batchSize + " HAR files");
+      }
+      long expectedMillis = estimate == null ? -1 : estimate.expectedMillis(batches, parallelism);
+      if (expectedMillis >= 0) {
+        listener.getLogger().println("estimated scan time " + Util.getTimeSpanString(expectedMillis) + ", longest HAR files first");
+      } else if (estimate != null) {
+        listener.getLogger().println("no estimated scan time yet, HAR files with the most endpoints first");
+      }
+      ScanPool pool = new ScanPool(parallelism, listener);
+      Set<String> incomplete = new HashSet<>();
+      List<ScanResult> scanned = isModulePasses() && !hars.isEmpty()
+          ? scanModulePasses(pool, batches, hars, scanContext, settings.attackModules, incomplete, listener)
+          : pool.scanAll(batches, (batch, scanListener) -> {
+            List<ScanResult> batchResults = scanBatch(batch, scanContext, scanListener);
+            return checkpoint == null ? batchResults : checkpoint.record(batchResults, run.getNumber());
           });
-        } catch(IOException e) {
-          throw e;
+      results.addAll(hars.size() > unsharded.size() ? mergeShards(scanned, unsharded) : scanned);
+      if (checkpoint != null && !scanContext.isCancelled()) {
+        // every HAR file was scanned, nothing left to resume
+        checkpoint.delete();
+      }
+      if (scanContext.isCancelled()) {
+        reportCancelled(scanContext, results, listener);
+      }
+      if (batchSize > 1 && !scanned.isEmpty()) {
+        reportBatchSavings(scanned, estimate, listener);
+      }
+
+      Map<String, FindingCounts> cachedCounts = cacheUse == null ? Collections.<String, FindingCounts>emptyMap()
+          : cacheUse.update(results.stream().filter(r -> !incomplete.contains(r.getHar().getName())).collect(Collectors.toList()),
+              findingsAction, baseline, Severity.fromLevel(getFailOnSeverity()), resultCacheMB * 1024L * 1024L, listener);
+
+      MetricsAction metrics = MetricsAction.getOrCreate(run);
+      metrics.addPhases(timings);
+      List<ResourceEvent> events = scanContext.getEvents();
+      metrics.addEvents(events);
+      if (!events.isEmpty()) {
+        listener.getLogger().println("resource limits: " + events.size() + " events, see the scan metrics of the build");
+        for (ResourceEvent event : events) {
+          listener.getLogger().println("  " + event);
+        }
+      }
+      for (ScanResult result : results) {
+        if (result.isCancelled()) {
+          continue;
+        }
+        FindingCounts cached = cachedCounts.get(result.getHar().getName());
+        if (cached != null) {
+          FindingCounts counts = new FindingCounts();
+          counts.add(cached);
+          if (result.getFindings() != null) {
+            counts.add(result.getFindings());
+          }
+          result = result.withFindings(counts);
+        }
+        metrics.add(HarMetrics.of(result));
+        if (!incomplete.contains(result.getHar().getName())) {
+          // HAR files some attack modules did not get to are scanned again by the next build
+          index.record(result.getHar(), result, run.getNumber());
+        }
+        if (findingsAction != null && result.getFindings() != null) {
+          findingsAction.add(result.getHar().getName(), result.getFindings());
+        }
+      }
+      ScanIndexAction.addTo(run, index);
+
+      if (findingsAction != null) {
+        if (scanContext.isCancelled() || !incomplete.isEmpty()) {
+          listener.getLogger().println("findings are incomplete, not added to the findings history");
+        } else {
+          // also when a scan failed, its findings are as complete as the scanner got them
+          FindingsIndex.of(run.getParent()).record(run.getNumber(), findingsAction.readAllFindings());
         }
-      } else {
-        listener.getLogger().println("harSource is a file: " + harSourcePath);
-        invokeIDD(settingsPath, harSourcePath, env, workspace, launcher, listener);
+      }
+
+      List<String> failed = results.stream().filter(r -> !r.isSuccess() && !r.isCancelled())
+        .map(r -> r.getHar().getName()).collect(Collectors.toList());
+      if (!failed.isEmpty()) {
+        if (listing.isDirectory()) {
+          listener.getLogger().println("IDD did not succeed for " + failed.size() + " of " + results.size() + " HAR files: " + failed);
+        }
+        throw new AbortException("IDD did not succeed");
+      }
+
+      if (findingsAction != null) {
+        checkFindings(findingsAction, listener);
       }
     } catch (AbortException e) {
       run.setResult(Result.FAILURE);
@@ -276,6 +1416,11 @@ public class WhiteHatIDDBuilder extends Builder implements SimpleBuildStep {
     } catch (InterruptedException e) {
       Functions.printStackTrace(e, listener.fatalError("job interrupted"));
       throw e;
+    } finally {
+      if (ctx != null) {
+        archiveOutput(ctx, launcher, listener);
+      }
+      deleteScratchDir(scratchDir, listener);
     }
   }
 
@@ -284,6 +1429,10 @@ public class WhiteHatIDDBuilder extends Builder implements SimpleBuildStep {
   public static final class DescriptorImpl extends BuildStepDescriptor<Builder> {
     public static final String defaultFilterOnSeverity = Severity.HIGH.level;
     public static final String defaultFailOnSeverity = Severity.NOTE.level;
+    public static final int defaultMaxParallelScans = 0;
+    public static final int defaultBatchSize = 0;
+    public static final int defaultConsoleLines = 0;
+    public static final int defaultDaemonIdleMinutes = 30;
 
     @Override
     public boolean isApplicable(Class<? extends AbstractProject> aClass) {
@@ -302,6 +1451,69 @@ public class WhiteHatIDDBuilder extends Builder implements SimpleBuildStep {
       return FormValidation.ok();
     }
 
+    public FormValidation doCheckMaxParallelScans(@QueryParameter String value) {
+      return checkNonNegativeInt(value);
+    }
+
+    public FormValidation doCheckBatchSize(@QueryParameter String value) {
+      return checkNonNegativeInt(value);
+    }
+
+    public FormValidation doCheckShardMaxEntries(@QueryParameter String value) {
+      return checkNonNegativeInt(value);
+    }
+
+    public FormValidation doCheckTimeBudgetMinutes(@QueryParameter String value) {
+      return checkNonNegativeInt(value);
+    }
+
+    public FormValidation doCheckResultCacheMB(@QueryParameter String value) {
+      return checkNonNegativeInt(value);
+    }
+
+    public FormValidation doCheckShardMaxSizeMB(@QueryParameter String value) {
+      return checkNonNegativeInt(value);
+    }
+
+    public FormValidation doCheckConsoleLines(@QueryParameter String value) {
+      return checkNonNegativeInt(value);
+    }
+
+    public FormValidation doCheckScanTimeoutMinutes(@QueryParameter String value) {
+      return checkNonNegativeInt(value);
+    }
+
+    public FormValidation doCheckMaxMemoryMB(@QueryParameter String value) {
+      return checkNonNegativeInt(value);
+    }
+
+    public FormValidation doCheckMaxCpuPercent(@QueryParameter String value) {
+      return checkNonNegativeInt(value);
+    }
+
+    public FormValidation doCheckMaxLoadPercent(@QueryParameter String value) {
+      return checkNonNegativeInt(value);
+    }
+
+    public FormValidation doCheckMinFreeMemoryMB(@QueryParameter String value) {
+      return checkNonNegativeInt(value);
+    }
+
+    public FormValidation doCheckDaemonIdleMinutes(@QueryParameter String value) {
+      return checkPositiveInt(value);
+    }
+
+    /**
+     * A blank number is left to the default of the option.
+     */
+    static FormValidation checkNonNegativeInt(String value) {
+      return StringUtils.isBlank(value) ? FormValidation.ok() : FormValidation.validateNonNegativeInteger(value);
+    }
+
+    static FormValidation checkPositiveInt(String value) {
+      return StringUtils.isBlank(value) ? FormValidation.ok() : FormValidation.validatePositiveInteger(value);
+    }
+
     public ListBoxModel doFillFilterOnSeverityItems() {
       return fillSeverityItems();
     }
@@ -310,7 +1522,7 @@ public class WhiteHatIDDBuilder extends Builder implements SimpleBuildStep {
       return fillSeverityItems();
     }
 
-    private ListBoxModel fillSeverityItems() {
+    static ListBoxModel fillSeverityItems() {
       ListBoxModel items = new ListBoxModel();
       for (Severity severity : Severity.values()) {
         items.add(severity.name(), severity.level);
@@ -0,0 +1,163 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.google.gson.JsonParseException;
+
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.Plugin;
+import hudson.Util;
+import hudson.util.FormValidation;
+import jenkins.model.GlobalConfiguration;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+
+/**
+ * Controller-wide settings shared by all WhiteHat IDD scans.
+ */
+@Symbol("whsIdd")
+@Extension
+public class WhiteHatIDDGlobalConfiguration extends GlobalConfiguration {
+  private List<WhiteHatIDDHostBudget> hostBudgets = new ArrayList<>();
+  private boolean adaptiveConcurrency = true;
+  private String settingsTemplate;
+  /** Formatted settings template, parsed once until the template changes. */
+  private transient volatile String effectiveSettingsTemplate;
+
+  public WhiteHatIDDGlobalConfiguration() {
+    load();
+  }
+
+  public static WhiteHatIDDGlobalConfiguration get() {
+    return GlobalConfiguration.all().get(WhiteHatIDDGlobalConfiguration.class);
+  }
+
+  public List<WhiteHatIDDHostBudget> getHostBudgets() {
+    return hostBudgets == null ? new ArrayList<>() : hostBudgets;
+  }
+
+  @DataBoundSetter
+  public void setHostBudgets(List<WhiteHatIDDHostBudget> hostBudgets) {
+    this.hostBudgets = hostBudgets != null ? new ArrayList<>(hostBudgets) : new ArrayList<>();
+    save();
+  }
+
+  public boolean isAdaptiveConcurrency() {
+    return adaptiveConcurrency;
+  }
+
+  @DataBoundSetter
+  public void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+    this.adaptiveConcurrency = adaptiveConcurrency;
+    save();
+  }
+
+  public String getSettingsTemplate() {
+    return settingsTemplate;
+  }
+
+  @DataBoundSetter
+  public void setSettingsTemplate(String settingsTemplate) {
+    this.settingsTemplate = Util.fixEmptyAndTrim(settingsTemplate);
+    effectiveSettingsTemplate = null;
+    save();
+  }
+
+  /**
+   * Settings of a job without a settings file in its workspace: the Settings Template, or the settings bundled
+   * with the plugin when it is blank.
+   */
+  public String getEffectiveSettingsTemplate() throws IOException {
+    String template = effectiveSettingsTemplate;
+    if (template == null) {
+      String source = settingsTemplate != null ? settingsTemplate : readDefaultSettings();
+      try {
+        template = SettingsFile.toJson(SettingsFile.parse(source));
+      } catch (JsonParseException e) {
+        throw new AbortException("invalid settings template: " + e.getMessage());
+      }
+      effectiveSettingsTemplate = template;
+    }
+    return template;
+  }
+
+  private static String readDefaultSettings() throws IOException {
+    String webAppPath = "";
+    Plugin plugin = Jenkins.get().getPlugin("directed-dast");
+    if (plugin != null) {
+      webAppPath = plugin.getWrapper().baseResourceURL.getFile();
+    }
+    File defaults = new File(webAppPath, "settings.default.json");
+    if (!defaults.isFile()) {
+      throw new AbortException("default settings does NOT exist " + defaults);
+    }
+    return new String(Files.readAllBytes(defaults.toPath()), StandardCharsets.UTF_8);
+  }
+
+  public FormValidation doCheckSettingsTemplate(@QueryParameter String value) {
+    if (Util.fixEmptyAndTrim(value) == null) {
+      return FormValidation.ok();
+    }
+    try {
+      return SettingsFile.parse(value) == null ? FormValidation.error(Messages.WhiteHatIDDGlobalConfiguration_InvalidSettingsTemplate("empty"))
+          : FormValidation.ok();
+    } catch (JsonParseException e) {
+      return FormValidation.error(Messages.WhiteHatIDDGlobalConfiguration_InvalidSettingsTemplate(e.getMessage()));
+    }
+  }
+
+  /**
+   * Budget of the target host, matched without regard to case, or {@code null} when the host has none.
+   */
+  public WhiteHatIDDHostBudget getBudget(String host) {
+    for (WhiteHatIDDHostBudget budget : getHostBudgets()) {
+      if (budget.getHost() != null && budget.getHost().equalsIgnoreCase(host)) {
+        return budget;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Request delay keeping scans of all these hosts within their request rates, or -1 when none is limited.
+   */
+  public int getRequestDelayMillis(Collection<String> hosts) {
+    int delay = -1;
+    for (String host : hosts) {
+      WhiteHatIDDHostBudget budget = getBudget(host);
+      if (budget != null) {
+        delay = Math.max(delay, budget.getRequestDelayMillis());
+      }
+    }
+    return delay;
+  }
+
+  /**
+   * Request delay of the settings template, which the settings file of a job goes back to once its target hosts have
+   * no request rate any more.
+   */
+  public int getTemplateRequestDelayMillis() throws IOException {
+    RequestOptions options = SettingsFile.parse(getEffectiveSettingsTemplate()).getRequestOptions();
+    return options == null ? 0 : options.getRequestDelay();
+  }
+
+  @Override
+  public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
+    // an empty repeatable list is not submitted at all
+    hostBudgets = new ArrayList<>();
+    req.bindJSON(this, json);
+    return true;
+  }
+}
@@ -0,0 +1,94 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.Serializable;
+
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+
+/**
+ * Limits on the scans hitting one target host, enforced across all builds of the controller.
+ */
+public class WhiteHatIDDHostBudget extends AbstractDescribableImpl<WhiteHatIDDHostBudget> implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final String host;
+  private int maxConcurrentScans;
+  private int maxRequestsPerSecond;
+
+  @DataBoundConstructor
+  public WhiteHatIDDHostBudget(String host) {
+    this.host = host == null ? null : host.trim();
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  public int getMaxConcurrentScans() {
+    return maxConcurrentScans;
+  }
+
+  @DataBoundSetter
+  public void setMaxConcurrentScans(int maxConcurrentScans) {
+    this.maxConcurrentScans = Math.max(0, maxConcurrentScans);
+  }
+
+  public int getMaxRequestsPerSecond() {
+    return maxRequestsPerSecond;
+  }
+
+  @DataBoundSetter
+  public void setMaxRequestsPerSecond(int maxRequestsPerSecond) {
+    this.maxRequestsPerSecond = Math.max(0, maxRequestsPerSecond);
+  }
+
+  /**
+   * Scans allowed at once; a request rate without a concurrency limit allows one scan at a time,
+   * otherwise the rate could not be split between the scans.
+   */
+  int getScanSlots() {
+    if (maxConcurrentScans > 0) {
+      return maxConcurrentScans;
+    }
+    return maxRequestsPerSecond > 0 ? 1 : 0;
+  }
+
+  /**
+   * Delay between two requests of one scan that keeps all scans of the host within the request rate,
+   * or -1 when the rate is not limited.
+   */
+  int getRequestDelayMillis() {
+    if (maxRequestsPerSecond <= 0) {
+      return -1;
+    }
+    return (int) Math.ceil(1000.0 * getScanSlots() / maxRequestsPerSecond);
+  }
+
+  @Symbol("whsIddHostBudget")
+  @Extension
+  public static class DescriptorImpl extends Descriptor<WhiteHatIDDHostBudget> {
+    @Override
+    public String getDisplayName() {
+      return Messages.WhiteHatIDDHostBudget_DisplayName();
+    }
+
+    public FormValidation doCheckHost(@QueryParameter String value) {
+      return value == null || value.trim().isEmpty() ? FormValidation.error(Messages.WhiteHatIDDHostBudget_HostRequired()) : FormValidation.ok();
+    }
+
+    public FormValidation doCheckMaxConcurrentScans(@QueryParameter String value) {
+      return FormValidation.validateNonNegativeInteger(value);
+    }
+
+    public FormValidation doCheckMaxRequestsPerSecond(@QueryParameter String value) {
+      return FormValidation.validateNonNegativeInteger(value);
+    }
+  }
+}
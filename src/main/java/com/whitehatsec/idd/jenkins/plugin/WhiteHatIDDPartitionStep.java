@@ -0,0 +1,146 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.FormValidation;
+import jenkins.model.Jenkins;
+
+/**
+ * Pipeline step splitting the HAR files of a HAR Source directory into shards that take about the same time to scan,
+ * judged by the durations recorded by the last successful build. Returns the HAR names of each shard, to be handed to
+ * {@code whsIdd} as {@code harFiles} in parallel branches on different agents. The branches record their results in the
+ * same build, so the build gets one merged report.
+ */
+public class WhiteHatIDDPartitionStep extends Step {
+  private final String harSource;
+  private int shards = DescriptorImpl.defaultShards;
+
+  @DataBoundConstructor
+  public WhiteHatIDDPartitionStep(String harSource) {
+    this.harSource = harSource;
+  }
+
+  public String getHarSource() {
+    return harSource;
+  }
+
+  public int getShards() {
+    return shards;
+  }
+
+  @DataBoundSetter
+  public void setShards(int shards) {
+    this.shards = Math.max(1, shards);
+  }
+
+  @Override
+  public StepExecution start(StepContext context) throws Exception {
+    return new Execution(this, context);
+  }
+
+  private static class Execution extends SynchronousNonBlockingStepExecution<List<List<String>>> {
+    private static final long serialVersionUID = 1L;
+
+    private final transient WhiteHatIDDPartitionStep step;
+
+    Execution(WhiteHatIDDPartitionStep step, StepContext context) {
+      super(context);
+      this.step = step;
+    }
+
+    @Override
+    protected List<List<String>> run() throws Exception {
+      FilePath workspace = getContext().get(FilePath.class);
+      Run<?, ?> run = getContext().get(Run.class);
+      TaskListener listener = getContext().get(TaskListener.class);
+
+      FilePath harSourceFilePath = workspace.child(step.harSource);
+      // partitions are balanced by the scan times of the previous successful build, longest first, and by size for
+      // HAR files without one; names and sizes need no digests, the HAR files are read by the branches scanning them
+      HarListing listing = harSourceFilePath.act(new HarDiscovery(null, false));
+      if (!listing.exists()) {
+        throw new AbortException("HAR file does NOT exist: " + harSourceFilePath);
+      }
+
+      Map<String, Long> durations = new HashMap<>();
+      Run<?, ?> previousBuild = run.getPreviousSuccessfulBuild();
+      ScanIndexAction previousIndex = ScanIndexAction.forHarSource(previousBuild, step.harSource);
+      if (previousIndex != null) {
+        previousIndex.getEntries().forEach((name, entry) -> durations.put(name, entry.getDurationMillis()));
+        listener.getLogger().println("partition " + listing.getFiles().size() + " HAR files by the scan times of build #"
+            + previousBuild.getNumber());
+      } else {
+        listener.getLogger().println("partition " + listing.getFiles().size() + " HAR files by size, no earlier scan times");
+      }
+
+      List<List<String>> result = new ArrayList<>();
+      List<HarPartitioner.Shard> shards = HarPartitioner.partition(listing.getFiles(), durations, step.shards);
+      for (int i = 0; i < shards.size(); i++) {
+        HarPartitioner.Shard shard = shards.get(i);
+        List<String> names = new ArrayList<>();
+        long size = 0;
+        for (HarFile har : shard.hars) {
+          names.add(har.getName());
+          size += har.getSize();
+        }
+        result.add(names);
+        listener.getLogger().println("shard " + (i + 1) + ": " + names.size() + " HAR files, " + size + " bytes"
+            + (previousIndex != null ? ", expected " + Util.getTimeSpanString(shard.expectedMillis) : ""));
+      }
+      return result;
+    }
+  }
+
+  @Extension
+  public static final class DescriptorImpl extends StepDescriptor {
+    public static final int defaultShards = 2;
+
+    @Override
+    public String getFunctionName() {
+      return "whsIddPartition";
+    }
+
+    @Override
+    public String getDisplayName() {
+      return Messages.WhiteHatIDDPartitionStep_DisplayName();
+    }
+
+    @Override
+    public Set<? extends Class<?>> getRequiredContext() {
+      return new HashSet<>(Arrays.asList(FilePath.class, Run.class, TaskListener.class));
+    }
+
+    @Override
+    public String getHelpFile(String fieldName) {
+      if ("harSource".equals(fieldName)) {
+        return Jenkins.get().getDescriptorOrDie(WhiteHatIDDBuilder.class).getHelpFile(fieldName);
+      }
+      return super.getHelpFile(fieldName);
+    }
+
+    public FormValidation doCheckShards(@QueryParameter String value) {
+      return FormValidation.validatePositiveInteger(value);
+    }
+  }
+}
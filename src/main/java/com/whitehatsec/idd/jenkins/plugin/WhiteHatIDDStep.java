@@ -0,0 +1,112 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.EnumUtils;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.TaskListener;
+import hudson.util.ListBoxModel;
+import jenkins.model.Jenkins;
+
+/**
+ * Pipeline step running the scanner as a durable background process. Unlike {@code whsIdd} it does not hold a
+ * pipeline thread while the scan runs, and a scan that is running when the controller restarts is picked up again.
+ */
+public class WhiteHatIDDStep extends Step {
+  private final String harSource;
+  private String filterOnSeverity = DescriptorImpl.defaultFilterOnSeverity;
+  private String failOnSeverity = DescriptorImpl.defaultFailOnSeverity;
+  private List<WhiteHatIDDHostMapping> hostMapping = new ArrayList<>();
+
+  @DataBoundConstructor
+  public WhiteHatIDDStep(String harSource) {
+    this.harSource = harSource;
+  }
+
+  public String getHarSource() {
+    return harSource;
+  }
+
+  public String getFilterOnSeverity() {
+    return filterOnSeverity;
+  }
+
+  @DataBoundSetter
+  public void setFilterOnSeverity(String filterOnSeverity) {
+    this.filterOnSeverity = EnumUtils.isValidEnum(Severity.class, filterOnSeverity.toUpperCase()) ? filterOnSeverity : DescriptorImpl.defaultFilterOnSeverity;
+  }
+
+  public String getFailOnSeverity() {
+    return failOnSeverity;
+  }
+
+  @DataBoundSetter
+  public void setFailOnSeverity(String failOnSeverity) {
+    this.failOnSeverity = EnumUtils.isValidEnum(Severity.class, failOnSeverity.toUpperCase()) ? failOnSeverity : DescriptorImpl.defaultFailOnSeverity;
+  }
+
+  public List<WhiteHatIDDHostMapping> getHostMapping() {
+    return hostMapping;
+  }
+
+  @DataBoundSetter
+  public void setHostMapping(List<WhiteHatIDDHostMapping> hostMapping) {
+    this.hostMapping = hostMapping != null ? new ArrayList<>(hostMapping) : new ArrayList<>();
+  }
+
+  @Override
+  public StepExecution start(StepContext context) throws Exception {
+    return new WhiteHatIDDStepExecution(this, context);
+  }
+
+  @Extension
+  public static final class DescriptorImpl extends StepDescriptor {
+    public static final String defaultFilterOnSeverity = WhiteHatIDDBuilder.DescriptorImpl.defaultFilterOnSeverity;
+    public static final String defaultFailOnSeverity = WhiteHatIDDBuilder.DescriptorImpl.defaultFailOnSeverity;
+
+    @Override
+    public String getFunctionName() {
+      return "whsIddScan";
+    }
+
+    @Override
+    public String getDisplayName() {
+      return Messages.WhiteHatIDDStep_DisplayName();
+    }
+
+    @Override
+    public Set<? extends Class<?>> getRequiredContext() {
+      return new HashSet<>(Arrays.asList(FilePath.class, Launcher.class, EnvVars.class, TaskListener.class));
+    }
+
+    /**
+     * Same fields as the build step, so share its help.
+     */
+    @Override
+    public String getHelpFile(String fieldName) {
+      return Jenkins.get().getDescriptorOrDie(WhiteHatIDDBuilder.class).getHelpFile(fieldName);
+    }
+
+    public ListBoxModel doFillFilterOnSeverityItems() {
+      return WhiteHatIDDBuilder.DescriptorImpl.fillSeverityItems();
+    }
+
+    public ListBoxModel doFillFailOnSeverityItems() {
+      return WhiteHatIDDBuilder.DescriptorImpl.fillSeverityItems();
+    }
+  }
+}
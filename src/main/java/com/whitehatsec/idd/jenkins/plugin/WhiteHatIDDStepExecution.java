@@ -0,0 +1,280 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.durabletask.BourneShellScript;
+import org.jenkinsci.plugins.durabletask.Controller;
+import org.jenkinsci.plugins.durabletask.DurableTask;
+import org.jenkinsci.plugins.durabletask.WindowsBatchScript;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepExecutionImpl;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import hudson.slaves.WorkspaceList;
+import jenkins.util.Timer;
+
+/**
+ * Prepares the settings and launches the scanner as a durable task on a remoting thread, then polls the task
+ * from a timer until it exits. Only the {@link Controller} of the task is persisted with the build, so after a
+ * controller restart {@link #onResume()} continues polling the process, which kept running on the agent.
+ */
+class WhiteHatIDDStepExecution extends AbstractStepExecutionImpl {
+  private static final long serialVersionUID = 1L;
+
+  static final long MIN_RECURRENCE_MILLIS = 250;
+  static final long MAX_RECURRENCE_MILLIS = 15000;
+
+  private final String harSource;
+  private final String filterOnSeverity;
+  private final String failOnSeverity;
+  private final List<WhiteHatIDDHostMapping> hostMapping;
+  private Controller controller;
+  private boolean done;
+  private transient long recurrenceMillis = MIN_RECURRENCE_MILLIS;
+  private transient Future<?> task;
+
+  WhiteHatIDDStepExecution(WhiteHatIDDStep step, StepContext context) {
+    super(context);
+    this.harSource = step.getHarSource();
+    this.filterOnSeverity = step.getFilterOnSeverity();
+    this.failOnSeverity = step.getFailOnSeverity();
+    this.hostMapping = new ArrayList<>(step.getHostMapping());
+  }
+
+  @Override
+  public boolean start() throws Exception {
+    // settings update and HAR discovery block on the agent, keep them off the pipeline thread and the shared timer
+    task = Computer.threadPoolForRemoting.submit(this::launch);
+    return false;
+  }
+
+  @Override
+  public void onResume() {
+    super.onResume();
+    synchronized (this) {
+      if (done) {
+        return;
+      }
+      if (controller == null) {
+        // the controller went down before the scanner was launched
+        task = Computer.threadPoolForRemoting.submit(this::launch);
+        return;
+      }
+    }
+    schedule(MIN_RECURRENCE_MILLIS);
+  }
+
+  @Override
+  public void stop(Throwable cause) throws Exception {
+    Controller running;
+    synchronized (this) {
+      if (done) {
+        // the scan already completed the step
+        return;
+      }
+      done = true;
+      running = controller;
+      if (task != null) {
+        task.cancel(false);
+      }
+    }
+    FilePath ws = getContext().get(FilePath.class);
+    Launcher launcher = getContext().get(Launcher.class);
+    if (running != null && ws != null && ws.toComputer() != null && launcher != null) {
+      running.stop(ws, launcher);
+    }
+    getContext().onFailure(cause);
+  }
+
+  @Override
+  public String getStatus() {
+    if (done) {
+      return "IDD scan finished";
+    }
+    return controller == null ? "preparing IDD scan of " + harSource : "waiting for IDD scan of " + harSource;
+  }
+
+  private void launch() {
+    try {
+      FilePath ws = getContext().get(FilePath.class);
+      EnvVars env = getContext().get(EnvVars.class);
+      Launcher launcher = getContext().get(Launcher.class);
+      TaskListener listener = getContext().get(TaskListener.class);
+      if (StringUtils.isBlank(env.get(WhiteHatIDDBuilder.IDD_HOME))) {
+        throw new AbortException("required env variable is not set yet: " + WhiteHatIDDBuilder.IDD_HOME);
+      }
+
+      String settingsPath = WhiteHatIDDBuilder.getSettingsPath(env, ws, listener);
+      listener.getLogger().println("update settings " + settingsPath);
+      List<HostMapping> hosts = WhiteHatIDDBuilder.getHostMappingSettings(hostMapping);
+      int requestDelay = WhiteHatIDDGlobalConfiguration.get().getRequestDelayMillis(WhiteHatIDDBuilder.getTargetHosts(hosts));
+      if (requestDelay < 0) {
+        requestDelay = WhiteHatIDDGlobalConfiguration.get().getTemplateRequestDelayMillis();
+      }
+      ws.child(settingsPath).act(new UpdateSettings(hosts, filterOnSeverity, failOnSeverity, requestDelay));
+
+      // the script scans every HAR file, their digests are not needed
+      HarListing listing = ws.child(harSource).act(new HarDiscovery(null, false));
+      if (!listing.exists()) {
+        throw new AbortException("HAR file does NOT exist: " + ws.child(harSource));
+      }
+      List<HarFile> hars = listing.getFiles();
+      if (hars.isEmpty()) {
+        listener.getLogger().println("no HAR files found in " + ws.child(harSource));
+        finish(0);
+        return;
+      }
+      String stagingPath = null;
+      if (StageArchives.anyCompressed(hars)) {
+        // the background script outlives this agent connection, so compressed HAR files are unpacked up front
+        // and deleted by the script
+        FilePath tempDir = WorkspaceList.tempDir(ws);
+        FilePath stagingDir = (tempDir == null ? ws : tempDir).createTempDir("idd-archives", null);
+        hars = stagingDir.act(new StageArchives(hars, false));
+        stagingPath = stagingDir.getRemote();
+      }
+      List<String> harPaths = new ArrayList<>();
+      for (HarFile har : hars) {
+        harPaths.add(har.getPath());
+      }
+
+      listener.getLogger().println("launch IDD in the background for " + harPaths.size() + " HAR files");
+      DurableTask script = launcher.isUnix()
+          ? new BourneShellScript(unixScript(settingsPath, harPaths, stagingPath))
+          : new WindowsBatchScript(windowsScript(settingsPath, harPaths, stagingPath));
+      Controller launched = script.launch(env, ws, launcher, listener);
+      synchronized (this) {
+        if (done) {
+          launched.stop(ws, launcher);
+          return;
+        }
+        controller = launched;
+      }
+      getContext().saveState();
+      schedule(MIN_RECURRENCE_MILLIS);
+    } catch (Exception e) {
+      fail(e);
+    }
+  }
+
+  private synchronized void schedule(long delayMillis) {
+    if (done) {
+      return;
+    }
+    recurrenceMillis = delayMillis;
+    task = Timer.get().schedule(this::check, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void check() {
+    Controller running;
+    synchronized (this) {
+      if (done || controller == null) {
+        return;
+      }
+      running = controller;
+    }
+    try {
+      FilePath ws = getContext().get(FilePath.class);
+      Launcher launcher = getContext().get(Launcher.class);
+      TaskListener listener = getContext().get(TaskListener.class);
+      if (ws == null || ws.toComputer() == null || launcher == null) {
+        // agent not connected (yet), keep the process and try again later
+        schedule(MAX_RECURRENCE_MILLIS);
+        return;
+      }
+      boolean output = running.writeLog(ws, listener.getLogger());
+      Integer exitCode = running.exitStatus(ws, launcher, listener);
+      if (exitCode == null) {
+        schedule(output ? MIN_RECURRENCE_MILLIS : Math.min(recurrenceMillis * 2, MAX_RECURRENCE_MILLIS));
+        return;
+      }
+      running.writeLog(ws, listener.getLogger());
+      running.cleanup(ws);
+      finish(exitCode);
+    } catch (IOException e) {
+      // most likely the agent went away, the durable task survives that
+      try {
+        getContext().get(TaskListener.class).getLogger().println("could not check IDD scan, will retry: " + e);
+      } catch (IOException|InterruptedException ignored) {
+        // no log to report to
+      }
+      schedule(MAX_RECURRENCE_MILLIS);
+    } catch (Exception e) {
+      fail(e);
+    }
+  }
+
+  private void finish(int exitCode) throws IOException, InterruptedException {
+    synchronized (this) {
+      if (done) {
+        return;
+      }
+      done = true;
+    }
+    getContext().get(TaskListener.class).getLogger().println("IDD returns exit code: " + exitCode);
+    if (exitCode == 0) {
+      getContext().onSuccess(null);
+    } else {
+      getContext().onFailure(new AbortException("IDD did not succeed"));
+    }
+  }
+
+  private void fail(Throwable cause) {
+    synchronized (this) {
+      if (done) {
+        return;
+      }
+      done = true;
+    }
+    getContext().onFailure(cause);
+  }
+
+  /**
+   * Scans the HAR files one after another, printing each exit code and exiting with the last non-zero one.
+   * The durable task runs the script with {@code sh -xe}, hence the {@code ||} around each scan.
+   *
+   * @param stagingPath directory of unpacked compressed HAR files, deleted after the scans, or {@code null}
+   */
+  static String unixScript(String settingsPath, List<String> harPaths, String stagingPath) {
+    StringBuilder script = new StringBuilder("rc=0\n");
+    for (String harPath : harPaths) {
+      script.append("code=0\n")
+          .append("\"$").append(WhiteHatIDDBuilder.IDD_HOME).append("/target/directed-dast-common\" -settings-file ")
+          .append(shellQuote(settingsPath)).append(' ').append(shellQuote(harPath)).append(" || code=$?\n")
+          .append("echo \"IDD returns exit code: $code\"\n")
+          .append("[ $code -eq 0 ] || rc=$code\n");
+    }
+    if (stagingPath != null) {
+      script.append("rm -rf ").append(shellQuote(stagingPath)).append('\n');
+    }
+    return script.append("exit $rc\n").toString();
+  }
+
+  static String windowsScript(String settingsPath, List<String> harPaths, String stagingPath) {
+    StringBuilder script = new StringBuilder("@echo off\r\nset rc=0\r\n");
+    for (String harPath : harPaths) {
+      script.append("\"%").append(WhiteHatIDDBuilder.IDD_HOME).append("%\\target\\directed-dast-common\" -settings-file \"")
+          .append(settingsPath).append("\" \"").append(harPath).append("\"\r\n")
+          .append("echo IDD returns exit code: %ERRORLEVEL%\r\n")
+          .append("if not %ERRORLEVEL% == 0 set rc=%ERRORLEVEL%\r\n");
+    }
+    if (stagingPath != null) {
+      script.append("rmdir /s /q \"").append(stagingPath).append("\"\r\n");
+    }
+    return script.append("exit /b %rc%\r\n").toString();
+  }
+
+  private static String shellQuote(String value) {
+    return "'" + value.replace("'", "'\\''") + "'";
+  }
+}
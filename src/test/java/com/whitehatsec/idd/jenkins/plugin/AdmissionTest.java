@@ -0,0 +1,25 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class AdmissionTest {
+
+    @Test
+    public void testHoldsBackScansOnOverloadedAgents() {
+        Admission admission = new Admission(150, 512);
+
+        assertNull(admission.overload(new Admission.Load(5.9, 4, 1024)));
+        assertEquals("load average 6.50 above 150% of 4 processors", admission.overload(new Admission.Load(6.5, 4, 1024)));
+        assertEquals("available memory 100 MB below 512 MB", admission.overload(new Admission.Load(1, 4, 100)));
+    }
+
+    @Test
+    public void testUnknownValuesAdmitScans() {
+        assertNull(new Admission(150, 512).overload(new Admission.Load(-1, 4, -1)));
+        assertFalse(new Admission(0, 0).isEnabled());
+    }
+}
@@ -0,0 +1,122 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.Functions;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.slaves.EnvironmentVariablesNodeProperty;
+
+public class BaselineTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testLargeBaselineLookup() throws Exception {
+        StringBuilder file = new StringBuilder("# accepted findings\n\n");
+        for (int i = 0; i < 200000; i++) {
+            file.append(Digests.sha256(("finding " + i).getBytes(StandardCharsets.UTF_8))).append("\tHigh sqli\n");
+        }
+        file.append("not-a-fingerprint\n");
+
+        Baseline baseline = Baseline.parse(new ByteArrayInputStream(file.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(200000, baseline.size());
+        for (int i = 0; i < 200000; i += 997) {
+            assertTrue(baseline.contains(Digests.sha256(("finding " + i).getBytes(StandardCharsets.UTF_8))));
+        }
+        assertFalse(baseline.contains(Digests.sha256("finding -1".getBytes(StandardCharsets.UTF_8))));
+        assertFalse(baseline.contains("not-a-fingerprint"));
+    }
+
+    @Test
+    public void testLoadReusesBaselineUntilFileChanges() throws Exception {
+        String accepted = FindingsIndex.fingerprint(FindingsIndexTest.finding("High", "http://app.test/a", "q"));
+        String added = FindingsIndex.fingerprint(FindingsIndexTest.finding("High", "http://app.test/b", "q"));
+        File file = tmp.newFile("baseline.txt");
+        Files.write(file.toPath(), (accepted + "\n").getBytes(StandardCharsets.UTF_8));
+
+        Baseline first = Baseline.load(file);
+        assertSame(first, Baseline.load(file));
+
+        Files.write(file.toPath(), (accepted + "\n" + added + "\n").getBytes(StandardCharsets.UTF_8));
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        Baseline changed = Baseline.load(file);
+
+        assertNotSame(first, changed);
+        assertTrue(changed.contains(added));
+        assertFalse(first.contains(added));
+        assertTrue(changed.apply(FindingsIndexTest.finding("High", "http://app.test/b?id=1", "q")).isSuppressed());
+        assertFalse(changed.apply(FindingsIndexTest.finding("Low", "http://app.test/b", "q")).isSuppressed());
+    }
+
+    @Test
+    public void testLoadedBaselinesAreBounded() throws Exception {
+        for (int i = 0; i < Baseline.MAX_LOADED * 2; i++) {
+            File file = tmp.newFile("baseline-" + i + ".txt");
+            Files.write(file.toPath(), (Digests.sha256(("finding " + i).getBytes(StandardCharsets.UTF_8)) + "\n").getBytes(StandardCharsets.UTF_8));
+            Baseline.load(file);
+        }
+
+        assertTrue(Baseline.loadedCount() <= Baseline.MAX_LOADED);
+    }
+
+    @Test
+    public void testBuildSucceedsWhenBaselineCoversFindings() throws Exception {
+        Assume.assumeFalse("stand-in scanner is a shell script", Functions.isWindows());
+        File iddHome = tmp.newFolder("idd");
+        new StandInScanner().findingsPerHar(2, Severity.HIGH).exitCodeOnFindings(1).install(iddHome);
+        EnvironmentVariablesNodeProperty prop = new EnvironmentVariablesNodeProperty();
+        prop.getEnvVars().put("DIRECTED_DAST_HOME", iddHome.getAbsolutePath());
+        jenkins.jenkins.getGlobalNodeProperties().add(prop);
+        WhiteHatIDDGlobalConfiguration.get().setSettingsTemplate("{}");
+        File hars = tmp.newFolder("hars");
+        for (String name : new String[] {"a.har", "b.har"}) {
+            Files.write(new File(hars, name).toPath(), "{\"log\":{\"entries\":[]}}".getBytes(StandardCharsets.UTF_8));
+        }
+
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        WhiteHatIDDBuilder builder = new WhiteHatIDDBuilder(hars.getAbsolutePath());
+        builder.setFailOnSeverity(Severity.LOW.level);
+        builder.setCollectFindings(true);
+        builder.setForceFullScan(true);
+        project.getBuildersList().add(builder);
+        FreeStyleBuild failed = jenkins.assertBuildStatus(Result.FAILURE, project.scheduleBuild2(0));
+
+        File baselineFile = tmp.newFile("idd-baseline.txt");
+        StringBuilder baseline = new StringBuilder();
+        for (Finding finding : failed.getAction(FindingsAction.class).readAllFindings()) {
+            baseline.append(FindingsIndex.fingerprint(finding)).append('\n');
+        }
+        Files.write(baselineFile.toPath(), baseline.toString().getBytes(StandardCharsets.UTF_8));
+        builder.setBaselineFile(baselineFile.getAbsolutePath());
+
+        FreeStyleBuild scanned = jenkins.buildAndAssertSuccess(project);
+        assertEquals(0, scanned.getAction(FindingsAction.class).getTotal().getTotal());
+        assertEquals(4, scanned.getAction(FindingsAction.class).getTotal().getSuppressed());
+
+        builder.setBatchSize(2);
+        FreeStyleBuild batched = jenkins.buildAndAssertSuccess(project);
+        assertEquals(4, batched.getAction(FindingsAction.class).getTotal().getSuppressed());
+    }
+}
@@ -0,0 +1,39 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class BoundedConsoleOutputStreamTest {
+
+    @Test
+    public void testHeadTailAndErrorLines() throws Exception {
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        ByteArrayOutputStream fullLog = new ByteArrayOutputStream();
+        StringBuilder expectedFullLog = new StringBuilder();
+        try (PrintStream consoleStream = new PrintStream(console, true, "UTF-8");
+            BoundedConsoleOutputStream out = new BoundedConsoleOutputStream(consoleStream, consoleStream, fullLog,
+                StandardCharsets.UTF_8, 2, 2, "test.har")) {
+            for (int i = 1; i <= 10; i++) {
+                String line = i == 5 ? "ERROR connection refused\n" : "line " + i + "\n";
+                expectedFullLog.append(line);
+                out.write(line.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        assertEquals(expectedFullLog.toString(), fullLog.toString("UTF-8"));
+        String[] lines = console.toString("UTF-8").split("\\r?\\n");
+        assertEquals("line 1", lines[0]);
+        assertEquals("line 2", lines[1]);
+        assertEquals("ERROR connection refused", lines[2]);
+        assertTrue(lines[3].contains("5 lines omitted"));
+        assertEquals("line 9", lines[4]);
+        assertEquals("line 10", lines[5]);
+        assertEquals(6, lines.length);
+    }
+}
@@ -0,0 +1,141 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.JsonObject;
+
+public class FindingsIndexTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    static Finding finding(String severity, String url, String parameter) {
+        JsonObject json = new JsonObject();
+        json.addProperty("severity", severity);
+        json.addProperty("attackModule", "sqli");
+        json.addProperty("title", "SQL Injection");
+        json.addProperty("method", "GET");
+        json.addProperty("url", url);
+        json.addProperty("parameter", parameter);
+        return Finding.fromJson(json, "app.har");
+    }
+
+    @Test
+    public void testDiffsAndCompaction() throws Exception {
+        File file = new File(tmp.getRoot(), FindingsIndex.INDEX_FILE);
+        Finding users = finding("High", "http://app.test/users/17?page=1", "q");
+        Finding orders = finding("Low", "http://app.test/orders", "id");
+        Finding search = finding("High", "http://app.test/search", "q");
+
+        FindingsIndex index = FindingsIndex.load(file);
+        index.record(1, Arrays.asList(users, orders));
+        index.record(2, Arrays.asList(finding("High", "http://APP.test/users/42", "q"), search));
+        index.record(3, Collections.singletonList(search));
+
+        FindingsIndex.Diff diff = index.getDiff(2);
+        assertEquals(1, diff.getPreviousBuild());
+        assertEquals(1, diff.getNewCount());
+        assertEquals(1, diff.getFixedCount());
+        assertEquals(1, diff.getRecurringCount());
+        assertEquals(Integer.valueOf(2), index.getCounts(2).get(Severity.HIGH));
+        assertTrue(index.isNew(search, 2));
+        assertFalse(index.isNew(users, 2));
+        assertEquals(2, index.get(FindingsIndex.fingerprint(users)).getLastSeen());
+
+        FindingsIndex reloaded = FindingsIndex.load(file);
+        assertEquals(3, reloaded.size());
+        assertEquals(2, reloaded.get(FindingsIndex.fingerprint(users)).getLastSeen());
+        assertEquals(Arrays.asList(3, 2, 1), reloaded.getBuilds(10));
+
+        reloaded.compact(1);
+        reloaded.compact(2);
+        assertNull(reloaded.getDiff(2));
+        assertEquals(0, reloaded.getDiff(3).getPreviousBuild());
+        assertEquals(1, reloaded.size());
+
+        FindingsIndex compacted = FindingsIndex.load(file);
+        assertEquals(Collections.singletonList(3), compacted.getBuilds(10));
+        assertEquals(1, compacted.size());
+        assertEquals(2, compacted.get(FindingsIndex.fingerprint(search)).getFirstSeen());
+    }
+
+    @Test
+    public void testSuppressedFindingsAreNotCounted() throws Exception {
+        Finding accepted = finding("High", "http://app.test/users/17", "q");
+        accepted.setSuppressed(true);
+        Finding search = finding("High", "http://app.test/search", "q");
+
+        FindingsIndex index = FindingsIndex.load(new File(tmp.getRoot(), FindingsIndex.INDEX_FILE));
+        index.record(1, Arrays.asList(accepted, search));
+
+        assertEquals(Integer.valueOf(1), index.getCounts(1).get(Severity.HIGH));
+        assertEquals(1, index.get(FindingsIndex.fingerprint(accepted)).getFirstSeen());
+    }
+
+    @Test
+    public void testIndexGrowsWithDistinctFindingsNotBuilds() throws Exception {
+        File file = new File(tmp.getRoot(), FindingsIndex.INDEX_FILE);
+        List<Finding> findings = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            findings.add(finding("High", "http://app.test/search" + i, "q"));
+        }
+
+        FindingsIndex index = FindingsIndex.load(file);
+        for (int build = 1; build <= 20; build++) {
+            index.record(build, findings);
+        }
+
+        assertEquals(50 + 20, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+        assertEquals(50, index.getDiff(20).getRecurringCount());
+        assertEquals(20, FindingsIndex.load(file).get(FindingsIndex.fingerprint(findings.get(0))).getLastSeen());
+    }
+
+    @Test
+    public void testInstancesLoadedSeparatelyKeepEachOthersBuilds() throws Exception {
+        File file = new File(tmp.getRoot(), FindingsIndex.INDEX_FILE);
+        Finding search = finding("High", "http://app.test/search", "q");
+        FindingsIndex first = FindingsIndex.load(file);
+        FindingsIndex second = FindingsIndex.load(file);
+
+        first.record(1, Collections.singletonList(search));
+        second.record(2, Collections.singletonList(search));
+
+        FindingsIndex reloaded = FindingsIndex.load(file);
+        assertEquals(Arrays.asList(2, 1), reloaded.getBuilds(10));
+        assertEquals(1, reloaded.getDiff(2).getRecurringCount());
+    }
+
+    @Test
+    public void testIndexWithFingerprintsPerBuildIsMigrated() throws Exception {
+        File file = new File(tmp.getRoot(), FindingsIndex.INDEX_FILE);
+        String users = FindingsIndex.fingerprint(finding("High", "http://app.test/users", "q"));
+        String search = FindingsIndex.fingerprint(finding("High", "http://app.test/search", "q"));
+        Files.write(file.toPath(), Arrays.asList(
+                "{\"fingerprint\":{\"fingerprint\":\"" + users + "\",\"firstSeen\":1}}",
+                "{\"fingerprint\":{\"fingerprint\":\"" + search + "\",\"firstSeen\":2}}",
+                "{\"build\":1,\"counts\":{\"HIGH\":1},\"seen\":[\"" + users + "\"]}",
+                "{\"build\":2,\"counts\":{\"HIGH\":2},\"seen\":[\"" + users + "\",\"" + search + "\"]}"),
+                StandardCharsets.UTF_8);
+
+        FindingsIndex index = FindingsIndex.load(file);
+
+        assertEquals(2, index.get(users).getLastSeen());
+        assertEquals(1, index.getDiff(2).getNewCount());
+        assertEquals(1, index.getDiff(2).getRecurringCount());
+    }
+}
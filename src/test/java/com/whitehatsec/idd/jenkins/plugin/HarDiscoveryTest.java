@@ -0,0 +1,137 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HarDiscoveryTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testEntriesCountedWhileDigesting() throws Exception {
+        File dir = tmp.newFolder("hars");
+        File har = new File(dir, "app.har");
+        Files.write(har.toPath(), HarFilterTest.har(
+            HarFilterTest.entry("GET", "http://app.test/1"),
+            HarFilterTest.entry("POST", "http://app.test/2", "q")).getBytes(StandardCharsets.UTF_8));
+        File other = new File(dir, "broken.har");
+        Files.write(other.toPath(), "not a har".getBytes(StandardCharsets.UTF_8));
+
+        HarListing listing = new HarDiscovery().invoke(dir, null);
+
+        assertEquals(2, listing.getFiles().size());
+        HarFile app = listing.getFiles().get(0);
+        assertEquals("app.har", app.getName());
+        assertEquals(2, app.getEntries());
+        assertEquals(Digests.sha256(har), app.getDigest());
+        HarFile broken = listing.getFiles().get(1);
+        assertEquals(-1, broken.getEntries());
+        assertEquals(Digests.sha256(other), broken.getDigest());
+    }
+
+    @Test
+    public void testArchivesListedWithoutUnpacking() throws Exception {
+        File dir = tmp.newFolder("archives");
+        byte[] login = HarFilterTest.har(HarFilterTest.entry("POST", "http://app.test/login", "user")).getBytes(StandardCharsets.UTF_8);
+        byte[] search = HarFilterTest.har(
+            HarFilterTest.entry("GET", "http://app.test/search", "q"),
+            HarFilterTest.entry("GET", "http://app.test/search/2", "q")).getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(new File(dir, "login.har.gz")))) {
+            out.write(login);
+        }
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(new File(dir, "bundle.zip")))) {
+            zip.putNextEntry(new ZipEntry("readme.txt"));
+            zip.write("not scanned".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("flows/search.har"));
+            zip.write(search);
+        }
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GZIPOutputStream(new FileOutputStream(new File(dir, "run.tar.gz"))))) {
+            TarArchiveEntry entry = new TarArchiveEntry("login.har");
+            entry.setSize(login.length);
+            tar.putArchiveEntry(entry);
+            tar.write(login);
+            tar.closeArchiveEntry();
+        }
+
+        HarListing listing = new HarDiscovery().invoke(dir, null);
+
+        List<HarFile> files = listing.getFiles();
+        assertEquals(3, files.size());
+        assertEquals("bundle.zip!/flows/search.har", files.get(0).getName());
+        assertEquals(2, files.get(0).getEntries());
+        assertEquals(search.length, files.get(0).getSize());
+        assertEquals("login.har.gz", files.get(1).getName());
+        assertEquals(1, files.get(1).getEntries());
+        assertEquals("run.tar.gz!/login.har", files.get(2).getName());
+        assertEquals(files.get(1).getDigest(), files.get(2).getDigest());
+        for (HarFile har : files) {
+            try (InputStream in = HarArchives.open(har)) {
+                assertEquals(har.getSize(), IOUtils.toByteArray(in).length);
+            }
+        }
+
+        File stagingDir = new File(tmp.getRoot(), "staged");
+        List<HarFile> staged = new StageArchives(files, false).invoke(stagingDir, null);
+        assertFalse(staged.get(0).isCompressed());
+        assertEquals("bundle.zip!/flows/search.har", staged.get(0).getName());
+        assertEquals(Arrays.asList(search.length, login.length, login.length),
+            Arrays.asList((int) new File(staged.get(0).getPath()).length(), (int) new File(staged.get(1).getPath()).length(),
+                (int) new File(staged.get(2).getPath()).length()));
+        new StageArchives.Unstage().invoke(stagingDir, null);
+        assertFalse(stagingDir.exists());
+    }
+
+    @Test
+    public void testNamedHarFilesListedWithoutWalking() throws Exception {
+        File dir = tmp.newFolder("named");
+        byte[] search = HarFilterTest.har(HarFilterTest.entry("GET", "http://app.test/search", "q")).getBytes(StandardCharsets.UTF_8);
+        new File(dir, "a").mkdirs();
+        Files.write(new File(dir, "a/one.har").toPath(), search);
+        Files.write(new File(dir, "a/two.har").toPath(), search);
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(new File(dir, "bundle.zip")))) {
+            zip.putNextEntry(new ZipEntry("search.har"));
+            zip.write(search);
+            zip.putNextEntry(new ZipEntry("other.har"));
+            zip.write(search);
+        }
+        Files.write(tmp.newFile("outside.har").toPath(), search);
+
+        List<HarFile> files = new HarDiscovery(Arrays.asList("a/two.har", "bundle.zip!/search.har", "../outside.har", "missing.har"), true)
+            .invoke(dir, null).getFiles();
+
+        assertEquals(2, files.size());
+        assertEquals("a/two.har", files.get(0).getName());
+        assertEquals(Digests.sha256(new File(dir, "a/two.har")), files.get(0).getDigest());
+        assertEquals("bundle.zip!/search.har", files.get(1).getName());
+        assertEquals(1, files.get(1).getEntries());
+
+        List<HarFile> sizes = new HarDiscovery(null, false).invoke(dir, null).getFiles();
+        assertEquals(4, sizes.size());
+        for (HarFile har : sizes) {
+            assertEquals(search.length, har.getSize());
+            assertNull(har.getDigest());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HarFilterTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    static String entry(String method, String url, String... params) {
+        StringBuilder query = new StringBuilder();
+        for (String param : params) {
+            query.append(query.length() == 0 ? "" : ",").append("{\"name\":\"").append(param).append("\",\"value\":\"x\"}");
+        }
+        return "{\"request\":{\"method\":\"" + method + "\",\"url\":\"" + url + "\",\"queryString\":[" + query + "]}}";
+    }
+
+    static String har(String... entries) {
+        return "{\"log\":{\"version\":\"1.2\",\"creator\":{\"name\":\"test\"},\"entries\":[" + String.join(",", entries) + "]}}";
+    }
+
+    Configuration config() {
+        Configuration config = new Configuration();
+        config.setExcludedUrls(Collections.singletonList("logout"));
+        config.setExcludedFileExtensions(Arrays.asList("png", "css"));
+        config.setExcludedParameters(Collections.singletonList("jsessionid"));
+        config.setAllowedHosts(Collections.<String>emptyList());
+        return config;
+    }
+
+    @Test
+    public void testExcludedAndDuplicateEntriesAreDropped() throws Exception {
+        File in = tmp.newFile("in.har");
+        Files.write(in.toPath(), har(
+            entry("GET", "http://app.test/index.html"),
+            entry("GET", "http://app.test/logo.PNG"),
+            entry("GET", "http://app.test/logout"),
+            entry("GET", "http://app.test/index.html"),
+            entry("POST", "http://app.test/index.html")).getBytes(StandardCharsets.UTF_8));
+        File out = new File(tmp.getRoot(), "out.har");
+
+        FilterStats stats = new HarFilter(config()).filter("in.har", in, out);
+
+        assertEquals(5, stats.getEntriesIn());
+        assertEquals(2, stats.getExcluded());
+        assertEquals(1, stats.getDuplicates());
+        assertEquals(2, stats.getEntriesOut());
+        String filtered = new String(Files.readAllBytes(out.toPath()), StandardCharsets.UTF_8);
+        assertTrue(filtered.startsWith("{\"log\":{\"version\":\"1.2\",\"creator\":{\"name\":\"test\"},\"entries\":["));
+    }
+
+    @Test
+    public void testDuplicatesAreOnlyCollapsedWithinFile() throws Exception {
+        File first = tmp.newFile("first.har");
+        File second = tmp.newFile("second.har");
+        Files.write(first.toPath(), har(entry("GET", "http://app.test/api?id=1&jsessionid=a", "id", "jsessionid")).getBytes(StandardCharsets.UTF_8));
+        Files.write(second.toPath(), har(entry("GET", "http://app.test/api?id=2", "id"), entry("GET", "http://app.test/api?id=3", "id"),
+            entry("GET", "http://app.test/api?id=2&page=3", "id", "page")).getBytes(StandardCharsets.UTF_8));
+
+        HarFilter filter = new HarFilter(config());
+        filter.filter("first.har", first, new File(tmp.getRoot(), "first.out.har"));
+        FilterStats stats = filter.filter("second.har", second, new File(tmp.getRoot(), "second.out.har"));
+
+        // the filtered copy of second.har does not depend on first.har, which may change without it
+        assertEquals(1, stats.getDuplicates());
+        assertEquals(2, stats.getEntriesOut());
+    }
+
+    @Test
+    public void testMalformedHarIsLeftUnfiltered() throws Exception {
+        File settings = tmp.newFile("settings.json");
+        Files.write(settings.toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+        File good = tmp.newFile("good.har");
+        File bad = tmp.newFile("bad.har");
+        Files.write(good.toPath(), har(entry("GET", "http://app.test/api?id=1", "id")).getBytes(StandardCharsets.UTF_8));
+        Files.write(bad.toPath(), "{\"log\":{\"entries\":[{\"request\":".getBytes(StandardCharsets.UTF_8));
+        File filtered = tmp.newFolder("filtered");
+
+        List<FilterStats> stats = new PreFilterHars(settings.getPath(), Arrays.asList(
+            new HarFile(good.getPath(), "good.har", good.length(), good.lastModified(), "1"),
+            new HarFile(bad.getPath(), "bad.har", bad.length(), bad.lastModified(), "2"))).invoke(filtered, null);
+
+        assertFalse(stats.get(0).isUnfiltered());
+        assertEquals(1, stats.get(0).getEntriesOut());
+        assertTrue(stats.get(1).isUnfiltered());
+        assertEquals(bad.getPath(), stats.get(1).getFilteredPath());
+        assertFalse(new File(filtered, "bad.har").exists());
+    }
+}
@@ -0,0 +1,66 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class HarPartitionerTest {
+
+    static HarFile har(String name, long size) {
+        return new HarFile("/hars/" + name, name, size, 0, name);
+    }
+
+    static List<String> names(HarPartitioner.Shard shard) {
+        List<String> names = new ArrayList<>();
+        for (HarFile har : shard.hars) {
+            names.add(har.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testBalancesByRecordedDurations() {
+        List<HarFile> hars = Arrays.asList(har("a.har", 10), har("b.har", 10), har("c.har", 10), har("d.har", 10));
+        Map<String, Long> durations = new HashMap<>();
+        durations.put("a.har", 9000L);
+        durations.put("b.har", 5000L);
+        durations.put("c.har", 4000L);
+        durations.put("d.har", 1000L);
+
+        List<HarPartitioner.Shard> shards = HarPartitioner.partition(hars, durations, 2);
+
+        assertEquals(2, shards.size());
+        assertEquals(Arrays.asList("a.har", "d.har"), names(shards.get(0)));
+        assertEquals(10000L, shards.get(0).expectedMillis);
+        assertEquals(Arrays.asList("b.har", "c.har"), names(shards.get(1)));
+        assertEquals(9000L, shards.get(1).expectedMillis);
+    }
+
+    @Test
+    public void testEstimatesNewHarFilesFromSize() {
+        List<HarFile> hars = Arrays.asList(har("old.har", 100), har("new.har", 300), har("small.har", 50));
+        Map<String, Long> durations = Collections.singletonMap("old.har", 1000L);
+
+        List<HarPartitioner.Shard> shards = HarPartitioner.partition(hars, durations, 2);
+
+        assertEquals(Arrays.asList("new.har"), names(shards.get(0)));
+        assertEquals(3000L, shards.get(0).expectedMillis);
+        assertEquals(Arrays.asList("old.har", "small.har"), names(shards.get(1)));
+        assertEquals(1500L, shards.get(1).expectedMillis);
+    }
+
+    @Test
+    public void testNoMoreShardsThanHarFiles() {
+        List<HarPartitioner.Shard> shards = HarPartitioner.partition(Arrays.asList(har("a.har", 10)), Collections.emptyMap(), 4);
+
+        assertEquals(1, shards.size());
+        assertEquals(Arrays.asList("a.har"), names(shards.get(0)));
+    }
+}
@@ -0,0 +1,88 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HarProfileTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    static String post(String url, String body) {
+        return "{\"request\":{\"method\":\"POST\",\"url\":\"" + url + "\",\"postData\":{\"mimeType\":\"application/json\",\"text\":\""
+            + body + "\"}}}";
+    }
+
+    static HarProfile profile(String digest, String... entries) throws Exception {
+        return HarProfile.read(digest, new ByteArrayInputStream(HarFilterTest.har(entries).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static HostMapping mapping(String from, String to) {
+        HostMapping hm = new HostMapping();
+        hm.setEnable(true);
+        hm.setFrom(from);
+        hm.setTo(to);
+        return hm;
+    }
+
+    @Test
+    public void testCountsEntriesEndpointsAndPayloadByHost() throws Exception {
+        HarProfile profile = profile("abc",
+            HarFilterTest.entry("GET", "http://app.test/users/17"),
+            HarFilterTest.entry("GET", "http://app.test/users/42?x=1"),
+            post("http://app.test/users", "abcd"),
+            HarFilterTest.entry("GET", "https://cdn.test:8443/app.js"));
+
+        assertEquals(4, profile.getEntries());
+        assertEquals(4, profile.getPayloadBytes());
+        assertEquals(2, profile.getHosts().size());
+        HarProfile.Host app = profile.getHosts().get("app.test");
+        assertEquals(3, app.getEntries());
+        assertEquals("the same path template is one endpoint", 2, app.getEndpoints());
+        assertEquals(1, profile.getHosts().get("cdn.test:8443").getEndpoints());
+    }
+
+    @Test
+    public void testScopeAppliesAllowedHostsAndHostMapping() throws Exception {
+        HarProfile profile = profile("abc",
+            HarFilterTest.entry("GET", "http://app.test/a"),
+            HarFilterTest.entry("GET", "http://cdn.test:8443/b"),
+            HarFilterTest.entry("GET", "http://legacy.test/c"));
+
+        assertEquals(3, profile.inScope(null, Collections.<String>emptyList()).getHosts());
+        HarProfile.Scope scope = profile.inScope(Collections.singletonList(mapping("legacy.test", "app.test")),
+            Arrays.asList("app.test", "cdn.test"));
+        assertEquals("the port is ignored and mapped hosts count as their target", 3, scope.getHosts());
+        assertEquals(1, profile.inScope(null, Collections.singletonList("app.test")).getEndpoints());
+    }
+
+    @Test
+    public void testProfilesAreCachedByDigest() throws Exception {
+        File file = new File(tmp.getRoot(), HarProfiles.PROFILES_FILE);
+        HarProfile a = profile("a", HarFilterTest.entry("GET", "http://app.test/a"));
+        HarProfile b = profile("b", HarFilterTest.entry("GET", "http://app.test/b"));
+        HarProfiles.update(file, Collections.singletonList(a), 10);
+        Thread.sleep(5);
+        HarProfiles.update(file, Collections.singletonList(b), 10);
+
+        Map<String, HarProfile> loaded = HarProfiles.load(file);
+        assertEquals(2, loaded.size());
+        assertEquals(1, loaded.get("a").getHosts().get("app.test").getEndpoints());
+
+        HarProfiles.update(file, Collections.<HarProfile>emptyList(), 1);
+        loaded = HarProfiles.load(file);
+        assertTrue("the least recently used profile is evicted", loaded.containsKey("b"));
+        assertEquals(1, loaded.size());
+    }
+}
@@ -0,0 +1,53 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class HarSplitterTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testSplitOnEntryCount() throws Exception {
+        File in = tmp.newFile("big.har");
+        Files.write(in.toPath(), HarFilterTest.har(
+            HarFilterTest.entry("GET", "http://app.test/1"),
+            HarFilterTest.entry("GET", "http://app.test/2"),
+            HarFilterTest.entry("GET", "http://app.test/3"),
+            HarFilterTest.entry("GET", "http://app.test/4"),
+            HarFilterTest.entry("GET", "http://app.test/5")).getBytes(StandardCharsets.UTF_8));
+
+        List<File> shards = new HarSplitter(2, 0).split(in, tmp.getRoot(), "big");
+
+        assertEquals(3, shards.size());
+        for (File shard : shards) {
+            try (FileReader reader = new FileReader(shard)) {
+                JsonObject log = new JsonParser().parse(reader).getAsJsonObject().getAsJsonObject("log");
+                assertEquals("1.2", log.get("version").getAsString());
+                assertTrue(log.getAsJsonArray("entries").size() <= 2);
+            }
+        }
+    }
+
+    @Test
+    public void testSmallHarIsNotSplit() throws Exception {
+        File in = tmp.newFile("small.har");
+        Files.write(in.toPath(), HarFilterTest.har(HarFilterTest.entry("GET", "http://app.test/1")).getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(new HarSplitter(2, 0).split(in, tmp.getRoot(), "small").isEmpty());
+    }
+}
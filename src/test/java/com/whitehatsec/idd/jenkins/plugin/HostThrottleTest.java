@@ -0,0 +1,125 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+
+public class HostThrottleTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    final TaskListener listener = StreamTaskListener.fromStdout();
+    final List<String> staging = Collections.singletonList("staging.test:8443");
+    ExecutorService executor;
+    ScanContext ctx;
+
+    @Before
+    public void setUp() {
+        HostThrottle.reset();
+        ctx = new ScanContext(null, null, null, null, null, null, null, listener);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    void budget(int maxConcurrentScans, int maxRequestsPerSecond, boolean adaptive) {
+        WhiteHatIDDHostBudget budget = new WhiteHatIDDHostBudget("STAGING.test:8443");
+        budget.setMaxConcurrentScans(maxConcurrentScans);
+        budget.setMaxRequestsPerSecond(maxRequestsPerSecond);
+        WhiteHatIDDGlobalConfiguration.get().setHostBudgets(Arrays.asList(budget));
+        WhiteHatIDDGlobalConfiguration.get().setAdaptiveConcurrency(adaptive);
+    }
+
+    @Test
+    public void testHostsWithoutBudgetAreNotThrottled() throws Exception {
+        budget(1, 0, false);
+        assertNull(HostThrottle.acquire(Collections.singletonList("other.test"), ctx, listener));
+    }
+
+    @Test
+    public void testWaitsForFreeSlot() throws Exception {
+        budget(1, 0, false);
+        HostThrottle.Permit first = HostThrottle.acquire(staging, ctx, listener);
+        assertNotNull(first);
+
+        Future<HostThrottle.Permit> second = executor.submit(() -> HostThrottle.acquire(staging, ctx, listener));
+        try {
+            second.get(500, TimeUnit.MILLISECONDS);
+            throw new AssertionError("second scan must wait for the first");
+        } catch (TimeoutException expected) {
+        }
+        HostThrottle.release(first, 1000, 100, -1, listener);
+        assertNotNull(second.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancelWakesWaitingScans() throws Exception {
+        budget(1, 0, false);
+        HostThrottle.Permit first = HostThrottle.acquire(staging, ctx, listener);
+
+        ScanContext other = new ScanContext(null, null, null, null, null, null, null, listener);
+        Future<HostThrottle.Permit> second = executor.submit(() -> HostThrottle.acquire(staging, other, listener));
+        try {
+            second.get(500, TimeUnit.MILLISECONDS);
+            throw new AssertionError("second scan must wait for the first");
+        } catch (TimeoutException expected) {
+        }
+        other.cancel("fail fast");
+        assertNull(second.get(10, TimeUnit.SECONDS));
+        assertEquals(1, first.hosts.get(0).running);
+        HostThrottle.release(first, 1000, 100, -1, listener);
+    }
+
+    @Test
+    public void testBacksOffWhenTargetSlowsDown() throws Exception {
+        budget(4, 0, true);
+        HostThrottle.Permit permit = HostThrottle.acquire(staging, ctx, listener);
+        HostThrottle.release(permit, 1000, 100, -1, listener);
+        assertEquals(4, permit.hosts.get(0).slots());
+
+        permit = HostThrottle.acquire(staging, ctx, listener);
+        HostThrottle.release(permit, 5000, 100, -1, listener);
+        assertEquals(2, permit.hosts.get(0).slots());
+
+        permit = HostThrottle.acquire(staging, ctx, listener);
+        HostThrottle.release(permit, 1000, 100, 50, listener);
+        assertEquals(1, permit.hosts.get(0).slots());
+
+        for (int i = 0; i < 3; i++) {
+            permit = HostThrottle.acquire(staging, ctx, listener);
+            HostThrottle.release(permit, 1000, 100, 0, listener);
+        }
+        assertEquals(3, permit.hosts.get(0).slots());
+    }
+
+    @Test
+    public void testRequestDelaySplitsRateBetweenScans() {
+        budget(4, 20, true);
+        assertEquals(200, WhiteHatIDDGlobalConfiguration.get().getRequestDelayMillis(staging));
+        budget(0, 20, true);
+        assertEquals(50, WhiteHatIDDGlobalConfiguration.get().getRequestDelayMillis(staging));
+        assertEquals(-1, WhiteHatIDDGlobalConfiguration.get().getRequestDelayMillis(Collections.singletonList("other.test")));
+    }
+}
@@ -0,0 +1,25 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class InvocationTest {
+
+    @Test
+    public void testParseBashTimes() {
+        assertEquals(3690, Invocation.parseTimes("0m0.004s 0m0.002s\n1m2.500s 0m1.190s\n"));
+    }
+
+    @Test
+    public void testParseDashTimes() {
+        assertEquals(1500, Invocation.parseTimes("0m0.000000s 0m0.001000s\n0m1.000000s 0m0.500000s\n"));
+    }
+
+    @Test
+    public void testParseMissingTimes() {
+        assertEquals(-1, Invocation.parseTimes(""));
+        assertEquals(-1, Invocation.parseTimes("0m0.004s 0m0.002s\n"));
+        assertEquals(-1, Invocation.parseTimes(null));
+    }
+}
@@ -0,0 +1,66 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParseFindingsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testFindingsAreCountedPerHar() throws Exception {
+        File findings = tmp.newFile("findings.json");
+        Files.write(findings.toPath(), ("{\"findings\":["
+            + "{\"severity\":\"High\",\"attackModule\":\"sqli\",\"url\":\"http://app.test/a\",\"har\":\"/ws/b.har\"},"
+            + "{\"severity\":\"Low\",\"attackModule\":\"xss\",\"url\":\"http://app.test/b\"},"
+            + "{\"severity\":\"High\",\"attackModule\":\"sqli\",\"url\":\"http://app.test/c\"}"
+            + "]}").getBytes(StandardCharsets.UTF_8));
+
+        Map<String, FindingCounts> counts = new ParseFindings(Collections.singletonMap("/ws/b.har", "b.har"), "a.har")
+            .invoke(findings, null);
+
+        assertEquals(2, counts.get("a.har").getTotal());
+        assertEquals(1, counts.get("a.har").getCount(Severity.HIGH));
+        assertEquals(1, counts.get("b.har").getCountAtLeast(Severity.HIGH));
+        assertEquals(2, counts.get("a.har").getByModule().size());
+        assertEquals(3, Files.readAllLines(new File(findings.getPath() + ParseFindings.NORMALIZED_SUFFIX).toPath()).size());
+    }
+
+    @Test
+    public void testBaselineFindingsAreSuppressed() throws Exception {
+        File findings = tmp.newFile("findings.json");
+        Files.write(findings.toPath(), ("["
+            + "{\"severity\":\"High\",\"attackModule\":\"sqli\",\"url\":\"http://app.test/users/17?x=1\",\"parameter\":\"q\"},"
+            + "{\"severity\":\"High\",\"attackModule\":\"sqli\",\"url\":\"http://app.test/search\",\"parameter\":\"q\"}"
+            + "]").getBytes(StandardCharsets.UTF_8));
+        File baseline = tmp.newFile("baseline.txt");
+        Files.write(baseline.toPath(), ("# accepted\n"
+            + FindingsIndex.fingerprint(FindingsIndexTest.finding("High", "http://app.test/users/42", "q")) + "\tHigh sqli\n")
+            .getBytes(StandardCharsets.UTF_8));
+
+        Map<String, FindingCounts> counts = new ParseFindings(Collections.<String, String>emptyMap(), "app.har", baseline.getPath())
+            .invoke(findings, null);
+
+        assertEquals(1, counts.get("app.har").getCountAtLeast(Severity.HIGH));
+        assertEquals(1, counts.get("app.har").getSuppressed());
+        assertEquals(1, counts.get("app.har").getSuppressedAtLeast(Severity.HIGH));
+        assertEquals(0, counts.get("app.har").getSuppressedAtLeast(Severity.CRITICAL));
+        assertEquals(2, Files.readAllLines(new File(findings.getPath() + ParseFindings.NORMALIZED_SUFFIX).toPath()).size());
+    }
+
+    @Test
+    public void testMissingFindingsFile() throws Exception {
+        assertNull(new ParseFindings(Collections.<String, String>emptyMap(), "a.har").invoke(new File(tmp.getRoot(), "none.json"), null));
+    }
+}
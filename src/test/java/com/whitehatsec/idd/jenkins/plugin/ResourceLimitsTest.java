@@ -0,0 +1,73 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hudson.Util;
+
+public class ResourceLimitsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    static String run(List<String> command) throws Exception {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = process.getInputStream()) {
+            Util.copyStream(in, out);
+        }
+        assertEquals(3, process.waitFor());
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testNoLimitsLeaveTheCommandAlone() {
+        assertEquals(Arrays.asList("sh", "-c", "\"$@\"; rc=$?; times > \"$0\"; exit $rc", "times", "scan", "a.har"),
+            ResourceLimits.wrap(Arrays.asList("scan", "a.har"), 0, 0, "times"));
+    }
+
+    @Test
+    public void testScannerRunsWithinLimitsAndKeepsItsExitCode() throws Exception {
+        assumeTrue(File.pathSeparatorChar == ':');
+        File times = new File(tmp.getRoot(), "times");
+        String output = run(ResourceLimits.wrap(Arrays.asList("sh", "-c", "echo scanned; exit 3"), 512, 200, times.getPath()));
+
+        assertTrue(output, output.contains("scanned"));
+        assertTrue(times.isFile());
+    }
+
+    @Test
+    public void testPathsAreNotInterpretedByTheShell() throws Exception {
+        assumeTrue(File.pathSeparatorChar == ':');
+        String har = "/ws/hars/a b;echo injected;.har";
+        List<String> scanner = Arrays.asList("sh", "-c", "printf '[%s]\\n' \"$@\"; exit 3", "scanner", har);
+        for (int maxMemoryMB : new int[] {0, 512}) {
+            File times = new File(tmp.getRoot(), "times dir;echo injected");
+            String output = run(ResourceLimits.wrap(scanner, maxMemoryMB, 0, times.getPath()));
+
+            assertTrue(output, output.contains("[" + har + "]"));
+            assertFalse(output, output.contains("\ninjected") || output.startsWith("injected"));
+            assertTrue(times.isFile());
+        }
+    }
+
+    @Test
+    public void testOnlyKillsWithAMemoryLimitAreMemoryKills() {
+        assertTrue(ResourceLimits.isMemoryKill(137, 512));
+        assertFalse(ResourceLimits.isMemoryKill(137, 0));
+        assertFalse(ResourceLimits.isMemoryKill(1, 512));
+    }
+}
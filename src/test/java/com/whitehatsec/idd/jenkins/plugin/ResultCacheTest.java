@@ -0,0 +1,113 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class ResultCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    static JsonObject entry(String method, String url, String... params) {
+        return new JsonParser().parse(HarFilterTest.entry(method, url, params)).getAsJsonObject();
+    }
+
+    static ResultCacheKeys keys(String appVersion) {
+        HostMapping mapping = new HostMapping();
+        mapping.setFrom("localhost:27374");
+        mapping.setTo("staging.test");
+        mapping.setEnable(true);
+        return new ResultCacheKeys(Collections.singletonList(mapping), Collections.singletonList("jsessionid"),
+                Arrays.asList("sqli", "xss"), "High", appVersion);
+    }
+
+    @Test
+    public void testKeyIsRequestSignatureAndAppVersion() {
+        ResultCacheKeys keys = keys("1.0");
+        assertEquals("GET http://staging.test/users/{id}/orders/{id}",
+                keys.endpoint(entry("GET", "http://localhost:27374/users/42/orders/0f8fad5b-d9cb-469f-a165-70867728950e")));
+        assertEquals(keys.key(entry("GET", "http://localhost:27374/users/42?a=1", "a", "jsessionid")),
+                keys.key(entry("GET", "http://staging.test/users/43?a=2", "a")));
+        assertNotEquals(keys.key(entry("GET", "http://staging.test/users/43", "a")),
+                keys.key(entry("GET", "http://staging.test/users/43", "b")));
+        assertNotEquals(keys.key(entry("GET", "http://staging.test/users/43", "a")),
+                keys("1.1").key(entry("GET", "http://staging.test/users/43", "a")));
+    }
+
+    @Test
+    public void testCachedEntriesAreDropped() throws Exception {
+        ResultCacheKeys keys = keys("1.0");
+        File in = tmp.newFile("in.har");
+        Files.write(in.toPath(), HarFilterTest.har(
+                HarFilterTest.entry("GET", "http://staging.test/cached"),
+                HarFilterTest.entry("GET", "http://staging.test/new")).getBytes(StandardCharsets.UTF_8));
+        String cachedKey = keys.key(entry("GET", "http://staging.test/cached"));
+
+        Configuration config = new Configuration();
+        FilterStats stats = new HarFilter(config).withResultCache(keys, Collections.singleton(cachedKey))
+                .filter("in.har", in, new File(tmp.getRoot(), "out.har"));
+
+        assertEquals(1, stats.getCached());
+        assertEquals(1, stats.getEntriesOut());
+        assertEquals(Collections.singletonList(cachedKey), stats.getCachedKeys());
+        assertEquals("GET http://staging.test/new", stats.getKeptKeys().values().iterator().next());
+    }
+
+    @Test
+    public void testOnlyCompleteScansAreCached() {
+        HarFile har = new HarFile("/ws/hars/app.har", "app.har", 100, 0, null);
+        FindingCounts none = new FindingCounts();
+        FindingCounts high = new FindingCounts();
+        high.add(FindingsIndexTest.finding("High", "http://staging.test/a", "q"));
+        FindingCounts low = new FindingCounts();
+        low.add(FindingsIndexTest.finding("Low", "http://staging.test/a", "q"));
+
+        assertTrue(ResultCacheUse.isComplete(new ScanResult(har, 0, 10, false, none), Severity.HIGH));
+        assertTrue(ResultCacheUse.isComplete(new ScanResult(har, 1, 10, false, high), Severity.HIGH));
+        // failed or timed out with partial findings, endpoints without findings may not have been attacked
+        assertFalse(ResultCacheUse.isComplete(new ScanResult(har, 1, 10, false, none), Severity.HIGH));
+        assertFalse(ResultCacheUse.isComplete(new ScanResult(har, 1, 10, false, low), Severity.HIGH));
+        assertFalse(ResultCacheUse.isComplete(new ScanResult(har, -1, 10, false, high), Severity.HIGH));
+        assertFalse(ResultCacheUse.isComplete(new ScanResult(har, 143, 10, false, high), Severity.HIGH));
+        assertFalse(ResultCacheUse.isComplete(new ScanResult(har, 0, 10, false, null), Severity.HIGH));
+        assertFalse(ResultCacheUse.isComplete(ScanResult.cancelled(har, 10), Severity.HIGH));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        File file = new File(tmp.getRoot(), ResultCache.CACHE_FILE);
+        ResultCache.update(file, Collections.<String>emptySet(),
+                Arrays.asList(new ResultCache.Entry("a", "GET /a", Collections.<Finding>emptyList()),
+                        new ResultCache.Entry("b", "GET /b", Collections.<Finding>emptyList())), 1024);
+        Thread.sleep(5);
+        ResultCache.update(file, Collections.singleton("a"), Collections.<ResultCache.Entry>emptyList(), 1024);
+        Thread.sleep(5);
+        long oneEntry = ResultCache.load(file).getBytes() / 2;
+
+        ResultCache cache = ResultCache.update(file, Collections.<String>emptySet(),
+                Collections.singletonList(new ResultCache.Entry("c", "GET /c", Collections.<Finding>emptyList())), oneEntry * 2 + 1);
+
+        assertEquals(1, cache.getEvicted());
+        assertEquals(new HashSet<>(Arrays.asList("a", "c")), ResultCache.load(file).keys());
+        assertNull(ResultCache.load(file).get("b"));
+        assertTrue(cache.getBytes() <= oneEntry * 2 + 1);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+}
@@ -0,0 +1,58 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+
+public class ScanCheckpointTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    final TaskListener listener = StreamTaskListener.fromStdout();
+    final HarFile login = new HarFile("/ws/hars/login.har", "login.har", 10, 0, "abc");
+    final HarFile search = new HarFile("/ws/hars/search.har", "search.har", 10, 0, "def");
+
+    @Test
+    public void testCompletedHarsAreResumed() throws Exception {
+        FilePath workspace = new FilePath(tmp.getRoot());
+        ScanCheckpoint checkpoint = ScanCheckpoint.load(workspace, "hars", "settings-1", listener);
+        checkpoint.record(Arrays.asList(new ScanResult(login, 0, 100), new ScanResult(search, 1, 100)), 7);
+
+        ScanCheckpoint resumed = ScanCheckpoint.load(workspace, "hars", "settings-1", listener);
+        ScanIndexAction.Entry entry = resumed.completed(login);
+        assertNotNull(entry);
+        assertEquals(7, entry.getBuildNumber());
+        assertNull("failed scans are scanned again", resumed.completed(search));
+        assertNull("changed HAR files are scanned again", resumed.completed(new HarFile(login.getPath(), login.getName(), 10, 0, "xyz")));
+    }
+
+    @Test
+    public void testCheckpointOfOtherSettingsIsIgnored() throws Exception {
+        FilePath workspace = new FilePath(tmp.getRoot());
+        ScanCheckpoint.load(workspace, "hars", "settings-1", listener).record(Arrays.asList(new ScanResult(login, 0, 100)), 7);
+        assertNull(ScanCheckpoint.load(workspace, "hars", "settings-2", listener).completed(login));
+        assertNull(ScanCheckpoint.load(workspace, "other", "settings-1", listener).completed(login));
+    }
+
+    @Test
+    public void testDeletedCheckpointStartsOver() throws Exception {
+        FilePath workspace = new FilePath(tmp.getRoot());
+        ScanCheckpoint checkpoint = ScanCheckpoint.load(workspace, "hars", "settings-1", listener);
+        checkpoint.record(Arrays.asList(new ScanResult(login, 0, 100)), 7);
+        checkpoint.delete();
+        assertFalse(ScanCheckpoint.manifestFile(workspace, "hars").exists());
+        assertNull(ScanCheckpoint.load(workspace, "hars", "settings-1", listener).completed(login));
+    }
+}
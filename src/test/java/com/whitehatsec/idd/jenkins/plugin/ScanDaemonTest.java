@@ -0,0 +1,142 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ScanDaemonTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    ScanDaemon daemon;
+    ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() throws Exception {
+        File portFile = new File(tmp.getRoot(), "idd-daemon.port");
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StandInDaemon.class.getName());
+        command.addAll(Arrays.asList("-port-file", portFile.getPath(), "-idle-timeout", "60"));
+        daemon = new ScanDaemon(command, Collections.singletonMap("IDD_STAND_IN", "build environment"), portFile, 60000);
+    }
+
+    @After
+    public void tearDown() {
+        daemon.shutdown();
+    }
+
+    int scan(String... hars) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int exitCode = daemon.scan("/ws/settings.json", Arrays.asList(hars), null, out, new PrintStream(log, true, "UTF-8"));
+        assertTrue(out.toString("UTF-8").contains("scanning " + hars[0]));
+        return exitCode;
+    }
+
+    @Test
+    public void testDaemonIsStartedOnceAndReused() throws Exception {
+        assertEquals(0, scan("/ws/hars/a.har", "/ws/hars/b.har"));
+        assertEquals(0, scan("/ws/hars/c.har"));
+        assertEquals(1, log.toString("UTF-8").split("start IDD daemon", -1).length - 1);
+    }
+
+    @Test
+    public void testExitCodeOfScan() throws Exception {
+        assertEquals(2, scan("/ws/hars/fail.har"));
+    }
+
+    @Test
+    public void testDaemonIsRestartedWhenGone() throws Exception {
+        assertEquals(0, scan("/ws/hars/a.har"));
+        daemon.shutdown();
+        log.reset();
+        assertEquals(0, scan("/ws/hars/a.har"));
+        assertTrue(log.toString("UTF-8").startsWith("start IDD daemon"));
+        assertFalse(log.toString("UTF-8").contains("does not answer"));
+    }
+
+    @Test
+    public void testDaemonGetsBuildEnvironment() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        daemon.scan("/ws/settings.json", Collections.singletonList("/ws/hars/a.har"), null, out, new PrintStream(log, true, "UTF-8"));
+        assertTrue(out.toString("UTF-8").contains("IDD_STAND_IN=build environment"));
+    }
+
+    @Test
+    public void testInterruptCancelsScan() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicReference<Exception> thrown = new AtomicReference<>();
+        Thread scan = new Thread(() -> {
+            try {
+                daemon.scan("/ws/settings.json", Collections.singletonList("/ws/hars/slow.har"), null, out, new PrintStream(log, true, "UTF-8"));
+            } catch (Exception e) {
+                thrown.set(e);
+            }
+        });
+        scan.start();
+        while (!out.toString("UTF-8").contains("scanning /ws/hars/slow.har")) {
+            Thread.sleep(50);
+        }
+        scan.interrupt();
+        scan.join(10000);
+
+        assertFalse(scan.isAlive());
+        assertTrue(thrown.get() instanceof InterruptedException);
+        assertEquals(0, scan("/ws/hars/a.har"));
+    }
+
+    @Test
+    public void testBuildsWithAnotherEnvironmentGetTheirOwnDaemon() throws Exception {
+        File dir = tmp.getRoot();
+        Map<String, String> build = new HashMap<>();
+        build.put("DIRECTED_DAST_HOME", "/opt/idd");
+        build.put("BUILD_NUMBER", "1");
+        build.put("WORKSPACE", "/ws/a");
+        Map<String, String> next = new HashMap<>(build);
+        next.put("BUILD_NUMBER", "2");
+        next.put("WORKSPACE", "/ws/b");
+        Map<String, String> proxied = new HashMap<>(build);
+        proxied.put("HTTPS_PROXY", "http://proxy.test:3128");
+
+        assertEquals(Collections.singletonMap("DIRECTED_DAST_HOME", "/opt/idd"), ScanDaemon.daemonEnv(build));
+        File portFile = ScanDaemon.portFile(dir, "/opt/idd", ScanDaemon.daemonEnv(build), 60000);
+        assertEquals(portFile, ScanDaemon.portFile(dir, "/opt/idd", ScanDaemon.daemonEnv(next), 60000));
+        assertNotEquals(portFile, ScanDaemon.portFile(dir, "/opt/idd", ScanDaemon.daemonEnv(proxied), 60000));
+        assertNotEquals(portFile, ScanDaemon.portFile(dir, "/opt/idd", ScanDaemon.daemonEnv(build), 120000));
+        assertNotEquals(portFile, ScanDaemon.portFile(dir, "/opt/idd2", ScanDaemon.daemonEnv(build), 60000));
+    }
+
+    @Test
+    public void testDaemonDirIsPrivate() throws Exception {
+        File dir = ScanDaemon.daemonDir(new File(tmp.getRoot(), "agent/idd-daemon"));
+
+        assertTrue(dir.isDirectory());
+        assertTrue(ScanDaemon.isOwned(dir.toPath()));
+        Assume.assumeTrue(dir.toPath().getFileSystem().supportedFileAttributeViews().contains("posix"));
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(dir.toPath())));
+    }
+}
@@ -0,0 +1,68 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ScanEstimateTest {
+
+    static HarFile har(String name, String digest) {
+        return new HarFile("/hars/" + name, name, 10, 0, digest);
+    }
+
+    static Map<String, HarProfile> profiles(HarProfile... profiles) {
+        Map<String, HarProfile> byDigest = new HashMap<>();
+        for (HarProfile profile : profiles) {
+            byDigest.put(profile.getDigest(), profile);
+        }
+        return byDigest;
+    }
+
+    static HarProfile endpoints(String digest, int count) throws Exception {
+        String[] entries = new String[count];
+        for (int i = 0; i < count; i++) {
+            entries[i] = HarFilterTest.entry("GET", "http://app.test/page" + (char) ('a' + i));
+        }
+        return HarProfileTest.profile(digest, entries);
+    }
+
+    @Test
+    public void testEstimatesChangedHarFilesFromRecordedDurations() throws Exception {
+        HarFile old = har("old.har", "o1");
+        HarFile changed = har("changed.har", "c2");
+        HarFile added = har("added.har", "n1");
+        ScanIndexAction previous = new ScanIndexAction("hars", "settings");
+        previous.record(old, new ScanResult(old, 0, 4000), 1);
+        previous.record(har("changed.har", "c1"), new ScanResult(har("changed.har", "c1"), 0, 2000), 1);
+
+        ScanEstimate estimate = new ScanEstimate(Arrays.asList(old, changed, added),
+            profiles(endpoints("o1", 4), endpoints("c1", 2), endpoints("c2", 5), endpoints("n1", 1)), previous, null, null);
+
+        assertEquals("unchanged HAR files take as long as before", 4000, estimate.expectedMillis(old));
+        assertEquals("1 s per endpoint", 5000, estimate.expectedMillis(changed));
+        assertEquals(1000, estimate.expectedMillis(added));
+        List<HarFile> sorted = estimate.longestFirst(Arrays.asList(added, old, changed));
+        assertEquals(Arrays.asList(changed, old, added), sorted);
+        assertEquals("two workers finish after the longest scan", 5000,
+            estimate.expectedMillis(ScanPool.partition(sorted, 1), 2));
+    }
+
+    @Test
+    public void testRanksByEndpointsWithoutHistory() throws Exception {
+        HarFile small = har("small.har", "s");
+        HarFile large = har("large.har", "l");
+
+        ScanEstimate estimate = new ScanEstimate(Arrays.asList(small, large), profiles(endpoints("s", 1), endpoints("l", 3)), null,
+            null, Collections.<String>emptyList());
+
+        assertEquals(-1, estimate.expectedMillis(small));
+        assertEquals(-1, estimate.expectedMillis(ScanPool.partition(Arrays.asList(small, large), 1), 2));
+        assertEquals(Arrays.asList(large, small), estimate.longestFirst(Arrays.asList(small, large)));
+    }
+}
@@ -0,0 +1,33 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class ScanIndexActionTest {
+
+    final HarFile har = new HarFile("/ws/hars/login.har", "login.har", 10, 0, "abc");
+
+    @Test
+    public void testUnchangedHarIsSkipped() {
+        ScanIndexAction index = new ScanIndexAction("hars", "settings-1");
+        index.record(har, new ScanResult(har, 0, 100), 1);
+        assertNotNull(index.unchanged(har, "settings-1"));
+    }
+
+    @Test
+    public void testChangedContentOrSettingsIsScanned() {
+        ScanIndexAction index = new ScanIndexAction("hars", "settings-1");
+        index.record(har, new ScanResult(har, 0, 100), 1);
+        assertNull(index.unchanged(new HarFile(har.getPath(), har.getName(), 10, 0, "def"), "settings-1"));
+        assertNull(index.unchanged(har, "settings-2"));
+    }
+
+    @Test
+    public void testFailedScanIsScannedAgain() {
+        ScanIndexAction index = new ScanIndexAction("hars", "settings-1");
+        index.record(har, new ScanResult(har, 1, 100), 1);
+        assertNull(index.unchanged(har, "settings-1"));
+    }
+}
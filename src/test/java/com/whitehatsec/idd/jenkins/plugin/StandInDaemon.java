@@ -0,0 +1,91 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Stand-in for {@code directed-dast-common -daemon} speaking the {@link ScanDaemon} protocol.
+ * Scans of HAR files whose path contains "fail" exit with 2, scans of HAR files whose path contains "slow" run until
+ * the connection is closed. The value of {@code IDD_STAND_IN} in its environment is printed with every scan.
+ */
+public class StandInDaemon {
+
+    public static void main(String[] args) throws Exception {
+        File portFile = null;
+        int idleTimeoutSeconds = 60;
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("-port-file".equals(args[i])) {
+                portFile = new File(args[i + 1]);
+            } else if ("-idle-timeout".equals(args[i])) {
+                idleTimeoutSeconds = Integer.parseInt(args[i + 1]);
+            }
+        }
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(idleTimeoutSeconds * 1000);
+            Files.write(portFile.toPath(), String.valueOf(server.getLocalPort()).getBytes(StandardCharsets.UTF_8));
+            while (true) {
+                try (Socket socket = server.accept()) {
+                    if (!handle(socket)) {
+                        return;
+                    }
+                } catch (SocketTimeoutException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    static boolean handle(Socket socket) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+        String line = reader.readLine();
+        if (line == null) {
+            return true;
+        }
+        JsonObject request = new JsonParser().parse(line).getAsJsonObject();
+        String op = request.get("op").getAsString();
+        if ("shutdown".equals(op)) {
+            return false;
+        }
+        if ("ping".equals(op)) {
+            writer.write("{\"type\":\"pong\"}\n");
+        } else if ("scan".equals(op)) {
+            int code = 0;
+            for (JsonElement har : request.getAsJsonArray("hars")) {
+                JsonObject output = new JsonObject();
+                output.addProperty("type", "output");
+                output.addProperty("line", "scanning " + har.getAsString());
+                writer.write(output + "\n");
+                code = har.getAsString().contains("fail") ? 2 : code;
+                if (har.getAsString().contains("slow")) {
+                    writer.flush();
+                    // until cancelled by closing the connection
+                    while (reader.read() != -1) {
+                        continue;
+                    }
+                    return true;
+                }
+            }
+            if (System.getenv("IDD_STAND_IN") != null) {
+                writer.write("{\"type\":\"output\",\"line\":\"IDD_STAND_IN=" + System.getenv("IDD_STAND_IN") + "\"}\n");
+            }
+            writer.write("{\"type\":\"exit\",\"code\":" + code + "}\n");
+        }
+        writer.flush();
+        return true;
+    }
+}
@@ -0,0 +1,119 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+
+/**
+ * Stand-in for {@code directed-dast-common}, installed as a shell script under {@code target} of a
+ * {@code DIRECTED_DAST_HOME}. For every HAR file on its command line it prints a line and {@code outputLines} more,
+ * sleeps {@code latencyMillis} and writes {@code findingsPerHar} findings to the findings file, if one is given; with a
+ * {@code findingsMarker}, only HAR files whose path contains it have findings.
+ * It exits with {@code exitCode}, with {@code exitCodeOnFindings} when it found anything, like the scanner does for
+ * findings at its Fail on Severity, or with 2 when the path of a HAR file contains "fail", like {@link StandInDaemon}.
+ * HAR files whose path contains "slow" take ten minutes, so their scans only end when they are killed.
+ * With a {@code trace} file, it appends "start" and "end" lines for every HAR file to it.
+ */
+public class StandInScanner {
+    private long latencyMillis;
+    private int outputLines;
+    private int findingsPerHar;
+    private String findingsMarker;
+    private String severity = Severity.LOW.level;
+    private int exitCode;
+    private int exitCodeOnFindings;
+    private File trace;
+
+    public StandInScanner latencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    public StandInScanner outputLines(int outputLines) {
+        this.outputLines = outputLines;
+        return this;
+    }
+
+    public StandInScanner findingsPerHar(int findingsPerHar, Severity severity) {
+        this.findingsPerHar = findingsPerHar;
+        this.severity = severity.level;
+        return this;
+    }
+
+    public StandInScanner exitCode(int exitCode) {
+        this.exitCode = exitCode;
+        return this;
+    }
+
+    public StandInScanner findingsMarker(String findingsMarker) {
+        this.findingsMarker = findingsMarker;
+        return this;
+    }
+
+    public StandInScanner exitCodeOnFindings(int exitCodeOnFindings) {
+        this.exitCodeOnFindings = exitCodeOnFindings;
+        return this;
+    }
+
+    public StandInScanner trace(File trace) {
+        this.trace = trace;
+        return this;
+    }
+
+    /**
+     * Writes the scanner script to {@code iddHome/target/directed-dast-common}.
+     */
+    public File install(File iddHome) throws IOException {
+        File scanner = new File(iddHome, "target/directed-dast-common");
+        if (!scanner.getParentFile().isDirectory() && !scanner.getParentFile().mkdirs()) {
+            throw new IOException("cannot create directory " + scanner.getParentFile());
+        }
+        Files.write(scanner.toPath(), script().getBytes(StandardCharsets.UTF_8));
+        if (!scanner.setExecutable(true)) {
+            throw new IOException("cannot make " + scanner + " executable");
+        }
+        return scanner;
+    }
+
+    String script() {
+        return "#!/bin/sh\n"
+            + "findings=\n"
+            + "code=" + exitCode + "\n"
+            + "option=\n"
+            + "sep=\n"
+            + "for arg in \"$@\"; do\n"
+            + "  case \"$option\" in\n"
+            + "    -findings-file) findings=\"$arg\"; printf '[' > \"$findings\"; option=; continue ;;\n"
+            + "    -settings-file) option=; continue ;;\n"
+            + "  esac\n"
+            + "  case \"$arg\" in\n"
+            + "    -findings-file|-settings-file) option=\"$arg\"; continue ;;\n"
+            + "  esac\n"
+            + (trace != null ? "  echo \"start $arg\" >> '" + trace.getPath() + "'\n" : "")
+            + "  echo \"scanning $arg\"\n"
+            + "  i=0\n"
+            + "  while [ $i -lt " + outputLines + " ]; do\n"
+            + "    echo \"request $i of $arg: no issue\"\n"
+            + "    i=$((i + 1))\n"
+            + "  done\n"
+            + "  n=" + (findingsMarker == null ? findingsPerHar : 0) + "\n"
+            + (findingsMarker != null ? "  case \"$arg\" in *" + findingsMarker + "*) n=" + findingsPerHar + " ;; esac\n" : "")
+            + "  i=0\n"
+            + "  while [ -n \"$findings\" ] && [ $i -lt $n ]; do\n"
+            + "    printf '%s{\"severity\":\"" + severity + "\",\"attackModule\":\"sqli\",\"url\":\"http://app.test/%s/%d\","
+            + "\"parameter\":\"q\",\"har\":\"%s\"}' \"$sep\" \"$(basename \"$arg\")\" $i \"$arg\" >> \"$findings\"\n"
+            + "    sep=,\n"
+            + "    i=$((i + 1))\n"
+            + "  done\n"
+            + (exitCodeOnFindings != 0 ? "  if [ $n -gt 0 ]; then code=" + exitCodeOnFindings + "; fi\n" : "")
+            + (latencyMillis > 0 ? "  sleep " + String.format(Locale.ENGLISH, "%.3f", latencyMillis / 1000.0) + "\n" : "")
+            + "  case \"$arg\" in *slow*) sleep 600 ;; esac\n"
+            + "  case \"$arg\" in *fail*) code=2 ;; esac\n"
+            + (trace != null ? "  echo \"end $arg\" >> '" + trace.getPath() + "'\n" : "")
+            + "done\n"
+            + "if [ -n \"$findings\" ]; then printf ']' >> \"$findings\"; fi\n"
+            + "exit $code\n";
+    }
+}
@@ -0,0 +1,62 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class UpdateSettingsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testUnchangedSettingsNotRewritten() throws Exception {
+        File settings = tmp.newFile("settings.json");
+        Files.write(settings.toPath(), "{\"attackModules\": [\"xss\"]}".getBytes(StandardCharsets.UTF_8));
+
+        HostMapping host = new HostMapping();
+        host.setEnable(true);
+        host.setFrom("www.fromHost.test");
+        host.setTo("www.toHost.test");
+        UpdateSettings update = new UpdateSettings(Collections.singletonList(host), "Low", "High");
+        UpdateSettings.Result first = update.invoke(settings, null);
+        assertEquals(Digests.sha256(settings), first.digest);
+
+        assertTrue(settings.setLastModified(1000));
+        UpdateSettings.Result second = update.invoke(settings, null);
+        assertEquals(first.digest, second.digest);
+        assertEquals(1000, settings.lastModified());
+
+        UpdateSettings.Result changed = new UpdateSettings(Collections.singletonList(host), "Low", "Critical").invoke(settings, null);
+        assertNotEquals(first.digest, changed.digest);
+        assertEquals(Digests.sha256(settings), changed.digest);
+    }
+
+    @Test
+    public void testRequestDelayGoesBackToTemplate() throws Exception {
+        File settings = tmp.newFile("settings.json");
+        Files.write(settings.toPath(), "{\"attackModules\": [\"xss\"]}".getBytes(StandardCharsets.UTF_8));
+        byte[] template = Files.readAllBytes(settings.toPath());
+
+        new UpdateSettings(Collections.emptyList(), "Low", "High", 200).invoke(settings, null);
+        assertEquals(200, SettingsFile.readSettings(settings).getRequestOptions().getRequestDelay());
+
+        // the template has no request options, so no delay
+        new UpdateSettings(Collections.emptyList(), "Low", "High", 0).invoke(settings, null);
+        assertEquals(0, SettingsFile.readSettings(settings).getRequestOptions().getRequestDelay());
+
+        Files.write(settings.toPath(), template);
+        new UpdateSettings(Collections.emptyList(), "Low", "High", 0).invoke(settings, null);
+        assertNull(SettingsFile.readSettings(settings).getRequestOptions());
+    }
+}
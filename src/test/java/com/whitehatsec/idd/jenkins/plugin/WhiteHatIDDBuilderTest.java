@@ -1,18 +1,35 @@
 package com.whitehatsec.idd.jenkins.plugin;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.jvnet.hudson.test.JenkinsRule;
 
 import hudson.EnvVars;
+import hudson.Functions;
 import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
 import hudson.model.Label;
@@ -24,6 +41,9 @@ public class WhiteHatIDDBuilderTest {
     @Rule
     public JenkinsRule jenkins = new JenkinsRule();
 
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     final String harSource = "console_test.har";
 
     @Before
@@ -48,6 +68,30 @@ public class WhiteHatIDDBuilderTest {
         WhiteHatIDDBuilder builder = new WhiteHatIDDBuilder(harSource);
         builder.setFilterOnSeverity(Severity.CRITICAL.level);
         builder.setFailOnSeverity(Severity.LOW.level);
+        builder.setMaxParallelScans(4);
+        builder.setForceFullScan(true);
+        builder.setBatchSize(20);
+        builder.setPreFilterHars(true);
+        builder.setResultCacheMB(10);
+        builder.setAppVersion("1.2.3");
+        builder.setShardMaxEntries(5000);
+        builder.setShardMaxSizeMB(100);
+        builder.setStreamArchives(true);
+        builder.setCollectFindings(true);
+        builder.setFailFast(true);
+        builder.setBaselineFile("idd-baseline.txt");
+        builder.setConsoleLines(200);
+        builder.setScanTimeoutMinutes(30);
+        builder.setMaxMemoryMB(2048);
+        builder.setMaxCpuPercent(200);
+        builder.setMaxLoadPercent(150);
+        builder.setMinFreeMemoryMB(512);
+        builder.setPerModuleTiming(true);
+        builder.setTimeBudgetMinutes(10);
+        builder.setModulePriority("sqli, xss");
+        builder.setResumeInterrupted(true);
+        builder.setDaemonMode(true);
+        builder.setDaemonIdleMinutes(10);
         ArrayList<WhiteHatIDDHostMapping> hostMapping;
         hostMapping = new ArrayList<WhiteHatIDDHostMapping>();
         hostMapping.add(new WhiteHatIDDHostMapping(true, "www.fromHost.test", "www.toHost.test"));
@@ -58,10 +102,184 @@ public class WhiteHatIDDBuilderTest {
         WhiteHatIDDBuilder lhs = new WhiteHatIDDBuilder(harSource);
         lhs.setFilterOnSeverity(Severity.CRITICAL.level);
         lhs.setFailOnSeverity(Severity.LOW.level);
+        lhs.setMaxParallelScans(4);
+        lhs.setForceFullScan(true);
+        lhs.setBatchSize(20);
+        lhs.setPreFilterHars(true);
+        lhs.setResultCacheMB(10);
+        lhs.setAppVersion("1.2.3");
+        lhs.setShardMaxEntries(5000);
+        lhs.setShardMaxSizeMB(100);
+        lhs.setStreamArchives(true);
+        lhs.setCollectFindings(true);
+        lhs.setFailFast(true);
+        lhs.setBaselineFile("idd-baseline.txt");
+        lhs.setConsoleLines(200);
+        lhs.setScanTimeoutMinutes(30);
+        lhs.setMaxMemoryMB(2048);
+        lhs.setMaxCpuPercent(200);
+        lhs.setMaxLoadPercent(150);
+        lhs.setMinFreeMemoryMB(512);
+        lhs.setPerModuleTiming(true);
+        lhs.setTimeBudgetMinutes(10);
+        lhs.setModulePriority("sqli, xss");
+        lhs.setResumeInterrupted(true);
+        lhs.setDaemonMode(true);
+        lhs.setDaemonIdleMinutes(10);
         lhs.setHostMapping(hostMapping);
         jenkins.assertEqualDataBoundBeans(lhs, project.getBuildersList().get(0));
     }
 
+    @Test
+    public void testModulePriorityOrder() {
+        List<String> attackModules = Arrays.asList("xss", "sqli", "lfi", "xxe");
+        assertEquals(Arrays.asList("sqli", "xxe", "xss", "lfi"), WhiteHatIDDBuilder.orderModules(attackModules, "sqli, unknown xxe"));
+        assertEquals(attackModules, WhiteHatIDDBuilder.orderModules(attackModules, null));
+    }
+
+    @Test
+    public void testArchiveWithoutHarFiles() throws Exception {
+        WhiteHatIDDGlobalConfiguration.get().setSettingsTemplate("{}");
+        File archive = tmp.newFile("recordings.zip");
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+            zip.putNextEntry(new ZipEntry("README.txt"));
+            zip.write("no recordings yet".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.getBuildersList().add(new WhiteHatIDDBuilder(archive.getAbsolutePath()));
+
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(project);
+        jenkins.assertLogContains("no HAR files found in " + archive.getAbsolutePath(), build);
+    }
+
+    void installScanner(StandInScanner scanner) throws IOException {
+        File iddHome = tmp.newFolder("idd");
+        scanner.install(iddHome);
+        jenkins.jenkins.getGlobalNodeProperties().get(EnvironmentVariablesNodeProperty.class).getEnvVars()
+            .put("DIRECTED_DAST_HOME", iddHome.getAbsolutePath());
+        WhiteHatIDDGlobalConfiguration.get().setSettingsTemplate("{}");
+    }
+
+    File hars(String... names) throws IOException {
+        File hars = tmp.newFolder("hars");
+        for (String name : names) {
+            Files.write(new File(hars, name).toPath(), "{\"log\":{\"entries\":[]}}".getBytes(StandardCharsets.UTF_8));
+        }
+        return hars;
+    }
+
+    /**
+     * Asserts that the output of the scan of the HAR file is one block in the log, ending with its exit code.
+     */
+    void assertScanBlock(String log, String harPath, int exitCode) {
+        int start = log.indexOf("execute IDD with harSource: " + harPath + "\n");
+        assertTrue(harPath, start >= 0);
+        int end = log.indexOf("IDD returns exit code: ", start);
+        String block = log.substring(start, end);
+        assertTrue(block, block.contains("scanning " + harPath + "\n"));
+        assertEquals(block, 1, block.split("scanning ", -1).length - 1);
+        assertTrue(log.startsWith("IDD returns exit code: " + exitCode + "\n", end));
+    }
+
+    @Test
+    public void testScansRunOnBoundedPoolAndKeepResultsPerHar() throws Exception {
+        Assume.assumeFalse("stand-in scanner is a shell script", Functions.isWindows());
+        File trace = tmp.newFile("scans.txt");
+        installScanner(new StandInScanner().latencyMillis(500).trace(trace));
+        String[] names = {"a.har", "b.har", "c-fail.har", "d.har", "e.har"};
+        File hars = hars(names);
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        WhiteHatIDDBuilder builder = new WhiteHatIDDBuilder(hars.getAbsolutePath());
+        builder.setMaxParallelScans(2);
+        project.getBuildersList().add(builder);
+
+        FreeStyleBuild build = jenkins.assertBuildStatus(Result.FAILURE, project.scheduleBuild2(0));
+        jenkins.assertLogContains("scan 5 HAR files, up to 2 at a time", build);
+        int running = 0;
+        int maxRunning = 0;
+        for (String line : Files.readAllLines(trace.toPath(), StandardCharsets.UTF_8)) {
+            running += line.startsWith("start ") ? 1 : -1;
+            maxRunning = Math.max(maxRunning, running);
+        }
+        assertEquals(2, maxRunning);
+
+        String log = JenkinsRule.getLog(build);
+        ScanIndexAction index = ScanIndexAction.forHarSource(build, hars.getAbsolutePath());
+        for (String name : names) {
+            int exitCode = name.contains("fail") ? 2 : 0;
+            assertScanBlock(log, new File(hars, name).getAbsolutePath(), exitCode);
+            assertEquals(name, exitCode, index.getEntry(name).getExitCode());
+        }
+        jenkins.assertLogContains("IDD did not succeed for 1 of 5 HAR files: [c-fail.har]", build);
+    }
+
+    @Test
+    public void testFailedBatchesAreAttributedToTheirHarFiles() throws Exception {
+        Assume.assumeFalse("stand-in scanner is a shell script", Functions.isWindows());
+        installScanner(new StandInScanner().findingsPerHar(1, Severity.HIGH).findingsMarker("vuln").exitCodeOnFindings(1));
+        File hars = hars("a.har", "b-fail.har", "c.har", "d.har", "e-vuln.har", "f.har", "g-fail.har", "h.har");
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        WhiteHatIDDBuilder builder = new WhiteHatIDDBuilder(hars.getAbsolutePath());
+        builder.setMaxParallelScans(1);
+        builder.setBatchSize(2);
+        builder.setCollectFindings(true);
+        builder.setFailOnSeverity(Severity.HIGH.level);
+        project.getBuildersList().add(builder);
+
+        FreeStyleBuild build = jenkins.assertBuildStatus(Result.FAILURE, project.scheduleBuild2(0));
+        String log = JenkinsRule.getLog(build);
+        // only the first failed batch is scanned again one HAR file at a time, to learn that IDD accepts batches
+        assertEquals(1, log.split("did not succeed, scan each HAR file separately", -1).length - 1);
+        assertEquals(6, log.split("execute IDD with harSource: ", -1).length - 1);
+
+        ScanIndexAction index = ScanIndexAction.forHarSource(build, hars.getAbsolutePath());
+        assertEquals(0, index.getEntry("a.har").getExitCode());
+        assertEquals(2, index.getEntry("b-fail.har").getExitCode());
+        assertEquals(0, index.getEntry("c.har").getExitCode());
+        assertEquals(0, index.getEntry("d.har").getExitCode());
+        // the findings tell which HAR file of the batch failed it
+        assertEquals(1, index.getEntry("e-vuln.har").getExitCode());
+        assertEquals(0, index.getEntry("f.har").getExitCode());
+        // without findings, the exit code of the batch applies to all of its HAR files
+        assertEquals(2, index.getEntry("g-fail.har").getExitCode());
+        assertEquals(2, index.getEntry("h.har").getExitCode());
+        assertTrue(index.getEntry("h.har").isBatch());
+        jenkins.assertLogContains("IDD did not succeed for 4 of 8 HAR files: [b-fail.har, e-vuln.har, g-fail.har, h.har]", build);
+    }
+
+    @Test
+    public void testFailFastKillsRunningScansAndCancelsTheRest() throws Exception {
+        Assume.assumeFalse("stand-in scanner is a shell script", Functions.isWindows());
+        File trace = tmp.newFile("scans.txt");
+        // the failing scan takes long enough for the slow one to be running when it fails
+        installScanner(new StandInScanner().latencyMillis(1000).trace(trace));
+        File hars = hars("a-slow.har", "b-fail.har", "c.har", "d.har");
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        WhiteHatIDDBuilder builder = new WhiteHatIDDBuilder(hars.getAbsolutePath());
+        builder.setMaxParallelScans(2);
+        builder.setFailFast(true);
+        project.getBuildersList().add(builder);
+
+        FreeStyleBuild build = jenkins.assertBuildStatus(Result.FAILURE, project.scheduleBuild2(0));
+        assertTrue(build.getDuration() < TimeUnit.MINUTES.toMillis(5));
+        List<String> scans = Files.readAllLines(trace.toPath(), StandardCharsets.UTF_8);
+        assertTrue(scans.contains("start " + new File(hars, "a-slow.har").getAbsolutePath()));
+        assertFalse(scans.contains("end " + new File(hars, "a-slow.har").getAbsolutePath()));
+        assertFalse(scans.contains("start " + new File(hars, "c.har").getAbsolutePath()));
+        assertFalse(scans.contains("start " + new File(hars, "d.har").getAbsolutePath()));
+
+        jenkins.assertLogContains("cancel remaining scans: b-fail.har reached Fail on Severity", build);
+        jenkins.assertLogContains("scanned 1 of 4 HAR files", build);
+        jenkins.assertLogContains("not scanned: [a-slow.har, c.har, d.har]", build);
+        jenkins.assertLogContains("IDD did not succeed for 1 of 4 HAR files: [b-fail.har]", build);
+        // cancelled HAR files are scanned by the next build
+        ScanIndexAction index = ScanIndexAction.forHarSource(build, hars.getAbsolutePath());
+        assertEquals(2, index.getEntry("b-fail.har").getExitCode());
+        assertNull(index.getEntry("a-slow.har"));
+        assertNull(index.getEntry("c.har"));
+    }
+
     @Ignore
     @Test
     public void testBuild() throws Exception {
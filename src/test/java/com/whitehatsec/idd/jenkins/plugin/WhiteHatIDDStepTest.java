@@ -0,0 +1,76 @@
+package com.whitehatsec.idd.jenkins.plugin;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.Functions;
+import hudson.model.Result;
+import hudson.slaves.EnvironmentVariablesNodeProperty;
+
+public class WhiteHatIDDStepTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    File iddHome;
+
+    @Before
+    public void setUpScanner() throws Exception {
+        Assume.assumeFalse("stand-in scanner is a shell script", Functions.isWindows());
+        iddHome = tmp.newFolder("idd");
+        EnvironmentVariablesNodeProperty prop = new EnvironmentVariablesNodeProperty();
+        prop.getEnvVars().put("DIRECTED_DAST_HOME", iddHome.getAbsolutePath());
+        jenkins.jenkins.getGlobalNodeProperties().add(prop);
+    }
+
+    void scannerExits(int exitCode) throws Exception {
+        File scanner = new File(iddHome, "target/directed-dast-common");
+        scanner.getParentFile().mkdirs();
+        Files.write(scanner.toPath(), ("#!/bin/sh\necho \"scanning $3\"\nexit " + exitCode + "\n").getBytes(StandardCharsets.UTF_8));
+        scanner.setExecutable(true);
+    }
+
+    WorkflowJob job() throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "scan");
+        job.setDefinition(new CpsFlowDefinition(
+                "node {\n"
+                + "  writeFile file: 'idd-settings-jenkins-job-scan.json', text: '{}'\n"
+                + "  writeFile file: 'hars/a.har', text: '{\"log\":{\"entries\":[]}}'\n"
+                + "  writeFile file: 'hars/b.har', text: '{\"log\":{\"entries\":[]}}'\n"
+                + "  whsIddScan 'hars'\n"
+                + "}", true));
+        return job;
+    }
+
+    @Test
+    public void testScanRunsInBackground() throws Exception {
+        scannerExits(0);
+        WorkflowRun run = jenkins.assertBuildStatusSuccess(job().scheduleBuild2(0));
+        jenkins.assertLogContains("launch IDD in the background for 2 HAR files", run);
+        jenkins.assertLogContains("a.har", run);
+        jenkins.assertLogContains("b.har", run);
+        jenkins.assertLogContains("IDD returns exit code: 0", run);
+    }
+
+    @Test
+    public void testScanFailure() throws Exception {
+        scannerExits(3);
+        WorkflowRun run = jenkins.assertBuildStatus(Result.FAILURE, job().scheduleBuild2(0));
+        jenkins.assertLogContains("IDD returns exit code: 3", run);
+        jenkins.assertLogContains("IDD did not succeed", run);
+    }
+}